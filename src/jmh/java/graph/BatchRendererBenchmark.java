@@ -0,0 +1,74 @@
+package graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import util.DrawConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Charts per second of {@link BatchRenderer} for a batch of report thumbnails, by thread count. Comparing the
+ * scores across threads shows how close the batch gets to linear scaling on the machine at hand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class BatchRendererBenchmark {
+    private static final int CHARTS = 256;
+    private static final int POINTS = 2_000;
+
+    @Param({"1", "4", "16", "32"})
+    public int threads;
+
+    private BatchRenderer batch;
+    private List<RenderJob> jobs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        batch = new BatchRenderer(threads);
+        jobs = new ArrayList<>(CHARTS);
+        for (int i = 0; i < CHARTS; ++i) {
+            int phase = i;
+            jobs.add(new RenderJob("chart-" + i, 400, 200, () -> thumbnail(phase)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batch.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHARTS)
+    public long renderBatch() {
+        return batch.renderAll(jobs, (job, png, length) -> { }).getBytesWritten();
+    }
+
+    private static LineGraph thumbnail(int phase) {
+        LineGraph graph = new LineGraph(POINTS);
+        graph.setDrawConfig(new DrawConfig().setShowGrid(true));
+        graph.setAutoTicks(true);
+        graph.cropData(true);
+        for (int i = 0; i < POINTS; ++i) {
+            graph.insertData(i, Math.sin(i * 0.01 + phase) + 0.1 * Math.sin(i * 0.37));
+        }
+        return graph;
+    }
+}
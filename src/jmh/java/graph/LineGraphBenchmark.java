@@ -0,0 +1,136 @@
+package graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import util.CircularPointBuffer;
+import util.DrawConfig;
+import util.GraphTools;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless paint benchmarks for {@link LineGraph}. Painting goes to a BufferedImage so the numbers reflect
+ * Java2D rasterization without any Swing or display pipeline overhead. Inserts are measured by
+ * {@link LineGraphIngestBenchmark}, since they do not depend on the render mode or zoom.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class LineGraphBenchmark {
+    private static final int WIDTH = 1800;
+    private static final int HEIGHT = 600;
+
+    @Param({"EVERY_POINT", "MIN_MAX_DECIMATION", "LARGEST_TRIANGLE_THREE_BUCKETS"})
+    public LineGraph.RenderMode renderMode;
+
+    @Param({"false", "true"})
+    public boolean cropped;
+
+    @Param({"false", "true"})
+    public boolean zoomed; // Window onto the newest 1% of x
+
+    @Param({"100", "100000", "1000000"})
+    public int capacity; // Points buffered, all of them drawn when not zoomed
+
+    private LineGraph graph;
+    private CircularPointBuffer baselineBuffer;
+    private BufferedImage image;
+    private Graphics2D g2;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[] ticks = new int[11];
+        int[] xTicks = new int[11];
+        for (int i = 0; i < ticks.length; ++i) {
+            ticks[i] = i * 10;
+            xTicks[i] = i * capacity / 10; // Uncropped x axis spans the buffered points at every capacity
+        }
+        graph = new LineGraph(new DrawConfig().setShowGrid(true).setXTickValues(xTicks).setYTickValues(ticks));
+        graph.setDataBufferCapacity(capacity);
+        graph.setSize(WIDTH, HEIGHT);
+        graph.setRenderMode(renderMode);
+        graph.cropData(cropped);
+        baselineBuffer = new CircularPointBuffer(graph.getDataBufferCapacity());
+        for (int i = 0; i < graph.getDataBufferCapacity(); ++i) {
+            graph.insertData(i, 50 + 40 * Math.sin(i * 0.05));
+            baselineBuffer.add(i, 50 + 40 * Math.sin(i * 0.05));
+        }
+        if (zoomed) {
+            graph.setXWindow(graph.getDataBufferCapacity() * 0.99, graph.getDataBufferCapacity());
+        }
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g2.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintGraphData() {
+        graph.paintGraphData(g2);
+        return image;
+    }
+
+    /**
+     * The per-segment loop paintGraphData used before polyline batching: a fresh stroke per frame, the crop
+     * branch evaluated per point and one drawLine call per segment. Kept as the baseline to compare against.
+     */
+    @Benchmark
+    public BufferedImage paintPerSegmentBaseline() {
+        g2.setStroke(new BasicStroke(graph.getEdgeThickness()));
+        g2.setColor(graph.getEdgeColor());
+        boolean postStart = false;
+        int prevX = 0;
+        int prevY = 0;
+        double xDelta = graph.getXPixelsDelta();
+        double yDelta = graph.getYPixelsDelta();
+        int marginSize = graph.getMarginSize();
+        for (Point2D.Double point : baselineBuffer) {
+            int x;
+            int y;
+            if (graph.isCropGraphToData()) {
+                x = (int) (marginSize + ((point.getX() - graph.getXMinVal()) * xDelta));
+                y = (int) (graph.getHeight() - (marginSize + ((point.getY() - graph.getYMinVal()) * yDelta)));
+            } else {
+                x = (int) (marginSize + (point.getX() * xDelta));
+                y = (int) (graph.getHeight() - (marginSize + (point.getY() * yDelta)));
+            }
+            if (postStart) {
+                g2.drawLine(prevX, prevY, x, y);
+            } else {
+                postStart = true;
+            }
+            prevX = x;
+            prevY = y;
+        }
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage drawTicks() {
+        GraphTools.drawTicks(g2, graph);
+        return image;
+    }
+}
@@ -0,0 +1,86 @@
+package graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert benchmarks for {@link LineGraph} on a full buffer. x keeps increasing across invocations as a live
+ * stream's does, so cropped bounds and sorted-x tracking see the same input they would in production.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class LineGraphIngestBenchmark {
+    private static final int BATCH = 1 << 16;
+
+    @Param({"false", "true"})
+    public boolean cropped;
+
+    @Param({"100", "100000", "1000000"})
+    public int capacity; // Points buffered
+
+    private LineGraph graph;
+    private double next; // x of the newest point inserted
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = new LineGraph(capacity);
+        graph.cropData(cropped);
+        for (int i = 0; i < capacity; ++i) {
+            graph.insertData(i, 50 + 40 * Math.sin(i * 0.05));
+        }
+        next = capacity - 1;
+    }
+
+    @Benchmark
+    public LineGraph insertData() {
+        next += 1.0;
+        return graph.insertData(next, Math.sin(next));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public LineGraph insertDataBulk(Batch batch) {
+        return graph.insertData(batch.xs, batch.ys, 0, BATCH);
+    }
+
+    /**
+     * One batch of samples, moved past the newest inserted x before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class Batch {
+        private final double[] xs = new double[BATCH];
+        private final double[] ys = new double[BATCH];
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            for (int i = 0; i < BATCH; ++i) {
+                ys[i] = Math.cos(i * 0.05);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void advance(LineGraphIngestBenchmark owner) {
+            for (int i = 0; i < BATCH; ++i) {
+                xs[i] = owner.next + 1 + i;
+            }
+            owner.next += BATCH;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.geom.Point2D;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmarks for the core {@link CircularPointBuffer} operations on a full buffer of each size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class CircularPointBufferBenchmark {
+    private static final int BATCH = 1 << 16;
+    private static final int COLUMNS = 1800;
+
+    @Param({"100", "10000", "1000000", "10000000"})
+    public int size;
+
+    private CircularPointBuffer buffer;
+    private CircularPointBuffer indexed;
+    private int summaryLevel;
+    private double visitedSum;
+    private double[] batchX;
+    private double[] batchY;
+    private Point2D.Double point;
+    private boolean grown;
+    private double next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        buffer = new CircularPointBuffer(size);
+        for (int i = 0; i < size; ++i) {
+            buffer.add(i, Math.sin(i * 0.001));
+        }
+        batchX = new double[BATCH];
+        batchY = new double[BATCH];
+        for (int i = 0; i < BATCH; ++i) {
+            batchX[i] = size + i;
+            batchY[i] = Math.cos(i * 0.001);
+        }
+        indexed = new CircularPointBuffer(size).setPyramidIndexing(true);
+        for (int i = 0; i < size; ++i) {
+            indexed.add(i, Math.sin(i * 0.001));
+        }
+        int blocksPerColumn = size / COLUMNS / CircularPointBuffer.PYRAMID_BASE_BLOCK;
+        summaryLevel = blocksPerColumn == 0 ? -1 : 31 - Integer.numberOfLeadingZeros(blocksPerColumn);
+        point = new Point2D.Double();
+        next = size;
+    }
+
+    @Benchmark
+    public boolean addPoint() {
+        point.setLocation(next, next);
+        next += 1.0;
+        return buffer.add(point);
+    }
+
+    @Benchmark
+    public void addPrimitive() {
+        buffer.add(next, next);
+        next += 1.0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public CircularPointBuffer addAllBulk() {
+        return buffer.addAll(batchX, batchY, 0, BATCH);
+    }
+
+    @Benchmark
+    public double iterateAll() {
+        double sum = 0.0;
+        for (Point2D.Double p : buffer) {
+            sum += p.getY();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double visitAll() {
+        visitedSum = 0.0;
+        buffer.forEach((xVal, yVal) -> visitedSum += yVal);
+        return visitedSum;
+    }
+
+    @Benchmark
+    public double cursorWalk() {
+        double sum = 0.0;
+        buffer.resetCursor();
+        for (int i = 0; i < buffer.size(); ++i) {
+            sum += buffer.cursorGetY();
+            buffer.advanceCursorWrapped();
+        }
+        return sum;
+    }
+
+    /**
+     * Pyramid walk at the coarsest level that still resolves one block per column of an 1800 pixel plot.
+     */
+    @Benchmark
+    public double summarizedWalk() {
+        visitedSum = 0.0;
+        indexed.forEachSummarized(0, size, summaryLevel, (xVal, yVal) -> visitedSum += yVal);
+        return visitedSum;
+    }
+
+    /**
+     * Removes the pair at the middle index, then appends it again so every invocation removes from a full
+     * buffer. Removing by index keeps the measured pair in the middle whatever the previous invocations moved.
+     */
+    @Benchmark
+    public CircularPointBuffer removeMiddle() {
+        int at = size / 2;
+        double xVal = buffer.getX(at);
+        double yVal = buffer.getY(at);
+        buffer.removeRange(at, at + 1);
+        buffer.add(xVal, yVal);
+        return buffer;
+    }
+
+    @Benchmark
+    public CircularPointBuffer setCapacity() {
+        grown = !grown;
+        return buffer.setCapacity(grown ? size + 1 : size);
+    }
+}
@@ -0,0 +1,158 @@
+package graph;
+
+import lombok.Getter;
+import util.ImagePool;
+
+import javax.imageio.ImageWriter;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Renders batches of charts to PNG on all cores. Each worker thread claims jobs from a shared counter, builds
+ * the job's graph, renders it headless into a pooled image, encodes it with its own PNG writer into its own
+ * reusable byte buffer, and hands the bytes to the sink. Workers share nothing but the counter, the image
+ * pool and the sink, so throughput scales with the number of cores until the sink becomes the bottleneck.
+ * <p>
+ * A failing job is recorded in the returned {@link RenderStats} and does not stop the batch.
+ * </p>
+ */
+public final class BatchRenderer implements AutoCloseable {
+    @Getter private final int parallelism;
+    @Getter private final GraphRenderer renderer;
+    private final ForkJoinPool pool;
+
+    /**
+     * Default constructor, rendering on one thread per available processor.
+     */
+    public BatchRenderer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param parallelism Number of rendering threads.
+     * @throws IllegalArgumentException if parallelism is less than 1.
+     */
+    public BatchRenderer(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism " + parallelism + " must be at least 1");
+        }
+        this.parallelism = parallelism;
+        this.renderer = new GraphRenderer(new ImagePool(parallelism)); // One idle image per worker and size
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Renders every job and streams the encoded images to the sink, returning once all of them are done.
+     *
+     * @param jobs Charts to render, claimed in list order.
+     * @param sink Receives each encoded image, concurrently from the rendering threads.
+     * @return Throughput and latency of the batch.
+     */
+    public RenderStats renderAll(List<RenderJob> jobs, PngSink sink) {
+        Batch batch = new Batch(List.copyOf(jobs), sink);
+        int workers = Math.max(1, Math.min(parallelism, batch.jobs.size()));
+        long start = System.nanoTime();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; ++i) {
+            tasks.add(pool.submit(batch::work));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        long wallNanos = System.nanoTime() - start;
+        return new RenderStats(Arrays.copyOf(batch.latencies, batch.completed.get()), batch.failedJobs,
+                batch.firstFailure.get(), batch.bytesWritten.sum(), wallNanos, workers);
+    }
+
+    /**
+     * Stops the rendering threads once any batch in progress has finished.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * State shared by the workers of one {@link #renderAll(List, PngSink)} call.
+     */
+    private final class Batch {
+        private final List<RenderJob> jobs;
+        private final PngSink sink;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final long[] latencies; // Indexed by completion order; published to the caller by join
+        private final List<String> failedJobs = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        private final LongAdder bytesWritten = new LongAdder();
+
+        private Batch(List<RenderJob> jobs, PngSink sink) {
+            this.jobs = jobs;
+            this.sink = sink;
+            this.latencies = new long[jobs.size()];
+        }
+
+        /**
+         * Claims and renders jobs until none are left.
+         */
+        private void work() {
+            ImageWriter writer;
+            try {
+                writer = GraphRenderer.createPngWriter();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            PngBuffer png = new PngBuffer();
+            try {
+                for (int i = next.getAndIncrement(); i < jobs.size(); i = next.getAndIncrement()) {
+                    renderOne(jobs.get(i), writer, png);
+                }
+            } finally {
+                writer.dispose();
+            }
+        }
+
+        private void renderOne(RenderJob job, ImageWriter writer, PngBuffer png) {
+            long begin = System.nanoTime();
+            BufferedImage image = null;
+            try {
+                image = renderer.render(job.getGraphFactory().get(), job.getWidth(), job.getHeight());
+                png.reset();
+                GraphRenderer.encodePng(image, writer, png);
+                sink.accept(job, png.array(), png.size());
+                bytesWritten.add(png.size());
+                latencies[completed.getAndIncrement()] = System.nanoTime() - begin;
+            } catch (IOException | RuntimeException e) {
+                failedJobs.add(job.getName());
+                firstFailure.compareAndSet(null, e);
+            } finally {
+                renderer.release(image);
+            }
+        }
+    }
+
+    /**
+     * Byte buffer whose backing array is handed to the sink without copying.
+     */
+    private static final class PngBuffer extends ByteArrayOutputStream {
+        private PngBuffer() {
+            super(1 << 16);
+        }
+
+        private byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package graph;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Offscreen image holding previously rendered graph data, together with the data-to-pixel mapping it was
+ * rendered with. Streaming graphs keep drawing into the same image, shifting it left as the x-axis scrolls
+ * and only rasterizing newly appended segments, instead of redrawing every buffered point each frame.
+ */
+final class DataLayer {
+    private BufferedImage image;
+
+    boolean valid;
+    long sequence; // Data sequence number of the newest point already drawn
+    int size; // Number of buffered points when the layer was last brought up to date
+    double lastX; // x value of the newest point already drawn
+    boolean monotonicX; // Whether every drawn point had an x no smaller than its predecessor
+    double xOrigin;
+    double yOrigin;
+    double xDelta;
+    double yDelta;
+    int margin;
+
+    /**
+     * Makes sure the backing image matches the panel size. A resize discards the content.
+     *
+     * @param width Panel width in pixels.
+     * @param height Panel height in pixels.
+     */
+    void ensureSize(int width, int height) {
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            valid = false;
+        }
+    }
+
+    /**
+     * Creates an antialiased Graphics2D drawing into the layer. Callers must dispose it.
+     *
+     * @return Graphics for the layer image.
+     */
+    Graphics2D createGraphics() {
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        return g2;
+    }
+
+    /**
+     * Clears the whole layer to transparent.
+     *
+     * @param g2 Graphics obtained from {@link #createGraphics()}.
+     */
+    void clear(Graphics2D g2) {
+        clearColumns(g2, 0, image.getWidth());
+    }
+
+    /**
+     * Clears a vertical strip of the layer to transparent.
+     *
+     * @param g2 Graphics obtained from {@link #createGraphics()}.
+     * @param fromX First column to clear.
+     * @param width Number of columns to clear.
+     */
+    void clearColumns(Graphics2D g2, int fromX, int width) {
+        if (width <= 0) {
+            return;
+        }
+        g2.setComposite(AlphaComposite.Clear);
+        g2.fillRect(fromX, 0, width, image.getHeight());
+        g2.setComposite(AlphaComposite.SrcOver);
+    }
+
+    /**
+     * Moves the layer content left by shift columns and clears the strip exposed on the right.
+     *
+     * @param g2 Graphics obtained from {@link #createGraphics()}.
+     * @param shift Columns to scroll by, at least 1.
+     */
+    void scrollLeft(Graphics2D g2, int shift) {
+        int width = image.getWidth();
+        if (shift < width) {
+            g2.setComposite(AlphaComposite.Src); // Replace, rather than blend over, the content being scrolled
+            g2.copyArea(shift, 0, width - shift, image.getHeight(), -shift, 0);
+            g2.setComposite(AlphaComposite.SrcOver);
+        }
+        clearColumns(g2, Math.max(0, width - shift), Math.min(shift, width));
+    }
+
+    /**
+     * Draws the layer onto the panel.
+     *
+     * @param g2 Graphics of the panel being painted.
+     */
+    void blit(Graphics2D g2) {
+        g2.drawImage(image, 0, 0, null);
+    }
+}
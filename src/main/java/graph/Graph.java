@@ -3,13 +3,21 @@ package graph;
 import lombok.Getter;
 import util.DrawConfig;
 import util.GraphTools;
+import util.TickEngine;
+import util.TickLabelCache;
 
 import javax.swing.JPanel;
+import java.awt.AlphaComposite;
+import java.awt.Color;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 
@@ -32,6 +40,50 @@ public abstract class Graph extends JPanel {
 
     @Getter protected boolean cropGraphToData;
 
+    // Layout derived from the DrawConfig, kept per graph so graphs sharing one config never overwrite each
+    // other's scale or bump its revision
+    @Getter private int marginSize;
+    @Getter private double xPixelsDelta;
+    @Getter private double yPixelsDelta;
+
+    // Formatted, measured and laid-out tick labels, reused across static layer renders
+    private final TickLabelCache tickLabelCache = new TickLabelCache();
+
+    // Ticks chosen from the visible range instead of the DrawConfig tick arrays
+    @Getter private boolean autoTicks;
+    @Getter private int minTickSpacing = TickEngine.DEFAULT_MIN_SPACING;
+    private final TickEngine xTickEngine = new TickEngine();
+    private final TickEngine yTickEngine = new TickEngine();
+
+    // Visible x range while zoomed; overrides the x scale implied by cropping or tick count
+    @Getter protected boolean xWindowed;
+    @Getter protected double xWindowMin;
+    @Getter protected double xWindowMax;
+
+    // Background, grid, ticks, labels and border rendered once and blitted every paint until a key changes
+    private BufferedImage staticLayer;
+    private boolean staticLayerValid;
+    private DrawConfig layerConfig;
+    private int layerConfigRevision;
+    private Font layerFont;
+    private Color layerBackground;
+    private boolean layerOpaque;
+    private double layerXMin;
+    private double layerXMax;
+    private double layerYMin;
+    private double layerYMax;
+    private double layerXPixelsDelta;
+    private double layerYPixelsDelta;
+
+    // Size of the headless render in progress, 0 otherwise
+    private int headlessWidth;
+    private int headlessHeight;
+
+    // Ticks and labels fitted to headless renders, kept apart so a render never refits the on-screen ones
+    private final TickLabelCache headlessTickLabelCache = new TickLabelCache();
+    private final TickEngine headlessXTickEngine = new TickEngine();
+    private final TickEngine headlessYTickEngine = new TickEngine();
+
     /**
      * Protected constructor prevents instantiation outside of this package when not explicitly extending.
      */
@@ -44,6 +96,7 @@ public abstract class Graph extends JPanel {
         yMaxVal = -yMinVal;
 
         drawConfig = new DrawConfig();
+        marginSize = drawConfig.getMarginSize();
 
         setBackground(drawConfig.getBackgroundColor());
         setFont(new Font("Arial", Font.PLAIN, 12));
@@ -60,23 +113,34 @@ public abstract class Graph extends JPanel {
      * Helper function which updates delta values for graph ticks.
      */
     protected void updateTickParameters() {
-        int marginSize = drawConfig.getMarginSize();
+        updatePixelDeltas();
+        repaint();
+    }
+
+    /**
+     * Recomputes the pixels-per-unit scale of both axes from the panel size and either the data bounds
+     * (when cropped) or the tick count.
+     */
+    protected void updatePixelDeltas() {
         int graphWidth = getWidth() - 2 * marginSize;
         int graphHeight = getHeight() - 2 * marginSize;
         double visibleRangeX;
         double visibleRangeY;
-        System.out.println("About to test cropGraphToData");
         if (cropGraphToData) {
-            System.out.println("cropGraphToData");
             visibleRangeX = Math.max(1e-10, xMaxVal - xMinVal);
             visibleRangeY = Math.max(1e-10, yMaxVal - yMinVal);
+        } else if (autoTicks) { // Automatic ticks have no count to scale by, so show 0 up to the data
+            visibleRangeX = Math.max(1e-10, xMaxVal);
+            visibleRangeY = Math.max(1e-10, yMaxVal);
         } else { // If it isn't cropped, we simply set the distance between ticks to be height / numticks
             visibleRangeX = drawConfig.getIntXTicks().length - 1;
             visibleRangeY = drawConfig.getIntYTicks().length - 1;
         }
-        drawConfig.setXPixelsDelta((double) graphWidth / visibleRangeX);
-        drawConfig.setYPixelsDelta((double) graphHeight / visibleRangeY);
-        repaint();
+        if (xWindowed) {
+            visibleRangeX = xWindowMax - xWindowMin;
+        }
+        xPixelsDelta = (double) graphWidth / visibleRangeX;
+        yPixelsDelta = (double) graphHeight / visibleRangeY;
     }
 
     /**
@@ -91,6 +155,103 @@ public abstract class Graph extends JPanel {
         return this;
     }
 
+    /**
+     * Zooms the x-axis to [xMin, xMax]. Data outside the window is clipped to the plot area, and graphs
+     * holding x-sorted data only visit the points that fall inside it.
+     *
+     * @param xMin Smallest visible x value.
+     * @param xMax Largest visible x value.
+     * @return this instance for method chaining
+     * @throws IllegalArgumentException if xMin is not less than xMax.
+     */
+    public Graph setXWindow(double xMin, double xMax) {
+        if (!(xMin < xMax)) {
+            throw new IllegalArgumentException("X window [" + xMin + ", " + xMax + "] is empty");
+        }
+        xWindowed = true;
+        xWindowMin = xMin;
+        xWindowMax = xMax;
+        updateTickParameters();
+        return this;
+    }
+
+    /**
+     * Zooms back out to the x range implied by cropping or the tick count.
+     *
+     * @return this instance for method chaining
+     */
+    public Graph clearXWindow() {
+        xWindowed = false;
+        updateTickParameters();
+        return this;
+    }
+
+    /**
+     * Replaces the DrawConfig tick arrays with ticks chosen from the visible range: 1, 2 or 5 times a power of
+     * ten apart, at least {@link #getMinTickSpacing()} pixels from each other, and placed at their data
+     * position. Cropped and zoomed graphs keep correct labels as the data moves, and the ticks are only
+     * recomputed when one enters or leaves the visible range.
+     *
+     * @param autoTicks True to choose ticks automatically.
+     * @return this instance for method chaining
+     */
+    public Graph setAutoTicks(boolean autoTicks) {
+        this.autoTicks = autoTicks;
+        staticLayerValid = false;
+        updateTickParameters();
+        return this;
+    }
+
+    /**
+     * Sets the minimum distance between neighboring automatic ticks.
+     *
+     * @param minTickSpacing Minimum spacing in pixels.
+     * @return this instance for method chaining
+     * @throws IllegalArgumentException if minTickSpacing is less than 1.
+     */
+    public Graph setMinTickSpacing(int minTickSpacing) {
+        if (minTickSpacing < 1) {
+            throw new IllegalArgumentException("Tick spacing " + minTickSpacing + " must be at least 1 pixel");
+        }
+        this.minTickSpacing = minTickSpacing;
+        staticLayerValid = false;
+        repaint();
+        return this;
+    }
+
+    /**
+     * Fits both tick engines to the range currently mapped onto the plot area.
+     */
+    private void updateTickEngines() {
+        int graphWidth = getWidth() - 2 * marginSize;
+        int graphHeight = getHeight() - 2 * marginSize;
+        double xOrigin = getXOrigin();
+        double yOrigin = getYOrigin();
+        getXTickEngine().update(xOrigin, xOrigin + graphWidth / xPixelsDelta, graphWidth, minTickSpacing);
+        getYTickEngine().update(yOrigin, yOrigin + graphHeight / yPixelsDelta, graphHeight, minTickSpacing);
+    }
+
+    /**
+     * Data x value mapped to the left edge of the plot area.
+     *
+     * @return Window start when zoomed, minimum x when cropped, 0 otherwise.
+     */
+    protected double getXOrigin() {
+        if (xWindowed) {
+            return xWindowMin;
+        }
+        return cropGraphToData ? xMinVal : 0.0;
+    }
+
+    /**
+     * Data y value mapped to the bottom edge of the plot area.
+     *
+     * @return Minimum y when cropped, 0 otherwise.
+     */
+    protected double getYOrigin() {
+        return cropGraphToData ? yMinVal : 0.0;
+    }
+
     /**
      * Sets the font used to render tick mark labels. Loosely overloads JPanel's setFont. JPanel.setFont is called
      * before returning this instance. Solely exists for chain setting.
@@ -111,13 +272,14 @@ public abstract class Graph extends JPanel {
      */
     public Graph setDrawConfig(DrawConfig config) {
         drawConfig = config;
+        marginSize = config.getMarginSize();
         updateTickParameters();
         return this;
     }
 
     /**
      * Verifies that Margin is a viable size given the size of possible tick labels.
-     * Dynamically adjusts marginSize larger or smaller as needed.
+     * Dynamically adjusts this graph's marginSize larger or smaller than the DrawConfig margin as needed.
      *
      * @param fm FontMetrics used to verify size against graph parameters
      */
@@ -130,8 +292,8 @@ public abstract class Graph extends JPanel {
         int labelHeight = fm.getAscent() + fm.getDescent();
         int heightRequirement = (labelHeight * 4 + 2) / 3 + halfTickLength;
         int requiredMargin = Math.max(widthRequirement, heightRequirement);
-        if (Math.abs(requiredMargin - drawConfig.getMarginSize()) > 1) { // 1 pixel threshold for safety
-            drawConfig.setMarginSize(requiredMargin);
+        if (Math.abs(requiredMargin - marginSize) > 1) { // 1 pixel threshold for safety
+            marginSize = requiredMargin;
         }
     }
 
@@ -151,6 +313,22 @@ public abstract class Graph extends JPanel {
         g2.drawString(str, x, y);
     }
 
+    /**
+     * Helper ensures a pre-laid-out Label is drawn with correct settings.
+     *
+     * @param g2 Obtained from repaint().
+     * @param glyphs Label being drawn, laid out for the current font.
+     * @param x Beginning x coordinate of the drawn.
+     * @param y Baseline of the label being drawn.
+     */
+    public void drawTickLabel(Graphics2D g2, GlyphVector glyphs, int x, int y) {
+        if (graphState != DRAW_LABELS) {
+            g2.setColor(drawConfig.getTickLabelColor());
+            graphState = DRAW_LABELS;
+        }
+        g2.drawGlyphVector(glyphs, x, y);
+    }
+
     /**
      * Draws a tick line with the correct configurations
      *
@@ -188,9 +366,10 @@ public abstract class Graph extends JPanel {
     /**
      * Core rendering method called by the Swing framework.
      * <p>
-     * This method first clears the panel, then draws the background, border, and axis tick marks,
-     * and finally delegates the graph-specific data rendering to the subclass implementation
-     * of {@link #paintGraphData(Graphics2D)}.
+     * This method draws the background, border, and axis tick marks, and finally delegates the graph-specific
+     * data rendering to the subclass implementation of {@link #paintGraphData(Graphics2D)}. Everything except
+     * the data is rendered into an offscreen image which is reused until the panel size, font, DrawConfig or
+     * data bounds change, so steady-state repaints only pay for a single image blit plus the data.
      * </p>
      *
      * <p>
@@ -202,20 +381,213 @@ public abstract class Graph extends JPanel {
      */
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
+        refreshGraphData();
         Graphics2D g2 = (Graphics2D) g;
+        if (getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+        if (!isStaticLayerCurrent()) {
+            renderStaticLayer();
+        }
+        g2.drawImage(staticLayer, 0, 0, null);
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        if (drawConfig.isShowingGraphTickMarks()) {
-            if (drawConfig.isShowingTickLabels()) {
-                verifyMarginToLabelScale(g2.getFontMetrics());
-            }
+        paintGraphData(g2);
+        graphState = NEUTRAL;
+    }
+
+    /**
+     * Forces the background, ticks, labels and border to be re-rendered on the next paint. Only needed after
+     * mutating state the graph cannot observe, such as tick arrays changed in place.
+     */
+    public void invalidateStaticLayer() {
+        staticLayerValid = false;
+        repaint();
+    }
+
+    /**
+     * Checks every input of the static layer against the values it was last rendered with.
+     *
+     * @return True if the cached layer can be blitted as is.
+     */
+    private boolean isStaticLayerCurrent() {
+        return staticLayerValid
+                && staticLayer.getWidth() == getWidth()
+                && staticLayer.getHeight() == getHeight()
+                && layerConfig == drawConfig
+                && layerConfigRevision == drawConfig.getRevision()
+                && layerOpaque == isOpaque()
+                && getFont().equals(layerFont)
+                && getBackground().equals(layerBackground)
+                && Double.compare(layerXMin, xMinVal) == 0
+                && Double.compare(layerXMax, xMaxVal) == 0
+                && Double.compare(layerYMin, yMinVal) == 0
+                && Double.compare(layerYMax, yMaxVal) == 0
+                && Double.compare(layerXPixelsDelta, xPixelsDelta) == 0
+                && Double.compare(layerYPixelsDelta, yPixelsDelta) == 0;
+    }
+
+    /**
+     * Verifies the margin, refreshes the scale and renders background, ticks, labels and border
+     * into the static layer, then records the inputs it was rendered with.
+     */
+    private void renderStaticLayer() {
+        int width = getWidth();
+        int height = getHeight();
+        boolean opaque = isOpaque();
+        if (staticLayer == null || staticLayer.getWidth() != width || staticLayer.getHeight() != height
+                || layerOpaque != opaque) {
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            staticLayer = gc != null
+                    ? gc.createCompatibleImage(width, height, opaque ? Transparency.OPAQUE : Transparency.TRANSLUCENT)
+                    : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        Graphics2D layer = staticLayer.createGraphics();
+        try {
+            drawStaticContent(layer, width, height, opaque);
+        } finally {
+            layer.dispose();
+            graphState = NEUTRAL;
+        }
+        staticLayerValid = true;
+        layerConfig = drawConfig;
+        layerConfigRevision = drawConfig.getRevision();
+        layerOpaque = opaque;
+        layerFont = getFont();
+        layerBackground = getBackground();
+        layerXMin = xMinVal;
+        layerXMax = xMaxVal;
+        layerYMin = yMinVal;
+        layerYMax = yMaxVal;
+        layerXPixelsDelta = xPixelsDelta;
+        layerYPixelsDelta = yPixelsDelta;
+    }
+
+    /**
+     * Verifies the margin, refreshes the scale and draws background, ticks, labels and border.
+     *
+     * @param g2 Destination, covering the whole graph.
+     * @param width Graph width in pixels.
+     * @param height Graph height in pixels.
+     * @param opaque True to fill the background, false to clear to transparent.
+     */
+    private void drawStaticContent(Graphics2D g2, int width, int height, boolean opaque) {
+        if (opaque) {
+            g2.setColor(getBackground());
+            g2.fillRect(0, 0, width, height);
+        } else {
+            g2.setComposite(AlphaComposite.Clear);
+            g2.fillRect(0, 0, width, height);
+            g2.setComposite(AlphaComposite.SrcOver);
+        }
+        g2.setFont(getFont());
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphState = NEUTRAL;
+        boolean showingTickMarks = drawConfig.isShowingGraphTickMarks();
+        marginSize = drawConfig.getMarginSize();
+        if (showingTickMarks && drawConfig.isShowingTickLabels()) {
+            verifyMarginToLabelScale(g2.getFontMetrics());
+        }
+        updatePixelDeltas(); // Size, bounds or margin may have moved since the last resize
+        if (autoTicks) {
+            updateTickEngines();
+        }
+        if (showingTickMarks) {
             GraphTools.drawTicks(g2, this);
         }
         if (drawConfig.isShowingMarginBorder()) {
             GraphTools.drawMargin(g2, this);
         }
-        paintGraphData(g2);
-        graphState = NEUTRAL;
+    }
+
+    /**
+     * Paints the whole graph at the given size without going through Swing: the component does not need to
+     * be laid out, displayable or even sized, so this works with java.awt.headless=true. Static content is
+     * drawn straight into g2 rather than into the cached static layer, so a one-off render allocates no
+     * image of its own. While it runs, getWidth and getHeight report the requested size, and ticks and labels
+     * are fitted with engines and a label cache kept for headless renders. The margin and scale of the
+     * on-screen graph are restored afterwards, so rendering a live graph leaves its next paint unaffected.
+     * Pending inserts are drained first, so a graph fed through the concurrent ingest path must be rendered
+     * on its painting thread.
+     *
+     * @param g2 Destination, covering [0, width) x [0, height).
+     * @param width Width to render at, in pixels.
+     * @param height Height to render at, in pixels.
+     */
+    void paintHeadless(Graphics2D g2, int width, int height) {
+        int screenMarginSize = marginSize;
+        double screenXPixelsDelta = xPixelsDelta;
+        double screenYPixelsDelta = yPixelsDelta;
+        headlessWidth = width;
+        headlessHeight = height;
+        try {
+            refreshGraphData();
+            drawStaticContent(g2, width, height, isOpaque());
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphState = NEUTRAL;
+            paintHeadlessGraphData(g2);
+        } finally {
+            graphState = NEUTRAL;
+            headlessWidth = 0;
+            headlessHeight = 0;
+            marginSize = screenMarginSize;
+            xPixelsDelta = screenXPixelsDelta;
+            yPixelsDelta = screenYPixelsDelta;
+        }
+    }
+
+    /**
+     * Label cache for the render in progress: the on-screen one, or the one kept for headless renders.
+     *
+     * @return Tick label cache.
+     */
+    public TickLabelCache getTickLabelCache() {
+        return headlessWidth > 0 ? headlessTickLabelCache : tickLabelCache;
+    }
+
+    /**
+     * X axis tick engine for the render in progress: the on-screen one, or the one kept for headless renders.
+     *
+     * @return X tick engine.
+     */
+    public TickEngine getXTickEngine() {
+        return headlessWidth > 0 ? headlessXTickEngine : xTickEngine;
+    }
+
+    /**
+     * Y axis tick engine for the render in progress: the on-screen one, or the one kept for headless renders.
+     *
+     * @return Y tick engine.
+     */
+    public TickEngine getYTickEngine() {
+        return headlessWidth > 0 ? headlessYTickEngine : yTickEngine;
+    }
+
+    /**
+     * Width of the graph, or of the headless render in progress.
+     *
+     * @return Width in pixels.
+     */
+    @Override
+    public int getWidth() {
+        return headlessWidth > 0 ? headlessWidth : super.getWidth();
+    }
+
+    /**
+     * Height of the graph, or of the headless render in progress.
+     *
+     * @return Height in pixels.
+     */
+    @Override
+    public int getHeight() {
+        return headlessHeight > 0 ? headlessHeight : super.getHeight();
+    }
+
+    /**
+     * Hook invoked on the painting thread before bounds, margins and ticks are evaluated. Subclasses which
+     * receive data from other threads use it to bring their painter-side state up to date. Does nothing by
+     * default.
+     */
+    protected void refreshGraphData() {
     }
 
     /**
@@ -230,6 +602,17 @@ public abstract class Graph extends JPanel {
      */
     protected abstract void paintGraphData(Graphics2D g2);
 
+    /**
+     * Draws the graph-specific data for {@link #paintHeadless(Graphics2D, int, int)}. Defaults to
+     * {@link #paintGraphData(Graphics2D)}; graphs that keep per-frame state for painting on screen, such as
+     * frame statistics or incrementally rendered layers, override it to draw without touching that state.
+     *
+     * @param g2     The Graphics2D context configured with antialiasing
+     */
+    protected void paintHeadlessGraphData(Graphics2D g2) {
+        paintGraphData(g2);
+    }
+
     protected enum GraphState {
         NEUTRAL,
         DRAW_GRID,
@@ -0,0 +1,167 @@
+package graph;
+
+import lombok.Getter;
+import util.ImagePool;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Renders graphs offscreen, without showing or laying out their Swing component, so charts can be produced
+ * in a headless JVM (java.awt.headless=true). Targets are a pooled image, a caller-supplied image, or a
+ * caller-supplied int[] of packed ARGB pixels.
+ * <p>
+ * A renderer may be shared between threads, but a single Graph must not be rendered or painted by two
+ * threads at once. Rendering drains the graph's pending inserts, so a live graph fed through the concurrent
+ * ingest path must be rendered on its painting thread.
+ * </p>
+ */
+public final class GraphRenderer {
+    private static final int[] ARGB_MASKS = {0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000};
+
+    @Getter private final ImagePool imagePool;
+
+    /**
+     * Default constructor, pooling up to four idle images per size.
+     */
+    public GraphRenderer() {
+        this(new ImagePool(4));
+    }
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param imagePool Pool that {@link #render(Graph, int, int)} takes its images from.
+     */
+    public GraphRenderer(ImagePool imagePool) {
+        this.imagePool = Objects.requireNonNull(imagePool);
+    }
+
+    /**
+     * Renders a graph into an image taken from the pool. Hand the image back with {@link #release(BufferedImage)}
+     * once its pixels have been used. A live graph using concurrent ingest must be rendered on its painting
+     * thread.
+     *
+     * @param graph Graph to render.
+     * @param width Width in pixels.
+     * @param height Height in pixels.
+     * @return Pooled TYPE_INT_ARGB image holding the graph.
+     * @throws IllegalArgumentException if width or height is not positive.
+     */
+    public BufferedImage render(Graph graph, int width, int height) {
+        BufferedImage image = imagePool.acquire(width, height);
+        render(graph, image);
+        return image;
+    }
+
+    /**
+     * Renders a graph over the whole of a caller-supplied image. A live graph using concurrent ingest must be
+     * rendered on its painting thread.
+     *
+     * @param graph Graph to render.
+     * @param target Image to draw into, rendered at its own size.
+     * @return target.
+     */
+    public BufferedImage render(Graph graph, BufferedImage target) {
+        Graphics2D g2 = target.createGraphics();
+        try {
+            graph.paintHeadless(g2, target.getWidth(), target.getHeight());
+        } finally {
+            g2.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * Renders a graph into a caller-supplied raster of packed, non-premultiplied ARGB pixels in row-major
+     * order, the layout of {@link BufferedImage#getRGB(int, int)}.
+     *
+     * @param graph Graph to render.
+     * @param width Width in pixels.
+     * @param height Height in pixels.
+     * @param argb Destination pixels, at least width * height long.
+     * @throws IllegalArgumentException if width or height is not positive or argb is too short.
+     */
+    public void render(Graph graph, int width, int height, int[] argb) {
+        if (width <= 0 || height <= 0 || (long) width * height > argb.length) {
+            throw new IllegalArgumentException("Raster of " + argb.length + " pixels cannot hold "
+                    + width + "x" + height);
+        }
+        DataBufferInt buffer = new DataBufferInt(argb, width * height);
+        WritableRaster raster = Raster.createPackedRaster(buffer, width, height, width, ARGB_MASKS, null);
+        render(graph, new BufferedImage(ColorModel.getRGBdefault(), raster, false, null));
+    }
+
+    /**
+     * Renders a graph and writes it to a stream as PNG. The intermediate image is pooled.
+     *
+     * @param graph Graph to render.
+     * @param width Width in pixels.
+     * @param height Height in pixels.
+     * @param out Destination stream, left open.
+     * @throws IOException if writing fails.
+     */
+    public void writePng(Graph graph, int width, int height, OutputStream out) throws IOException {
+        BufferedImage image = render(graph, width, height);
+        ImageWriter writer = createPngWriter();
+        try {
+            encodePng(image, writer, out);
+        } finally {
+            writer.dispose();
+            release(image);
+        }
+    }
+
+    /**
+     * Looks up an ImageIO PNG writer. A writer may be reused for any number of images by one thread.
+     *
+     * @return New PNG writer.
+     * @throws IOException if the runtime has no PNG writer.
+     */
+    static ImageWriter createPngWriter() throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("png");
+        if (!writers.hasNext()) {
+            throw new IOException("No PNG writer available");
+        }
+        return writers.next();
+    }
+
+    /**
+     * Encodes an image as PNG. Buffers in memory rather than through ImageIO's default temporary file cache,
+     * which would put disk I/O on the path of every image.
+     *
+     * @param image Image to encode.
+     * @param writer PNG writer owned by the calling thread.
+     * @param out Destination stream, left open.
+     * @throws IOException if writing fails.
+     */
+    static void encodePng(BufferedImage image, ImageWriter writer, OutputStream out) throws IOException {
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(image);
+        } finally {
+            writer.setOutput(null);
+        }
+    }
+
+    /**
+     * Returns an image obtained from {@link #render(Graph, int, int)} to the pool.
+     *
+     * @param image Image to recycle. Must not be used afterwards.
+     */
+    public void release(BufferedImage image) {
+        imagePool.release(image);
+    }
+}
@@ -2,38 +2,154 @@ package graph;
 
 import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import util.CircularPointBuffer;
+import util.CompactPointBuffer;
+import util.DoubleBiConsumer;
 import util.DrawConfig;
+import util.LttbDownsampler;
+import util.MappedPointBuffer;
+import util.MpscPointBuffer;
+import util.OffHeapPointBuffer;
+import util.PointBuffer;
+import util.PointHandoff;
+import util.SpscPointBuffer;
 
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Shape;
 import java.awt.geom.Point2D;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 
 /**
  * Logic for creating a JPanel LineGraph
  */
 @Getter
-@RequiredArgsConstructor
 public final class LineGraph extends Graph {
 
-    @Getter(AccessLevel.NONE) private final CircularPointBuffer dataBuffer;
+    @Getter(AccessLevel.NONE) private final PointBuffer dataBuffer;
+    @Getter(AccessLevel.NONE) private final CircularPointBuffer indexedBuffer; // dataBuffer if it keeps indexes
 
     private Color edgeColor;
 
     private float edgeThickness;
 
+    private RenderMode renderMode;
+
+    private boolean scrollingRender;
+
+    private final RefreshScheduler refreshScheduler = new RefreshScheduler(this);
+
+    @Getter(AccessLevel.NONE) private long dataSequence; // Total samples ever appended to dataBuffer
+    @Getter(AccessLevel.NONE) private DataLayer dataLayer;
+    @Getter(AccessLevel.NONE) private Color dataLayerColor;
+    @Getter(AccessLevel.NONE) private float dataLayerThickness;
+    @Getter(AccessLevel.NONE) private RenderMode dataLayerRenderMode;
+    private long layerRedrawCount; // Scrolling paints that redrew the whole layer instead of scrolling it
+
+    @Getter(AccessLevel.NONE) private volatile PointHandoff ingestBuffer;
+    @Getter(AccessLevel.NONE) private double[] ingestScratchX;
+    @Getter(AccessLevel.NONE) private double[] ingestScratchY;
+
+    // Screen-space vertices reused across frames so steady-state painting allocates nothing
+    @Getter(AccessLevel.NONE) private int[] vertexX = new int[0];
+    @Getter(AccessLevel.NONE) private int[] vertexY = new int[0];
+    @Getter(AccessLevel.NONE) private int vertexCount;
+    @Getter(AccessLevel.NONE) private BasicStroke edgeStroke;
+    @Getter(AccessLevel.NONE) private final ColumnDecimator columnDecimator = new ColumnDecimator();
+    @Getter(AccessLevel.NONE) private final VertexProjector vertexProjector = new VertexProjector();
+
+    // Linear scans standing in for the window extrema and range indexes a plain PointBuffer does not keep
+    @Getter(AccessLevel.NONE) private final ExtremaScanner dataExtrema = new ExtremaScanner();
+    @Getter(AccessLevel.NONE) private final ExtremaScanner windowScanner = new ExtremaScanner();
+    @Getter(AccessLevel.NONE) private long scannedDrops; // Points dropped from dataBuffer as of the last scan
+
+    @Getter(AccessLevel.NONE) private LttbDownsampler downsampler;
+    @Getter(AccessLevel.NONE) private double[] downsampledX = new double[0];
+    @Getter(AccessLevel.NONE) private double[] downsampledY = new double[0];
+
+    @Getter(AccessLevel.NONE) private final List<Series> extraSeries = new ArrayList<>();
+
     /**
      * Default constructor initializing default values and an empty data queue
      */
     public LineGraph() {
+        this(100);
+    }
+
+    /**
+     * Constructs an empty LineGraph that retains the newest capacity points, overwriting the oldest beyond
+     * that.
+     *
+     * @param capacity Number of points retained
+     */
+    public LineGraph(int capacity) {
+        this(capacity, capacity);
+    }
+
+    /**
+     * Constructs an empty LineGraph whose buffer starts at initialCapacity points and doubles whenever it
+     * fills, up to maxCapacity points, after which the oldest are overwritten. Pass
+     * {@link CircularPointBuffer#UNBOUNDED} to retain every point.
+     *
+     * @param initialCapacity Points the buffer holds before its first growth
+     * @param maxCapacity Points retained at most
+     * @throws IllegalArgumentException if maxCapacity is below initialCapacity
+     */
+    public LineGraph(int initialCapacity, int maxCapacity) {
+        this(new CircularPointBuffer(initialCapacity, maxCapacity));
+    }
+
+    /**
+     * Constructs a LineGraph drawing from the given heap buffer, as {@link #LineGraph(PointBuffer)} does. A
+     * CircularPointBuffer is also a collection of points; this overload takes it as the graph's storage
+     * rather than as initial data to copy.
+     *
+     * @param buffer Storage for the graph's own line
+     */
+    public LineGraph(CircularPointBuffer buffer) {
+        this((PointBuffer) buffer);
+    }
+
+    /**
+     * Constructs a LineGraph drawing from the given buffer, for example an {@link OffHeapPointBuffer} keeping a
+     * large history off the Java heap, a {@link MappedPointBuffer} reopened after a restart or a
+     * {@link CompactPointBuffer}. Points the buffer already holds are drawn and count towards the bounds.
+     * Inserts must go through the graph from then on, and the graph never closes the buffer.
+     * <p>
+     * Only a {@link CircularPointBuffer} keeps the window extrema, pyramid and sorted-x indexes, and only it can
+     * be resized. With any other buffer, cropped bounds are rescanned once per frame after points were
+     * overwritten, zoomed views draw and autoscale by scanning every point, and pyramid indexing has no effect
+     * on the graph's own line.
+     * </p>
+     *
+     * @param buffer Storage for the graph's own line
+     */
+    public LineGraph(PointBuffer buffer) {
         super();
-        dataBuffer = new CircularPointBuffer(100);
+        dataBuffer = Objects.requireNonNull(buffer);
+        if (buffer instanceof CircularPointBuffer circular) {
+            indexedBuffer = circular;
+            indexedBuffer.setWindowExtremaTracking(false); // Follows cropData from here on
+        } else {
+            indexedBuffer = null;
+        }
         edgeThickness = 2.0f;
         edgeColor = Color.GREEN;
-
+        renderMode = RenderMode.EVERY_POINT;
+        dataSequence = buffer.size();
+        if (!buffer.isEmpty()) {
+            rescanDataExtrema();
+            xMinVal = dataExtrema.minX;
+            xMaxVal = dataExtrema.maxX;
+            yMinVal = dataExtrema.minY;
+            yMaxVal = dataExtrema.maxY;
+        }
     }
 
     /**
@@ -69,9 +185,34 @@ public final class LineGraph extends Graph {
         addAll(initialData);
     }
 
+    /**
+     * Constructs a LineGraph with a custom DrawConfig drawing from the given buffer, as
+     * {@link #LineGraph(PointBuffer)} does.
+     *
+     * @param config DrawConfig to configure axis ticks
+     * @param buffer Storage for the graph's own line
+     */
+    public LineGraph(DrawConfig config, PointBuffer buffer) {
+        this(buffer);
+        super.setDrawConfig(config);
+        this.edgeColor = config.getEdgeColor();
+        this.edgeThickness = config.getEdgeThickness();
+    }
+
+    /**
+     * Constructs a LineGraph with a custom DrawConfig drawing from the given heap buffer, taking it as storage
+     * as {@link #LineGraph(CircularPointBuffer)} does.
+     *
+     * @param config DrawConfig to configure axis ticks
+     * @param buffer Storage for the graph's own line
+     */
+    public LineGraph(DrawConfig config, CircularPointBuffer buffer) {
+        this(config, (PointBuffer) buffer);
+    }
+
     /**
      * Adds a dataset to the LineGraph from an Iterable of Point2D.Double objects.
-     * Each point's X and Y values are inserted into the internal CircularPointBuffer.
+     * Each point's X and Y values are inserted into the graph's buffer.
      *
      * @param dataIterable Iterable collection of Point2D.Double objects to be added
      * @return This LineGraph instance for method chaining
@@ -90,8 +231,259 @@ public final class LineGraph extends Graph {
      * @return This LineGraph instance for method chaining
      */
     public LineGraph insertData(Point2D.Double newData) {
-        double xData = newData.getX();
-        double yData = newData.getY();
+        return insertData(newData.getX(), newData.getY());
+    }
+
+    /**
+     * Adds data to be utilized by graph.
+     *
+     * @param xData Data to be stored for use by Graph
+     * @param yData Data to be stored for use by Graph
+     */
+    public LineGraph insertData(double xData, double yData) {
+        refreshScheduler.recordInserts(1);
+        PointHandoff ingest = ingestBuffer;
+        if (ingest != null) {
+            ingest.add(xData, yData);
+            return this;
+        }
+        dataBuffer.add(xData, yData);
+        ++dataSequence;
+        if (!cropGraphToData) {
+            widenBounds(xData, yData);
+            return this;
+        }
+        if (indexedBuffer == null) {
+            dataExtrema.accept(xData, yData);
+        }
+        syncBoundsToWindow();
+        return this;
+    }
+
+    /**
+     * Bulk insert of len samples from parallel primitive arrays. Allocation free; the samples are copied into
+     * the buffer in at most two arraycopy runs and the bounds are widened in a single pass.
+     *
+     * @param xs x values of the samples
+     * @param ys y values of the samples
+     * @param off Index of the first sample in xs and ys
+     * @param len Number of samples to insert
+     * @return This LineGraph instance for method chaining
+     * @throws IndexOutOfBoundsException if [off, off + len) is outside either array
+     */
+    public LineGraph insertData(double[] xs, double[] ys, int off, int len) {
+        refreshScheduler.recordInserts(len);
+        PointHandoff ingest = ingestBuffer;
+        if (ingest != null) {
+            Objects.checkFromIndexSize(off, len, xs.length);
+            Objects.checkFromIndexSize(off, len, ys.length);
+            for (int i = off; i < off + len; ++i) {
+                ingest.add(xs[i], ys[i]);
+            }
+            return this;
+        }
+        dataBuffer.addAll(xs, ys, off, len);
+        dataAppended(xs, ys, off, len);
+        return this;
+    }
+
+    /**
+     * Bulk insert of the remaining samples of two DoubleBuffer slices, advancing both positions. The number of
+     * samples inserted is the smaller of the two remaining counts.
+     *
+     * @param xs x values of the samples, read from the buffer's position
+     * @param ys y values of the samples, read from the buffer's position
+     * @return This LineGraph instance for method chaining
+     */
+    public LineGraph insertData(DoubleBuffer xs, DoubleBuffer ys) {
+        int len = Math.min(xs.remaining(), ys.remaining());
+        refreshScheduler.recordInserts(len);
+        PointHandoff ingest = ingestBuffer;
+        if (ingest != null) {
+            for (int i = 0; i < len; ++i) {
+                ingest.add(xs.get(), ys.get());
+            }
+            return this;
+        }
+        if (indexedBuffer == null) {
+            for (int i = 0; i < len; ++i) {
+                double xData = xs.get();
+                double yData = ys.get();
+                dataBuffer.add(xData, yData);
+                if (cropGraphToData) {
+                    dataExtrema.accept(xData, yData);
+                } else {
+                    widenBounds(xData, yData);
+                }
+            }
+        } else {
+            if (!cropGraphToData) {
+                int xPos = xs.position();
+                int yPos = ys.position();
+                for (int i = 0; i < len; ++i) {
+                    widenBounds(xs.get(xPos + i), ys.get(yPos + i));
+                }
+            }
+            indexedBuffer.addAll(xs, ys);
+        }
+        dataSequence += len;
+        if (cropGraphToData) {
+            syncBoundsToWindow();
+        }
+        return this;
+    }
+
+    /**
+     * Counts a batch just appended to the graph's own buffer and updates the bounds.
+     */
+    private void dataAppended(double[] xs, double[] ys, int off, int len) {
+        dataSequence += len;
+        if (!cropGraphToData) {
+            widenBounds(xs, ys, off, len);
+            return;
+        }
+        if (indexedBuffer == null) {
+            for (int i = off; i < off + len; ++i) {
+                dataExtrema.accept(xs[i], ys[i]);
+            }
+        }
+        syncBoundsToWindow();
+    }
+
+    /**
+     * Adds a named series drawn over the graph's own line in the same paint pass, sharing its axes, bounds
+     * and ticks. The series buffer has the same capacity and growth limit as the graph's.
+     *
+     * @param name Name unique among the graph's series
+     * @param color Line color of the series
+     * @return The new series, to insert its points into
+     * @throws IllegalArgumentException if a series with that name already exists
+     */
+    public Series addSeries(String name, Color color) {
+        return addSeries(name, color, dataBuffer.getCapacity(), getMaxDataBufferCapacity());
+    }
+
+    /**
+     * Adds a named series with its own buffer capacity. The series starts with the graph's edge thickness,
+     * crop and pyramid settings; later changes to the crop and pyramid settings apply to every series.
+     *
+     * @param name Name unique among the graph's series
+     * @param color Line color of the series
+     * @param initialCapacity Points the series buffer holds before its first growth
+     * @param maxCapacity Points retained at most
+     * @return The new series, to insert its points into
+     * @throws IllegalArgumentException if a series with that name already exists, or maxCapacity is below
+     *                                  initialCapacity
+     */
+    public Series addSeries(String name, Color color, int initialCapacity, int maxCapacity) {
+        if (getSeries(name) != null) {
+            throw new IllegalArgumentException("Series " + name + " already exists");
+        }
+        CircularPointBuffer buffer = new CircularPointBuffer(initialCapacity, maxCapacity);
+        buffer.setWindowExtremaTracking(cropGraphToData);
+        buffer.setPyramidIndexing(isPyramidIndexing());
+        Series series = new Series(this, name, color, edgeThickness, buffer);
+        extraSeries.add(series);
+        repaint();
+        return series;
+    }
+
+    /**
+     * Looks up a series by name.
+     *
+     * @param name Name the series was added with
+     * @return The series, or null if the graph has none by that name
+     */
+    public Series getSeries(String name) {
+        for (Series series : extraSeries) {
+            if (series.getName().equals(name)) {
+                return series;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes a series from the graph. While cropped, the bounds shrink to the remaining points.
+     *
+     * @param name Name the series was added with
+     * @return True if the graph had a series by that name
+     */
+    public boolean removeSeries(String name) {
+        Series series = getSeries(name);
+        if (series == null) {
+            return false;
+        }
+        series.attached = false;
+        extraSeries.remove(series);
+        if (cropGraphToData) {
+            syncBoundsToWindow();
+        }
+        repaint();
+        return true;
+    }
+
+    /**
+     * Getter for the number of series added to the graph, not counting its own line.
+     *
+     * @return Number of series
+     */
+    public int getSeriesCount() {
+        return extraSeries.size();
+    }
+
+    /**
+     * Appends a point to a series and updates the shared bounds.
+     */
+    void seriesInserted(Series series, double xData, double yData) {
+        refreshScheduler.recordInserts(1);
+        series.buffer.add(xData, yData);
+        if (series.buffer.isTrackingWindowExtrema()) {
+            syncBoundsToWindow();
+        } else {
+            widenBounds(xData, yData);
+        }
+    }
+
+    /**
+     * Appends a batch of points to a series and updates the shared bounds.
+     */
+    void seriesInserted(Series series, double[] xs, double[] ys, int off, int len) {
+        refreshScheduler.recordInserts(len);
+        series.buffer.addAll(xs, ys, off, len);
+        if (series.buffer.isTrackingWindowExtrema()) {
+            syncBoundsToWindow();
+        } else {
+            widenBounds(xs, ys, off, len);
+        }
+    }
+
+    /**
+     * Widens the bounds to include a batch of samples. NaN never widens a bound.
+     */
+    private void widenBounds(double[] xs, double[] ys, int off, int len) {
+        double minX = xMinVal;
+        double maxX = xMaxVal;
+        double minY = yMinVal;
+        double maxY = yMaxVal;
+        for (int i = off; i < off + len; ++i) {
+            double xData = xs[i];
+            double yData = ys[i];
+            minX = xData < minX ? xData : minX;
+            maxX = xData > maxX ? xData : maxX;
+            minY = yData < minY ? yData : minY;
+            maxY = yData > maxY ? yData : maxY;
+        }
+        xMinVal = minX;
+        xMaxVal = maxX;
+        yMinVal = minY;
+        yMaxVal = maxY;
+    }
+
+    /**
+     * Widens the bounds to include a single sample. NaN never widens a bound.
+     */
+    private void widenBounds(double xData, double yData) {
         if (yData > yMaxVal) {
             yMaxVal = yData;
         }
@@ -104,18 +496,173 @@ public final class LineGraph extends Graph {
         if (xData < xMinVal) {
             xMinVal = xData;
         }
-        dataBuffer.add(newData);
+    }
+
+    /**
+     * Copies the extrema of the points currently buffered into the graph bounds, so bounds shrink as old
+     * points are overwritten. A buffer without window extrema contributes its last scan, widened by the
+     * points appended since.
+     */
+    private void syncBoundsToWindow() {
+        if (indexedBuffer != null) {
+            xMinVal = indexedBuffer.getWindowMinX();
+            xMaxVal = indexedBuffer.getWindowMaxX();
+            yMinVal = indexedBuffer.getWindowMinY();
+            yMaxVal = indexedBuffer.getWindowMaxY();
+        } else {
+            xMinVal = dataExtrema.minX;
+            xMaxVal = dataExtrema.maxX;
+            yMinVal = dataExtrema.minY;
+            yMaxVal = dataExtrema.maxY;
+        }
+        for (Series series : extraSeries) {
+            CircularPointBuffer buffer = series.buffer;
+            xMinVal = Math.min(xMinVal, buffer.getWindowMinX());
+            xMaxVal = Math.max(xMaxVal, buffer.getWindowMaxX());
+            yMinVal = Math.min(yMinVal, buffer.getWindowMinY());
+            yMaxVal = Math.max(yMaxVal, buffer.getWindowMaxY());
+        }
+    }
+
+    /**
+     * Switches insertData into lock-free hand-off mode. Samples are appended by a single producer thread to an
+     * {@link SpscPointBuffer} and are moved into the graph by the painting thread at the start of each paint,
+     * so the painter always iterates a buffer no other thread is writing. Exactly one thread may call
+     * insertData while this mode is enabled.
+     *
+     * @param ringCapacity Samples the hand-off ring holds between two paints before the oldest are dropped.
+     * @return Instance of class for chain setting
+     */
+    public LineGraph enableConcurrentIngest(int ringCapacity) {
+        refreshScheduler.setSharedTally(false);
+        return enableIngest(new SpscPointBuffer(ringCapacity));
+    }
+
+    /**
+     * Switches insertData into lock-free hand-off mode for any number of producer threads. Each thread that
+     * inserts gets its own ring of laneCapacity samples in an {@link MpscPointBuffer}, so producers never
+     * wait on each other or on the painter. At the start of each paint the painting thread merges the rings
+     * by x into the graph; the buffer it then paints is a consistent snapshot that no producer can touch
+     * until the next paint.
+     *
+     * @param laneCapacity Samples each producer thread can insert between two paints before its oldest are
+     *                     dropped.
+     * @return Instance of class for chain setting
+     */
+    public LineGraph enableMultiProducerIngest(int laneCapacity) {
+        refreshScheduler.setSharedTally(true);
+        return enableIngest(new MpscPointBuffer(laneCapacity));
+    }
+
+    private LineGraph enableIngest(PointHandoff ingest) {
+        int scratchLength = Math.min(ingest.getCapacity(), 4096);
+        ingestScratchX = new double[scratchLength];
+        ingestScratchY = new double[scratchLength];
+        ingestBuffer = ingest;
         return this;
     }
 
     /**
-     * Adds data to be utilized by graph.
+     * Returns insertData to direct, single-threaded mode. Samples still waiting in the hand-off rings are
+     * moved into the graph first. Must be called on the painting thread once the producers have stopped.
      *
-     * @param xData Data to be stored for use by Graph
-     * @param yData Data to be stored for use by Graph
+     * @return Instance of class for chain setting
      */
-    public LineGraph insertData(double xData, double yData) {
-        return this.insertData(new Point2D.Double(xData, yData));
+    public LineGraph disableConcurrentIngest() {
+        drainIngestBuffer();
+        ingestBuffer = null;
+        ingestScratchX = null;
+        ingestScratchY = null;
+        refreshScheduler.setSharedTally(false);
+        return this;
+    }
+
+    /**
+     * Number of samples dropped because a producer lapped its hand-off ring between two paints. Painting
+     * thread only, since the rings' counters are only read safely by the thread that drains them.
+     *
+     * @return Lost sample count, or 0 when concurrent ingest is disabled.
+     */
+    public long getLostIngestCount() {
+        PointHandoff ingest = ingestBuffer;
+        return ingest == null ? 0L : ingest.getLostCount();
+    }
+
+    /**
+     * Drains the hand-off ring into the data buffer on the painting thread, then fits the y bounds to the
+     * visible x window when zoomed and cropped.
+     */
+    @Override
+    protected void refreshGraphData() {
+        drainIngestBuffer();
+        if (cropGraphToData && indexedBuffer == null && dataSequence - dataBuffer.size() != scannedDrops) {
+            rescanDataExtrema(); // Overwritten points may have held an extremum
+            syncBoundsToWindow();
+        }
+        if (xWindowed && cropGraphToData) {
+            fitYBoundsToXWindow();
+        }
+    }
+
+    /**
+     * Narrows the y bounds to the points inside the x window, so a cropped, zoomed graph autoscales its
+     * y-axis every frame. The range queries are O(log n) with pyramid indexing and scan only the visible
+     * points otherwise; a buffer without indexes is scanned in full. Unsorted x in any series leaves the
+     * bounds covering every point.
+     */
+    private void fitYBoundsToXWindow() {
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = -1; i < extraSeries.size(); ++i) {
+            PointBuffer buffer = i < 0 ? dataBuffer : extraSeries.get(i).buffer;
+            if (buffer instanceof CircularPointBuffer circular) {
+                if (!circular.isMonotonicX()) {
+                    return;
+                }
+                int from = circular.lowerBound(xWindowMin);
+                int to = circular.upperBound(xWindowMax);
+                if (from < to) {
+                    minY = Math.min(minY, circular.rangeMinY(from, to));
+                    maxY = Math.max(maxY, circular.rangeMaxY(from, to));
+                }
+            } else {
+                windowScanner.begin(xWindowMin, xWindowMax);
+                buffer.forEach(windowScanner);
+                minY = Math.min(minY, windowScanner.minY);
+                maxY = Math.max(maxY, windowScanner.maxY);
+            }
+        }
+        if (minY <= maxY) {
+            yMinVal = minY;
+            yMaxVal = maxY;
+        }
+    }
+
+    /**
+     * Moves every sample waiting in the hand-off ring into the data buffer.
+     */
+    private void drainIngestBuffer() {
+        PointHandoff ingest = ingestBuffer;
+        if (ingest == null) {
+            return;
+        }
+        // Bounded to one ring's worth so a fast producer cannot keep the painter draining forever
+        int budget = ingest.getCapacity();
+        int count;
+        while (budget > 0 && (count = ingest.poll(ingestScratchX, ingestScratchY)) > 0) {
+            dataBuffer.addAll(ingestScratchX, ingestScratchY, 0, count);
+            dataAppended(ingestScratchX, ingestScratchY, 0, count);
+            budget -= count;
+        }
+    }
+
+    /**
+     * Scans every point of a buffer without window extrema for the extrema the cropped bounds follow.
+     */
+    private void rescanDataExtrema() {
+        dataExtrema.begin(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        dataBuffer.forEach(dataExtrema);
+        scannedDrops = dataSequence - dataBuffer.size();
     }
 
     /**
@@ -127,6 +674,73 @@ public final class LineGraph extends Graph {
         return dataBuffer.size();
     }
 
+    /**
+     * Getter for the maximum number of points retained before the oldest are overwritten.
+     *
+     * @return Capacity of the underlying buffer
+     */
+    public int getDataBufferCapacity() {
+        return dataBuffer.getCapacity();
+    }
+
+    /**
+     * Getter for the number of points the buffer may grow to before the oldest are overwritten. Buffers other
+     * than {@link CircularPointBuffer} never grow.
+     *
+     * @return Maximum capacity of the underlying buffer
+     */
+    public int getMaxDataBufferCapacity() {
+        return indexedBuffer != null ? indexedBuffer.getMaxCapacity() : dataBuffer.getCapacity();
+    }
+
+    /**
+     * Resizes the underlying buffer, keeping the oldest points that fit. A fixed buffer stays fixed at the new
+     * capacity.
+     *
+     * @param capacity New capacity of the underlying buffer
+     * @return Instance of class for chain setting
+     * @throws UnsupportedOperationException if the graph draws from a buffer other than a CircularPointBuffer
+     */
+    public LineGraph setDataBufferCapacity(int capacity) {
+        requireIndexedBuffer().setCapacity(capacity);
+        dataBufferRearranged();
+        return this;
+    }
+
+    /**
+     * Lets the underlying buffer double its capacity whenever it fills, up to maxCapacity points, instead of
+     * overwriting the oldest. Setting it to the current capacity makes the buffer fixed.
+     *
+     * @param maxCapacity Points retained at most, or {@link CircularPointBuffer#UNBOUNDED}
+     * @return Instance of class for chain setting
+     * @throws IllegalArgumentException if maxCapacity is below the current capacity
+     * @throws UnsupportedOperationException if the graph draws from a buffer other than a CircularPointBuffer
+     */
+    public LineGraph setMaxDataBufferCapacity(int maxCapacity) {
+        requireIndexedBuffer().setMaxCapacity(maxCapacity);
+        return this;
+    }
+
+    /**
+     * Discards state derived from the buffer layout after points were dropped other than by overwriting.
+     */
+    private void dataBufferRearranged() {
+        if (dataLayer != null) {
+            dataLayer.valid = false;
+        }
+        if (cropGraphToData) {
+            syncBoundsToWindow();
+        }
+        repaint();
+    }
+
+    private CircularPointBuffer requireIndexedBuffer() {
+        if (indexedBuffer == null) {
+            throw new UnsupportedOperationException(dataBuffer.getClass().getSimpleName() + " cannot be resized");
+        }
+        return indexedBuffer;
+    }
+
     /**
      * Sets the X-axis tick values using an array of integers.
      * <p>
@@ -195,17 +809,137 @@ public final class LineGraph extends Graph {
         return this;
     }
 
+    /**
+     * Selects how the buffered data is turned into line segments when painting.
+     *
+     * @param renderMode RenderMode applied on the next repaint
+     * @return Instance of class for chain setting
+     */
+    public LineGraph setRenderMode(RenderMode renderMode) {
+        this.renderMode = renderMode;
+        repaint();
+        return this;
+    }
+
+    /**
+     * Maintains a multi-resolution min/max pyramid over the buffered points. With it, MIN_MAX_DECIMATION
+     * rendering of x-sorted data reads one summary per block of points instead of every point, so zoomed-out
+     * views of very large buffers cost O(panel width). Adds O(1) amortized work per insert and about one byte
+     * of memory per buffered point. Only applies to series when the graph draws from a buffer other than a
+     * CircularPointBuffer.
+     *
+     * @param pyramidIndexing True to maintain the pyramid.
+     * @return Instance of class for chain setting
+     */
+    public LineGraph setPyramidIndexing(boolean pyramidIndexing) {
+        if (indexedBuffer != null) {
+            indexedBuffer.setPyramidIndexing(pyramidIndexing);
+        }
+        for (Series series : extraSeries) {
+            series.buffer.setPyramidIndexing(pyramidIndexing);
+        }
+        repaint();
+        return this;
+    }
+
+    /**
+     * Checks whether the multi-resolution pyramid is maintained.
+     *
+     * @return True if {@link #setPyramidIndexing(boolean)} is enabled.
+     */
+    public boolean isPyramidIndexing() {
+        return indexedBuffer != null && indexedBuffer.isPyramidIndexing();
+    }
+
+    /**
+     * Enables incremental rendering for append-only streams. The rendered data is kept in an offscreen layer;
+     * each paint scrolls the layer by the x-advance of the axis and only rasterizes the newly appended
+     * segments, so per-frame cost follows the number of new points instead of the buffer size. Any change
+     * that invalidates the existing pixels (resize, y rescale, style change, non-monotonic x) falls back to
+     * a full redraw of the layer.
+     *
+     * @param scrollingRender True to render incrementally.
+     * @return Instance of class for chain setting
+     */
+    public LineGraph setScrollingRender(boolean scrollingRender) {
+        this.scrollingRender = scrollingRender;
+        if (!scrollingRender) {
+            dataLayer = null;
+        }
+        repaint();
+        return this;
+    }
+
+    /**
+     * Lets the graph repaint itself at up to the given frame rate whenever data was inserted since the last
+     * frame, so callers no longer need to call repaint() after inserting. Any number of inserts between two
+     * frames is coalesced into a single repaint. Frame statistics are available from
+     * {@link #getRefreshScheduler()}.
+     *
+     * @param framesPerSecond Maximum repaints per second, or 0 to leave repainting to the caller.
+     * @return Instance of class for chain setting
+     * @throws IllegalArgumentException if framesPerSecond is negative
+     */
+    public LineGraph setMaxFramesPerSecond(int framesPerSecond) {
+        refreshScheduler.setMaxFramesPerSecond(framesPerSecond);
+        return this;
+    }
+
+    /**
+     * Starts the refresh timer, if configured, once the graph becomes displayable.
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refreshScheduler.start();
+    }
+
+    /**
+     * Stops the refresh timer when the graph stops being displayable so it cannot outlive its window.
+     */
+    @Override
+    public void removeNotify() {
+        refreshScheduler.stop();
+        super.removeNotify();
+    }
+
+    /**
+     * Zooms back out and, while cropped, restores the y bounds to every buffered point.
+     *
+     * @return Instance of class for chain setting.
+     */
+    @Override
+    public LineGraph clearXWindow() {
+        if (cropGraphToData) {
+            syncBoundsToWindow();
+        }
+        super.clearXWindow();
+        return this;
+    }
+
     /**
      * Override function for graph cropping. Updates argCropToData setting
-     * and refreshes tick scaling based on current data bounds.
+     * and refreshes tick scaling based on current data bounds. While cropped, the bounds follow the
+     * points currently held in the buffer, shrinking as old points are overwritten.
      *
      * @param argCropToData True if only relevant graph space is shown.
      * @return Instance of class for chain setting.
      */
     @Override
     public LineGraph cropData(boolean argCropToData) {
-        System.out.println("Called cropData in linegraph");
         cropGraphToData = argCropToData;
+        if (indexedBuffer != null) {
+            indexedBuffer.setWindowExtremaTracking(argCropToData);
+        }
+        for (Series series : extraSeries) {
+            series.buffer.setWindowExtremaTracking(argCropToData);
+        }
+        if (argCropToData) {
+            if (indexedBuffer == null) {
+                rescanDataExtrema();
+            }
+            syncBoundsToWindow();
+        }
         updateTickParameters();
         return this;
     }
@@ -214,45 +948,524 @@ public final class LineGraph extends Graph {
      * Renders the graph-specific data for a LineGraph.
      * <p>
      * This method draws lines connecting each sequential pair of (x, y) points
-     * from the internal CircularPointBuffer. It uses the configured line color
-     * and line thickness for rendering.
+     * from the graph's buffer. It uses the configured line color
+     * and line thickness for rendering. Added series are then drawn over it in the order they were added,
+     * each in full every frame; only the graph's own line is rendered incrementally by scrolling render.
      * </p>
      *
      * @param g2 Graphics2D context already set up with antialiasing
      */
     @Override
     protected void paintGraphData(Graphics2D g2) {
-        if (dataBuffer.isEmpty()) {
+        refreshScheduler.framePainted();
+        if (scrollingRender) {
+            paintScrolling(g2);
+        } else if (!dataBuffer.isEmpty()) {
+            drawData(g2);
+        }
+        for (Series series : extraSeries) {
+            if (!series.buffer.isEmpty()) {
+                series.downsampler = drawSeries(g2, series.buffer, series.getColor(), series.getStroke(),
+                        series.downsampler);
+            }
+        }
+    }
+
+    /**
+     * Draws every series straight into g2 for an offscreen render. Unlike {@link #paintGraphData(Graphics2D)}
+     * it neither counts as a frame nor touches the scrolling layer or the incremental LTTB state, all of which
+     * belong to the on-screen paint and would be reset by a render at another size.
+     *
+     * @param g2 Graphics2D context already set up with antialiasing
+     */
+    @Override
+    protected void paintHeadlessGraphData(Graphics2D g2) {
+        if (!dataBuffer.isEmpty()) {
+            drawSeries(g2, dataBuffer, edgeColor, getEdgeStroke(), null);
+        }
+        for (Series series : extraSeries) {
+            if (!series.buffer.isEmpty()) {
+                drawSeries(g2, series.buffer, series.getColor(), series.getStroke(), null);
+            }
+        }
+    }
+
+    /**
+     * Draws the visible buffered points with the configured stroke, color and render mode. The visible range
+     * is transformed into the pooled vertex arrays in one tight loop and submitted as a single polyline.
+     * <p>
+     * While zoomed into an x window over x-sorted data, the visible range is located by binary search and
+     * widened by one point on each side so the line still runs to the edges of the plot area; everything
+     * else is never visited. The line is clipped to the plot area horizontally.
+     * </p>
+     *
+     * @param g2 Graphics2D context already set up with antialiasing
+     */
+    private void drawData(Graphics2D g2) {
+        downsampler = drawSeries(g2, dataBuffer, edgeColor, getEdgeStroke(), downsampler);
+    }
+
+    /**
+     * Draws the visible points of one buffer as {@link #drawData(Graphics2D)} does, with the given style.
+     * The pooled vertex arrays are shared by every series since they are drawn one after another.
+     *
+     * @param downsampler Incremental LTTB state of the buffer from the previous frame, or null
+     * @return LTTB state to keep for the next frame
+     */
+    private LttbDownsampler drawSeries(Graphics2D g2, PointBuffer buffer, Color color, BasicStroke stroke,
+                                       LttbDownsampler downsampler) {
+        int from = 0;
+        int to = buffer.size();
+        Shape clip = null;
+        if (xWindowed) {
+            if (buffer instanceof CircularPointBuffer circular && circular.isMonotonicX()) {
+                from = Math.max(0, circular.lowerBound(xWindowMin) - 1);
+                to = Math.min(to, circular.upperBound(xWindowMax) + 1);
+            }
+            clip = g2.getClip();
+            int marginSize = getMarginSize();
+            g2.clipRect(marginSize, 0, getWidth() - 2 * marginSize, getHeight());
+        }
+        g2.setStroke(stroke);
+        g2.setColor(color);
+        if (renderMode == RenderMode.MIN_MAX_DECIMATION) {
+            collectDecimatedVertices(buffer, from, to);
+        } else if (renderMode == RenderMode.LARGEST_TRIANGLE_THREE_BUCKETS) {
+            downsampler = collectDownsampledVertices(buffer, from, to, downsampler);
+        } else {
+            collectVertices(buffer, from, to);
+        }
+        g2.drawPolyline(vertexX, vertexY, vertexCount);
+        if (xWindowed) {
+            g2.setClip(clip);
+        }
+        return downsampler;
+    }
+
+    /**
+     * Transforms the buffered points in [from, to) to screen space.
+     */
+    private void collectVertices(PointBuffer buffer, int from, int to) {
+        ensureVertexCapacity(to - from);
+        vertexProjector.begin(getXOrigin(), getYOrigin(), getXPixelsDelta(), getYPixelsDelta(),
+                getMarginSize(), Double.NEGATIVE_INFINITY);
+        buffer.forEachRange(from, to, vertexProjector);
+    }
+
+    /**
+     * Reduces the points in [from, to) to about one per plot column with LTTB and transforms them to screen
+     * space. The whole of a CircularPointBuffer is reduced incrementally, so only points appended since the
+     * previous frame are revisited; a culled range or another buffer is reduced in a single pass.
+     *
+     * @return Incremental LTTB state for the whole buffer, created or replaced when the threshold changed
+     */
+    private LttbDownsampler collectDownsampledVertices(PointBuffer buffer, int from, int to,
+                                                      LttbDownsampler downsampler) {
+        int threshold = Math.max(3, getWidth() - 2 * getMarginSize());
+        if (downsampledX.length < threshold) {
+            downsampledX = new double[threshold];
+            downsampledY = new double[threshold];
+        }
+        int count;
+        if (from == 0 && to == buffer.size() && buffer instanceof CircularPointBuffer circular) {
+            if (downsampler == null || downsampler.getThreshold() != threshold) {
+                downsampler = new LttbDownsampler(circular, threshold);
+            }
+            count = downsampler.downsample(downsampledX, downsampledY);
+        } else {
+            count = LttbDownsampler.downsample(buffer, from, to, threshold, downsampledX, downsampledY);
+        }
+        ensureVertexCapacity(count);
+        double xDelta = getXPixelsDelta();
+        double yDelta = getYPixelsDelta();
+        int marginSize = getMarginSize();
+        double xOrigin = getXOrigin();
+        double yOrigin = getYOrigin();
+        int height = getHeight();
+        for (int i = 0; i < count; ++i) {
+            vertexX[i] = (int) (marginSize + ((downsampledX[i] - xOrigin) * xDelta));
+            vertexY[i] = (int) (height - (marginSize + ((downsampledY[i] - yOrigin) * yDelta)));
+        }
+        vertexCount = count;
+        return downsampler;
+    }
+
+    /**
+     * Grows the pooled vertex arrays geometrically so they fit at least the given number of vertices.
+     */
+    private void ensureVertexCapacity(int required) {
+        if (vertexX.length < required) {
+            int length = Math.max(required, vertexX.length + (vertexX.length >> 1));
+            vertexX = new int[length];
+            vertexY = new int[length];
+        }
+    }
+
+    /**
+     * Stroke for the data line, rebuilt only when the edge thickness changes.
+     */
+    private BasicStroke getEdgeStroke() {
+        if (edgeStroke == null || edgeStroke.getLineWidth() != edgeThickness) {
+            edgeStroke = new BasicStroke(edgeThickness);
+        }
+        return edgeStroke;
+    }
+
+    /**
+     * Brings the offscreen data layer up to date, incrementally when possible, and blits it.
+     *
+     * @param g2 Graphics2D context of the panel
+     */
+    private void paintScrolling(Graphics2D g2) {
+        if (dataLayer == null) {
+            dataLayer = new DataLayer();
+        }
+        DataLayer layer = dataLayer;
+        layer.ensureSize(getWidth(), getHeight());
+        Graphics2D layerG2 = layer.createGraphics();
+        try {
+            if (!scrollIncrementally(layer, layerG2)) {
+                ++layerRedrawCount;
+                layer.clear(layerG2);
+                if (!dataBuffer.isEmpty()) {
+                    drawData(layerG2);
+                }
+                layer.xOrigin = getXOrigin();
+                layer.yOrigin = getYOrigin();
+                layer.xDelta = getXPixelsDelta();
+                layer.yDelta = getYPixelsDelta();
+                layer.margin = getMarginSize();
+                dataLayerColor = edgeColor;
+                dataLayerThickness = edgeThickness;
+                dataLayerRenderMode = renderMode;
+                layer.monotonicX = indexedBuffer != null && indexedBuffer.isMonotonicX();
+                layer.valid = true;
+            }
+        } finally {
+            layerG2.dispose();
+        }
+        layer.sequence = dataSequence;
+        layer.size = dataBuffer.size();
+        if (layer.size > 0) {
+            layer.lastX = dataBuffer.getX(layer.size - 1);
+        }
+        layer.blit(g2);
+    }
+
+    /**
+     * Attempts to update the layer by scrolling it and drawing only the points appended since the last paint.
+     *
+     * @return False if the existing layer pixels cannot be reused and a full redraw is required.
+     */
+    private boolean scrollIncrementally(DataLayer layer, Graphics2D layerG2) {
+        if (!layer.valid || xWindowed || renderMode == RenderMode.LARGEST_TRIANGLE_THREE_BUCKETS
+                || dataLayerColor != edgeColor || dataLayerThickness != edgeThickness
+                || dataLayerRenderMode != renderMode || layer.margin != getMarginSize()) {
+            return false;
+        }
+        int size = dataBuffer.size();
+        long appended = dataSequence - layer.sequence;
+        if (appended >= size || layer.size == 0) {
+            return false;
+        }
+        int newCount = (int) appended;
+        boolean evicted = layer.size + newCount != size;
+        if (evicted && (!cropGraphToData || !layer.monotonicX)) {
+            return false; // Evicted segments are only known to sit left of the plot area when cropped and sorted
+        }
+
+        double xOrigin = getXOrigin();
+        double yOrigin = getYOrigin();
+        double xDelta = getXPixelsDelta();
+        double yDelta = getYPixelsDelta();
+        // Pixels the existing content would be off by at the far edge if reused with the layer's mapping
+        double xDrift = Math.abs(xDelta - layer.xDelta) * Math.max(0.0, xMaxVal - xOrigin);
+        double yDrift = Math.abs(yDelta - layer.yDelta) * Math.max(0.0, yMaxVal - yOrigin)
+                + Math.abs(yOrigin - layer.yOrigin) * yDelta;
+        if (xDrift >= 0.5 || yDrift >= 0.5) {
+            return false;
+        }
+
+        int shift = (int) ((xOrigin - layer.xOrigin) * layer.xDelta);
+        if (shift < 0) {
+            return false;
+        }
+        double shiftedXOrigin = shift > 0 ? layer.xOrigin + shift / layer.xDelta : layer.xOrigin;
+
+        // Project the last drawn point and the appended ones with the layer's mapping. Appended x values must
+        // not step backwards, otherwise old segments would need erasing
+        ensureVertexCapacity(newCount + 1);
+        VertexProjector projector = vertexProjector;
+        projector.begin(shiftedXOrigin, layer.yOrigin, layer.xDelta, layer.yDelta, layer.margin, layer.lastX);
+        dataBuffer.forEachRange(size - newCount - 1, size, projector);
+        if (projector.isStepBack()) {
+            return false;
+        }
+
+        if (shift > 0) {
+            layer.scrollLeft(layerG2, shift);
+            layer.xOrigin = shiftedXOrigin;
+        }
+        if (evicted) {
+            layer.clearColumns(layerG2, 0, layer.margin); // Evicted points now map left of the plot area
+        }
+
+        layerG2.setStroke(getEdgeStroke());
+        layerG2.setColor(edgeColor);
+        layerG2.drawPolyline(vertexX, vertexY, newCount + 1);
+        return true;
+    }
+
+    /**
+     * M4 decimation: points are bucketed by the pixel column they land in, and only the first, minimum,
+     * maximum and last vertex of each column are connected. The resulting polyline covers exactly the same
+     * pixels as connecting every point, while the number of vertices is bounded by the panel width. Never
+     * emits more vertices than there are points in [from, to).
+     * <p>
+     * With pyramid indexing over x-sorted data, the coarsest pyramid level whose blocks still span at most
+     * one pixel column feeds the columns with block summaries instead of raw points, so the work done is
+     * proportional to the panel width rather than the number of points.
+     * </p>
+     */
+    private void collectDecimatedVertices(PointBuffer buffer, int from, int to) {
+        ColumnDecimator decimator = columnDecimator;
+        decimator.begin();
+        int level = pyramidLevel(buffer, to - from);
+        if (level >= 0) {
+            ((CircularPointBuffer) buffer).forEachSummarized(from, to, level, decimator);
+        } else {
+            buffer.forEachRange(from, to, decimator);
+        }
+        decimator.finish();
+    }
+
+    /**
+     * Coarsest pyramid level whose blocks span no more than one pixel column when count points are spread
+     * over the plot width.
+     *
+     * @return Pyramid level, or -1 when the pyramid is unavailable or would not skip any points.
+     */
+    private int pyramidLevel(PointBuffer buffer, int count) {
+        if (!(buffer instanceof CircularPointBuffer circular) || !circular.isPyramidIndexing()
+                || !circular.isMonotonicX()) {
+            return -1;
+        }
+        int plotWidth = Math.max(1, getWidth() - 2 * getMarginSize());
+        int blocksPerColumn = count / plotWidth / CircularPointBuffer.PYRAMID_BASE_BLOCK;
+        return blocksPerColumn == 0 ? -1 : 31 - Integer.numberOfLeadingZeros(blocksPerColumn);
+    }
+
+    /**
+     * Emits the M4 vertices of a single pixel column in the order they were encountered.
+     * Screen y grows downward, so minY is the visually highest vertex.
+     */
+    private void flushColumn(int column, int firstY, int minY, int maxY, int lastY, boolean minBeforeMax) {
+        emitVertex(column, firstY);
+        if (minBeforeMax) {
+            emitVertex(column, minY);
+            emitVertex(column, maxY);
+        } else {
+            emitVertex(column, maxY);
+            emitVertex(column, minY);
+        }
+        emitVertex(column, lastY);
+    }
+
+    /**
+     * Appends (x, y) to the vertex arrays unless it repeats the previous vertex.
+     */
+    private void emitVertex(int x, int y) {
+        int count = vertexCount;
+        if (count > 0 && vertexX[count - 1] == x && vertexY[count - 1] == y) {
             return;
         }
+        if (count == vertexX.length) {
+            int length = Math.max(16, count + (count >> 1));
+            vertexX = Arrays.copyOf(vertexX, length);
+            vertexY = Arrays.copyOf(vertexY, length);
+        }
+        vertexX[count] = x;
+        vertexY[count] = y;
+        vertexCount = count + 1;
+    }
 
-        g2.setStroke(new BasicStroke(edgeThickness));
-        g2.setColor(edgeColor);
+    /**
+     * Transforms points in data space to screen space straight into the pooled vertex arrays, noting whether
+     * x ever steps backwards. Lets buffer visitors feed the polyline without a Point2D per point.
+     */
+    private final class VertexProjector implements DoubleBiConsumer {
+        private double xOrigin;
+        private double yOrigin;
+        private double xDelta;
+        private double yDelta;
+        private int marginSize;
+        private int height;
+        private double previousX;
+        @Getter
+        private boolean stepBack;
 
-        boolean postStart = false;
-        int prevX = 0;
-        int prevY = 0;
-        double xDelta = drawConfig.getXPixelsDelta();
-        double yDelta = drawConfig.getYPixelsDelta();
-        int marginSize = drawConfig.getMarginSize();
+        /**
+         * Captures a data-to-pixel mapping and empties the vertex arrays, which must already be large enough
+         * for every point that will be accepted.
+         *
+         * @param previousX x of the point drawn before the first one accepted, used to detect x stepping back.
+         */
+        void begin(double xOrigin, double yOrigin, double xDelta, double yDelta, int marginSize, double previousX) {
+            this.xOrigin = xOrigin;
+            this.yOrigin = yOrigin;
+            this.xDelta = xDelta;
+            this.yDelta = yDelta;
+            this.marginSize = marginSize;
+            this.height = getHeight();
+            this.previousX = previousX;
+            stepBack = false;
+            vertexCount = 0;
+        }
 
-        for (Point2D.Double point : dataBuffer) {
-            int x;
-            int y;
-            if (cropGraphToData) {
-                x = (int) (marginSize + ((point.getX() - xMinVal) * xDelta));
-                y = (int) (getHeight() - (marginSize + ((point.getY() - yMinVal) * yDelta)));
-            } else {
-                x = (int) (marginSize + (point.getX() * xDelta));
-                y = (int) (getHeight() - (marginSize + (point.getY() * yDelta)));
+        @Override
+        public void accept(double xVal, double yVal) {
+            if (xVal < previousX) {
+                stepBack = true;
             }
-            if (postStart) {
-                g2.drawLine(prevX, prevY, x, y);
-            } else {
-                postStart = true;
+            previousX = xVal;
+            int count = vertexCount;
+            vertexX[count] = (int) (marginSize + ((xVal - xOrigin) * xDelta));
+            vertexY[count] = (int) (height - (marginSize + ((yVal - yOrigin) * yDelta)));
+            vertexCount = count + 1;
+        }
+    }
+
+    /**
+     * Accumulates points in data space into M4 pixel columns, emitting the column vertices into the pooled
+     * vertex arrays as each column closes. Fed either raw points or pyramid block summaries.
+     */
+    private final class ColumnDecimator implements DoubleBiConsumer {
+        private double xDelta;
+        private double yDelta;
+        private double xOrigin;
+        private double yOrigin;
+        private int marginSize;
+        private int height;
+
+        private boolean columnOpen;
+        private int column;
+        private int firstY;
+        private int minY;
+        private int maxY;
+        private int lastY;
+        private int columnCount;
+        private int minAt;
+        private int maxAt;
+
+        /**
+         * Captures the current data-to-pixel mapping and empties the vertex arrays.
+         */
+        void begin() {
+            xDelta = getXPixelsDelta();
+            yDelta = getYPixelsDelta();
+            marginSize = getMarginSize();
+            xOrigin = getXOrigin();
+            yOrigin = getYOrigin();
+            height = getHeight();
+            vertexCount = 0;
+            columnOpen = false;
+        }
+
+        @Override
+        public void accept(double xVal, double yVal) {
+            int x = (int) (marginSize + ((xVal - xOrigin) * xDelta));
+            int y = (int) (height - (marginSize + ((yVal - yOrigin) * yDelta)));
+            if (columnOpen && x == column) {
+                ++columnCount;
+                if (y < minY) {
+                    minY = y;
+                    minAt = columnCount;
+                } else if (y > maxY) {
+                    maxY = y;
+                    maxAt = columnCount;
+                }
+                lastY = y;
+                return;
+            }
+            if (columnOpen) {
+                flushColumn(column, firstY, minY, maxY, lastY, minAt <= maxAt);
+            }
+            columnOpen = true;
+            column = x;
+            firstY = y;
+            minY = y;
+            maxY = y;
+            lastY = y;
+            columnCount = 0;
+            minAt = 0;
+            maxAt = 0;
+        }
+
+        /**
+         * Emits the column still open.
+         */
+        void finish() {
+            if (columnOpen) {
+                flushColumn(column, firstY, minY, maxY, lastY, minAt <= maxAt);
+                columnOpen = false;
             }
-            prevX = x;
-            prevY = y;
         }
     }
+
+    /**
+     * Extrema of the points it is fed whose x falls inside a window, for buffers that keep no window extrema
+     * or range indexes of their own. NaN never widens an extremum.
+     */
+    private static final class ExtremaScanner implements DoubleBiConsumer {
+        private double xLow = Double.NEGATIVE_INFINITY;
+        private double xHigh = Double.POSITIVE_INFINITY;
+        private double minX = Double.POSITIVE_INFINITY;
+        private double maxX = Double.NEGATIVE_INFINITY;
+        private double minY = Double.POSITIVE_INFINITY;
+        private double maxY = Double.NEGATIVE_INFINITY;
+
+        /**
+         * Forgets the extrema and only accepts points with x in [xLow, xHigh] from here on.
+         */
+        void begin(double xLow, double xHigh) {
+            this.xLow = xLow;
+            this.xHigh = xHigh;
+            minX = Double.POSITIVE_INFINITY;
+            maxX = Double.NEGATIVE_INFINITY;
+            minY = Double.POSITIVE_INFINITY;
+            maxY = Double.NEGATIVE_INFINITY;
+        }
+
+        @Override
+        public void accept(double xVal, double yVal) {
+            if (xVal < xLow || xVal > xHigh) {
+                return;
+            }
+            minX = xVal < minX ? xVal : minX;
+            maxX = xVal > maxX ? xVal : maxX;
+            minY = yVal < minY ? yVal : minY;
+            maxY = yVal > maxY ? yVal : maxY;
+        }
+    }
+
+    /**
+     * Strategies for turning buffered points into line segments.
+     */
+    public enum RenderMode {
+        /**
+         * Connects every consecutive pair of points. Cost grows with buffer size.
+         */
+        EVERY_POINT,
+        /**
+         * Keeps only the first, minimum, maximum and last point per pixel column (M4).
+         * Cost of drawing grows with panel width rather than buffer size.
+         */
+        MIN_MAX_DECIMATION,
+        /**
+         * Keeps about one shape-preserving point per pixel column, chosen by Largest-Triangle-Three-Buckets.
+         * Fewer vertices than MIN_MAX_DECIMATION at the cost of dropping some spikes. Always redraws the full
+         * line, even with scrolling render enabled.
+         */
+        LARGEST_TRIANGLE_THREE_BUCKETS,
+    }
 }
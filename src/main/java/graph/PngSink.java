@@ -0,0 +1,21 @@
+package graph;
+
+import java.io.IOException;
+
+/**
+ * Receives the encoded images of a batch render. Called concurrently from the rendering threads.
+ */
+@FunctionalInterface
+public interface PngSink {
+
+    /**
+     * Consumes one encoded chart. The array is reused by the calling thread once this returns, so the bytes
+     * must be written or copied before returning.
+     *
+     * @param job Job the image was rendered for.
+     * @param png Buffer holding the PNG file in its first length bytes.
+     * @param length Number of valid bytes.
+     * @throws IOException if the image cannot be stored; the job is counted as failed.
+     */
+    void accept(RenderJob job, byte[] png, int length) throws IOException;
+}
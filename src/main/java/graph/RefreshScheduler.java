@@ -0,0 +1,134 @@
+package graph;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import javax.swing.JComponent;
+import javax.swing.Timer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timer-driven repaint coalescing for graphs fed at high frequency. Inserts only bump a counter; a Swing
+ * timer running at the configured frame rate repaints the component when that counter has moved since the
+ * previous tick, so any number of inserts between two frames cost a single repaint.
+ * <p>
+ * Inserts may be recorded from any thread. Everything else runs on the event dispatch thread.
+ * </p>
+ */
+public final class RefreshScheduler {
+    private final JComponent component;
+    private final AtomicInteger insertTally; // Written with release stores, or atomic adds when shared
+    private volatile boolean sharedTally;
+    @Getter(AccessLevel.PACKAGE) private Timer timer; // Null while stopped
+    private int tallyAtLastTick;
+    private int tallyAtLastFrame;
+    private boolean repaintPending;
+
+    @Getter private int maxFramesPerSecond;
+    @Getter private int lastFrameInsertCount;
+    @Getter private long frameCount;
+    @Getter private long droppedFrameCount;
+
+    /**
+     * Parameterized constructor. The scheduler starts stopped.
+     *
+     * @param component Component to repaint.
+     */
+    RefreshScheduler(JComponent component) {
+        this.component = component;
+        this.insertTally = new AtomicInteger();
+    }
+
+    /**
+     * Records inserted samples and marks the component dirty. Safe to call from the inserting thread at any
+     * rate: it is a single release store with no lock and no event posted, or a single atomic add once
+     * {@link #setSharedTally(boolean)} allows several inserting threads.
+     *
+     * @param count Number of samples inserted.
+     */
+    void recordInserts(int count) {
+        if (sharedTally) {
+            insertTally.getAndAdd(count);
+        } else {
+            insertTally.setRelease(insertTally.getPlain() + count);
+        }
+    }
+
+    /**
+     * Selects whether inserts may be recorded by several threads at once. A plain store is cheaper but loses
+     * counts when two threads record concurrently.
+     *
+     * @param sharedTally True if more than one thread may insert.
+     */
+    void setSharedTally(boolean sharedTally) {
+        this.sharedTally = sharedTally;
+    }
+
+    /**
+     * Starts, restarts or stops the refresh timer.
+     *
+     * @param framesPerSecond Maximum repaints per second, or 0 to stop repainting automatically.
+     * @throws IllegalArgumentException if framesPerSecond is negative.
+     */
+    void setMaxFramesPerSecond(int framesPerSecond) {
+        if (framesPerSecond < 0) {
+            throw new IllegalArgumentException("Frame rate " + framesPerSecond + " must not be negative");
+        }
+        maxFramesPerSecond = framesPerSecond;
+        stop();
+        if (framesPerSecond > 0 && component.isDisplayable()) {
+            start();
+        }
+    }
+
+    /**
+     * Starts the timer if a frame rate is configured. Called when the component becomes displayable.
+     */
+    void start() {
+        if (maxFramesPerSecond == 0 || timer != null) {
+            return;
+        }
+        timer = new Timer(Math.max(1, 1000 / maxFramesPerSecond), e -> tick());
+        timer.setCoalesce(true);
+        timer.start();
+    }
+
+    /**
+     * Stops the timer. Called when the component stops being displayable so no timer outlives it.
+     */
+    void stop() {
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+    }
+
+    /**
+     * Records that a frame was painted. Paints triggered by anything other than the timer count as frames too.
+     */
+    void framePainted() {
+        int tally = insertTally.getAcquire();
+        lastFrameInsertCount = tally - tallyAtLastFrame;
+        tallyAtLastFrame = tally;
+        repaintPending = false;
+        ++frameCount;
+    }
+
+    /**
+     * Timer callback: requests a repaint if anything was inserted since the previous tick. A tick that finds
+     * its previous request still unpainted counts as a dropped frame, since the paint queue is not keeping up.
+     */
+    void tick() {
+        int tally = insertTally.getAcquire();
+        if (tally == tallyAtLastTick) {
+            return;
+        }
+        tallyAtLastTick = tally;
+        if (repaintPending) {
+            ++droppedFrameCount;
+            return;
+        }
+        repaintPending = true;
+        component.repaint();
+    }
+}
@@ -0,0 +1,37 @@
+package graph;
+
+import lombok.Getter;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * One chart of a batch: a name for the output, the size to render at, and a factory that builds the graph
+ * on the worker thread that renders it, so jobs never share a Graph.
+ */
+@Getter
+public final class RenderJob {
+    private final String name;
+    private final int width;
+    private final int height;
+    private final Supplier<? extends Graph> graphFactory;
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param name Name handed to the sink together with the encoded image.
+     * @param width Width in pixels.
+     * @param height Height in pixels.
+     * @param graphFactory Builds the graph to render. Called once, on the rendering thread.
+     * @throws IllegalArgumentException if width or height is not positive.
+     */
+    public RenderJob(String name, int width, int height, Supplier<? extends Graph> graphFactory) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size " + width + "x" + height + " must be positive");
+        }
+        this.name = Objects.requireNonNull(name);
+        this.width = width;
+        this.height = height;
+        this.graphFactory = Objects.requireNonNull(graphFactory);
+    }
+}
@@ -0,0 +1,83 @@
+package graph;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Outcome of a batch render: how many charts were produced, how fast, and how long each one took from graph
+ * construction until the sink returned.
+ */
+@Getter
+public final class RenderStats {
+    private final int chartCount;
+    private final int failureCount;
+    private final List<String> failedJobs;
+    private final Throwable firstFailure; // Null when every job succeeded
+    private final long bytesWritten;
+    private final long wallNanos;
+    private final int threadCount;
+    private final long meanLatencyNanos;
+    private final long medianLatencyNanos;
+    private final long p99LatencyNanos;
+    private final long maxLatencyNanos;
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param latencies Latency of every successful chart in nanoseconds. Sorted in place.
+     * @param failedJobs Names of the jobs that failed.
+     * @param firstFailure Exception of the first job that failed, or null.
+     * @param bytesWritten Total size of the images handed to the sink.
+     * @param wallNanos Elapsed time of the whole batch.
+     * @param threadCount Number of threads that rendered.
+     */
+    RenderStats(long[] latencies, List<String> failedJobs, Throwable firstFailure, long bytesWritten, long wallNanos,
+                int threadCount) {
+        Arrays.sort(latencies);
+        this.chartCount = latencies.length;
+        this.failureCount = failedJobs.size();
+        this.failedJobs = List.copyOf(failedJobs);
+        this.firstFailure = firstFailure;
+        this.bytesWritten = bytesWritten;
+        this.wallNanos = wallNanos;
+        this.threadCount = threadCount;
+        long sum = 0;
+        for (long latency : latencies) {
+            sum += latency;
+        }
+        this.meanLatencyNanos = chartCount == 0 ? 0 : sum / chartCount;
+        this.medianLatencyNanos = percentile(latencies, 0.50);
+        this.p99LatencyNanos = percentile(latencies, 0.99);
+        this.maxLatencyNanos = chartCount == 0 ? 0 : latencies[chartCount - 1];
+    }
+
+    /**
+     * Charts completed per second of wall time.
+     *
+     * @return Throughput.
+     */
+    public double getChartsPerSecond() {
+        return wallNanos == 0 ? 0.0 : chartCount * 1e9 / wallNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d charts (%d failed) in %.1f ms on %d threads: %.1f charts/s, latency mean %.2f ms, "
+                        + "p50 %.2f ms, p99 %.2f ms, max %.2f ms, %d bytes",
+                chartCount, failureCount, wallNanos / 1e6, threadCount, getChartsPerSecond(), meanLatencyNanos / 1e6,
+                medianLatencyNanos / 1e6, p99LatencyNanos / 1e6, maxLatencyNanos / 1e6, bytesWritten);
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values.
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
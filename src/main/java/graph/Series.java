@@ -0,0 +1,122 @@
+package graph;
+
+import lombok.Getter;
+import util.CircularPointBuffer;
+import util.LttbDownsampler;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.util.Objects;
+
+/**
+ * A named line drawn by a {@link LineGraph} on top of its own data, with its own buffer, color and stroke.
+ * Every series shares the graph's axes, bounds, margins and ticks, which are computed once per frame for all
+ * of them, and is drawn in the same paint pass.
+ * <p>
+ * Series are created with {@link LineGraph#addSeries(String, Color)}. Inserts update the graph bounds
+ * directly, so like a LineGraph without concurrent ingest they must happen on the painting thread or while
+ * the graph is not being painted.
+ * </p>
+ */
+public final class Series {
+    @Getter private final String name;
+    @Getter private Color color;
+    @Getter private float thickness;
+
+    final CircularPointBuffer buffer;
+    LttbDownsampler downsampler; // Incremental LTTB state for whole-buffer downsampling
+    boolean attached = true;
+    private final LineGraph owner;
+    private BasicStroke stroke;
+
+    /**
+     * Parameterized constructor. Only called by {@link LineGraph}.
+     */
+    Series(LineGraph owner, String name, Color color, float thickness, CircularPointBuffer buffer) {
+        this.owner = owner;
+        this.name = Objects.requireNonNull(name);
+        this.color = Objects.requireNonNull(color);
+        this.thickness = thickness;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Adds a point to this series and widens the shared bounds.
+     *
+     * @param xData x value of the point
+     * @param yData y value of the point
+     * @return This series for method chaining
+     * @throws IllegalStateException if the series was removed from its graph
+     */
+    public Series insertData(double xData, double yData) {
+        requireAttached();
+        owner.seriesInserted(this, xData, yData);
+        return this;
+    }
+
+    /**
+     * Bulk insert of len points from parallel primitive arrays.
+     *
+     * @param xs x values of the points
+     * @param ys y values of the points
+     * @param off Index of the first point in xs and ys
+     * @param len Number of points to insert
+     * @return This series for method chaining
+     * @throws IndexOutOfBoundsException if [off, off + len) is outside either array
+     * @throws IllegalStateException if the series was removed from its graph
+     */
+    public Series insertData(double[] xs, double[] ys, int off, int len) {
+        requireAttached();
+        owner.seriesInserted(this, xs, ys, off, len);
+        return this;
+    }
+
+    /**
+     * Number of points currently held by this series.
+     *
+     * @return Size of the series buffer
+     */
+    public int getSize() {
+        return buffer.size();
+    }
+
+    /**
+     * Sets the color of this series' line.
+     *
+     * @param color Line color
+     * @return This series for method chaining
+     */
+    public Series setColor(Color color) {
+        this.color = Objects.requireNonNull(color);
+        owner.repaint();
+        return this;
+    }
+
+    /**
+     * Sets the thickness of this series' line.
+     *
+     * @param thickness Line thickness in pixels
+     * @return This series for method chaining
+     */
+    public Series setThickness(float thickness) {
+        this.thickness = thickness;
+        owner.repaint();
+        return this;
+    }
+
+    /**
+     * Stroke for the line, rebuilt only when the thickness changes.
+     */
+    BasicStroke getStroke() {
+        if (stroke == null || stroke.getLineWidth() != thickness) {
+            stroke = new BasicStroke(thickness);
+        }
+        return stroke;
+    }
+
+    private void requireAttached() {
+        if (!attached) {
+            throw new IllegalStateException("Series " + name + " was removed from its graph");
+        }
+    }
+}
@@ -3,16 +3,35 @@ package util;
 import lombok.Getter;
 
 import java.awt.geom.Point2D;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Predicate;
 
 /**
  * A fixed-size circular buffer that stores paired (x, y) coordinate values.
  * When full, the buffer overwrites the oldest elements in FIFO order.
  * Useful for graphing or time-series data where old data can be discarded as new data arrives.
  */
-public final class CircularPointBuffer implements Iterable<Point2D.Double>, Collection<Point2D.Double> {
+public final class CircularPointBuffer implements PointBuffer, Collection<Point2D.Double> {
+    /**
+     * Samples per block at the finest pyramid level. Blocks at level L hold PYRAMID_BASE_BLOCK &lt;&lt; L samples.
+     */
+    public static final int PYRAMID_BASE_BLOCK = PointPyramid.BASE_BLOCK;
+    /**
+     * Maximum capacity that leaves growth limited only by the largest array the VM can allocate.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE - 8;
+    /**
+     * Order consistent with the equality used by contains and remove: x, then y, as by Double.compare.
+     */
+    private static final Comparator<Point2D.Double> POINT_ORDER =
+            Comparator.<Point2D.Double>comparingDouble(Point2D.Double::getX).thenComparingDouble(Point2D.Double::getY);
+
     private double[] x;
     private double[] y;
     private int head; // first element index of container
@@ -21,6 +40,16 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
     private int size;
     @Getter
     private int capacity;
+    @Getter
+    private int maxCapacity; // Capacity grows geometrically up to this before the oldest pairs are overwritten
+    private MonotonicDeque xMinWindow; // Window extrema, null unless tracking is enabled
+    private MonotonicDeque xMaxWindow;
+    private MonotonicDeque yMinWindow;
+    private MonotonicDeque yMaxWindow;
+    private int descents; // Adjacent pairs whose x steps backwards or is NaN; zero means x is sorted
+    private long appended; // Pairs ever appended, so the oldest held pair has sequence appended - size
+    private int rearrangements; // Bumped whenever held pairs stop matching their append sequence
+    private PointPyramid pyramid; // Multi-resolution y summary, null unless indexing is enabled
 
     /**
      * Parameterized constructor.
@@ -28,48 +57,358 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
      * @param capacity The capacity of buffer at initialization
      */
     public CircularPointBuffer(int capacity) {
+        this(capacity, capacity);
+    }
+
+    /**
+     * Parameterized constructor for a growable buffer. Instead of overwriting, a full buffer doubles its
+     * capacity until it reaches maxCapacity, after which it overwrites its oldest pairs like a fixed ring.
+     *
+     * @param initialCapacity The capacity of buffer at initialization.
+     * @param maxCapacity Capacity at which growth stops; {@link #UNBOUNDED} to keep every pair.
+     * @throws IllegalArgumentException if maxCapacity is below initialCapacity or above {@link #UNBOUNDED}.
+     */
+    public CircularPointBuffer(int initialCapacity, int maxCapacity) {
         this.head = 0;
         this.cursor = 0;
         this.size = 0;
         this.iterCount = 0;
-        this.capacity = capacity;
-        this.x = new double[capacity];
-        this.y = new double[capacity];
+        this.capacity = initialCapacity;
+        this.x = new double[initialCapacity];
+        this.y = new double[initialCapacity];
+        setMaxCapacity(maxCapacity);
     }
 
     /**
-     * Updates the capacity of the buffer and accurately updates member variables in the process.
+     * Updates the capacity of the buffer and accurately updates member variables in the process. The oldest
+     * pairs are kept, moved with at most two System.arraycopy runs per column. A fixed ring stays fixed at the
+     * new capacity; a growable buffer keeps growing from it, raising its maximum if newCapacity exceeds it.
      *
      * @param newCapacity Capacity to be applied to buffer.
      * @return This class instance for chain methods.
      */
     public CircularPointBuffer setCapacity(int newCapacity) {
-        if (newCapacity != capacity) {
-            double[] tmpX = new double[newCapacity];
-            double[] tmpY = new double[newCapacity];
-            for (int i = 0; i < Math.min(size, newCapacity); ++i) {
-                int idx = (head + i) % capacity;
-                tmpX[i] = x[idx];
-                tmpY[i] = y[idx];
-            }
-            x = tmpX;
-            y = tmpY;
-            head = 0;
-            size = Math.min(size, newCapacity);
-            capacity = newCapacity;
+        if (maxCapacity == capacity || newCapacity > maxCapacity) {
+            maxCapacity = newCapacity;
+        }
+        resize(newCapacity);
+        return this;
+    }
+
+    /**
+     * Sets the capacity up to which a full buffer grows instead of overwriting its oldest pairs. Growth
+     * doubles the capacity, so appending stays O(1) amortized. Setting it to the current capacity makes the
+     * buffer a fixed ring.
+     *
+     * @param maxCapacity Capacity at which growth stops; {@link #UNBOUNDED} to keep every pair.
+     * @return This class instance for chain methods.
+     * @throws IllegalArgumentException if maxCapacity is below the current capacity or above {@link #UNBOUNDED}.
+     */
+    public CircularPointBuffer setMaxCapacity(int maxCapacity) {
+        if (maxCapacity < capacity || maxCapacity > UNBOUNDED) {
+            throw new IllegalArgumentException("Maximum capacity " + maxCapacity + " must be in [" + capacity
+                    + ", " + UNBOUNDED + "]");
         }
+        this.maxCapacity = maxCapacity;
         return this;
     }
 
+    /**
+     * Checks whether a full buffer will grow rather than overwrite its oldest pair.
+     *
+     * @return True while the capacity is below the maximum capacity.
+     */
+    public boolean isGrowable() {
+        return capacity < maxCapacity;
+    }
+
+    /**
+     * Enables or disables tracking of the minimum and maximum x and y of the points currently held. While
+     * enabled, every add, pop and overwrite keeps the extrema current in amortized O(1), so they shrink as old
+     * points are evicted instead of only ever widening. Enabling is O(size); disabling releases the tracking
+     * memory.
+     *
+     * @param tracking True to maintain window extrema.
+     * @return This class instance for chain methods.
+     */
+    public CircularPointBuffer setWindowExtremaTracking(boolean tracking) {
+        if (tracking == isTrackingWindowExtrema()) {
+            return this;
+        }
+        if (tracking) {
+            xMinWindow = new MonotonicDeque(capacity, false);
+            xMaxWindow = new MonotonicDeque(capacity, true);
+            yMinWindow = new MonotonicDeque(capacity, false);
+            yMaxWindow = new MonotonicDeque(capacity, true);
+            rebuildWindowExtrema();
+        } else {
+            xMinWindow = null;
+            xMaxWindow = null;
+            yMinWindow = null;
+            yMaxWindow = null;
+        }
+        return this;
+    }
+
+    /**
+     * Enables or disables a multi-resolution min/max index over the y values. While enabled, every level L
+     * summarizes blocks of {@link #PYRAMID_BASE_BLOCK} &lt;&lt; L consecutive samples by their first, minimum,
+     * maximum and last sample, kept current in O(1) amortized per add, so that
+     * {@link #forEachSummarized(int, int, int, DoubleBiConsumer)} can walk millions of samples in time
+     * proportional to the number of blocks. Enabling is O(capacity); the index takes about one byte per slot.
+     *
+     * @param indexing True to maintain the pyramid.
+     * @return This class instance for chain methods.
+     */
+    public CircularPointBuffer setPyramidIndexing(boolean indexing) {
+        if (indexing && pyramid == null) {
+            pyramid = new PointPyramid(capacity);
+            pyramid.rebuild(y);
+        } else if (!indexing) {
+            pyramid = null;
+        }
+        return this;
+    }
+
+    /**
+     * Checks whether the multi-resolution pyramid is being maintained.
+     *
+     * @return True if {@link #setPyramidIndexing(boolean)} is enabled.
+     */
+    public boolean isPyramidIndexing() {
+        return pyramid != null;
+    }
+
+    /**
+     * Visits the points at indices [from, to) in order, with every pyramid block of up to
+     * {@link #PYRAMID_BASE_BLOCK} &lt;&lt; level points that lies wholly in the range replaced by its first,
+     * minimum-y, maximum-y and last point. Points at the range edges, and in the blocks currently being
+     * overwritten, are visited individually. The visited sequence therefore keeps the range's endpoints and
+     * its y extrema at block resolution. Requires pyramid indexing.
+     *
+     * @param from First index of the range.
+     * @param to Index one past the end of the range.
+     * @param level Coarsest pyramid level to summarize with; negative visits every point.
+     * @param action Receives the visited points.
+     * @throws IndexOutOfBoundsException if [from, to) is outside [0, size).
+     * @throws IllegalStateException if pyramid indexing is disabled.
+     */
+    public void forEachSummarized(int from, int to, int level, DoubleBiConsumer action) {
+        Objects.checkFromToIndex(from, to, size);
+        if (pyramid == null) {
+            throw new IllegalStateException("Pyramid indexing is disabled");
+        }
+        if (from == to) {
+            return;
+        }
+        int frontier = slot(size == capacity ? 0 : size);
+        int start = slot(from);
+        int len = to - from;
+        int firstRun = Math.min(len, capacity - start);
+        int maxLevel = level < 0 ? -1 : level;
+        pyramid.forEach(start, start + firstRun, frontier, maxLevel, x, y, action);
+        if (len > firstRun) {
+            pyramid.forEach(0, len - firstRun, frontier, maxLevel, x, y, action);
+        }
+    }
+
+    /**
+     * Smallest y among the points at indices [fromIndex, toIndex). Answered from the pyramid in O(log n) when
+     * {@link #setPyramidIndexing(boolean)} is enabled, by scanning the range otherwise. NaN values are ignored.
+     *
+     * @param fromIndex First index of the range.
+     * @param toIndex Index one past the end of the range.
+     * @return Minimum y, or positive infinity if the range holds no non-NaN y.
+     * @throws IndexOutOfBoundsException if [fromIndex, toIndex) is outside [0, size).
+     */
+    public double rangeMinY(int fromIndex, int toIndex) {
+        return rangeExtremeY(fromIndex, toIndex, false);
+    }
+
+    /**
+     * Largest y among the points at indices [fromIndex, toIndex). Answered from the pyramid in O(log n) when
+     * {@link #setPyramidIndexing(boolean)} is enabled, by scanning the range otherwise. NaN values are ignored.
+     *
+     * @param fromIndex First index of the range.
+     * @param toIndex Index one past the end of the range.
+     * @return Maximum y, or negative infinity if the range holds no non-NaN y.
+     * @throws IndexOutOfBoundsException if [fromIndex, toIndex) is outside [0, size).
+     */
+    public double rangeMaxY(int fromIndex, int toIndex) {
+        return rangeExtremeY(fromIndex, toIndex, true);
+    }
+
+    private double rangeExtremeY(int fromIndex, int toIndex, boolean maximum) {
+        Objects.checkFromToIndex(fromIndex, toIndex, size);
+        double best = maximum ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        if (fromIndex == toIndex) {
+            return best;
+        }
+        int start = slot(fromIndex);
+        int len = toIndex - fromIndex;
+        int firstRun = Math.min(len, capacity - start);
+        if (pyramid != null) {
+            int frontier = slot(size == capacity ? 0 : size);
+            best = pyramid.extreme(start, start + firstRun, frontier, maximum, y, best);
+            return pyramid.extreme(0, len - firstRun, frontier, maximum, y, best);
+        }
+        for (int i = 0; i < len; ++i) {
+            double value = y[i < firstRun ? start + i : i - firstRun];
+            if (maximum ? value > best : value < best) {
+                best = value;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Checks whether window extrema are being maintained.
+     *
+     * @return True if {@link #setWindowExtremaTracking(boolean)} is enabled.
+     */
+    public boolean isTrackingWindowExtrema() {
+        return xMinWindow != null;
+    }
+
+    /**
+     * Smallest x currently held. Requires window extrema tracking.
+     *
+     * @return Minimum x, or positive infinity if no non-NaN x is held.
+     * @throws IllegalStateException if window extrema tracking is disabled.
+     */
+    public double getWindowMinX() {
+        requireWindowExtrema();
+        return xMinWindow.peek(x);
+    }
+
+    /**
+     * Largest x currently held. Requires window extrema tracking.
+     *
+     * @return Maximum x, or negative infinity if no non-NaN x is held.
+     * @throws IllegalStateException if window extrema tracking is disabled.
+     */
+    public double getWindowMaxX() {
+        requireWindowExtrema();
+        return xMaxWindow.peek(x);
+    }
+
+    /**
+     * Smallest y currently held. Requires window extrema tracking.
+     *
+     * @return Minimum y, or positive infinity if no non-NaN y is held.
+     * @throws IllegalStateException if window extrema tracking is disabled.
+     */
+    public double getWindowMinY() {
+        requireWindowExtrema();
+        return yMinWindow.peek(y);
+    }
+
+    /**
+     * Largest y currently held. Requires window extrema tracking.
+     *
+     * @return Maximum y, or negative infinity if no non-NaN y is held.
+     * @throws IllegalStateException if window extrema tracking is disabled.
+     */
+    public double getWindowMaxY() {
+        requireWindowExtrema();
+        return yMaxWindow.peek(y);
+    }
+
+    /**
+     * Checks whether x never decreases from one held point to the next. Kept current in O(1) per add, pop and
+     * overwrite, so it is free to query every frame. NaN x values break the ordering.
+     *
+     * @return True if the held points are sorted by non-decreasing x.
+     */
+    public boolean isMonotonicX() {
+        return descents == 0;
+    }
+
+    /**
+     * Index of the first held point whose x is at least xVal, found by binary search over the logical
+     * indices, so the wrap point of the ring costs nothing extra. Requires {@link #isMonotonicX()}.
+     *
+     * @param xVal x value to search for.
+     * @return Index in [0, size]; size if every x is smaller than xVal.
+     * @throws IllegalStateException if x is not monotonic.
+     */
+    public int lowerBound(double xVal) {
+        requireMonotonicX();
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (x[slot(mid)] < xVal) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Index of the first held point whose x is greater than xVal. Requires {@link #isMonotonicX()}.
+     *
+     * @param xVal x value to search for.
+     * @return Index in [0, size]; size if no x is greater than xVal.
+     * @throws IllegalStateException if x is not monotonic.
+     */
+    public int upperBound(double xVal) {
+        requireMonotonicX();
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (x[slot(mid)] <= xVal) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * x value at a logical index, without bounds checks or cursor movement.
+     */
+    double xAt(int index) {
+        return x[slot(index)];
+    }
+
+    /**
+     * y value at a logical index, without bounds checks or cursor movement.
+     */
+    double yAt(int index) {
+        return y[slot(index)];
+    }
+
+    /**
+     * Number of pairs ever appended, including ones already overwritten. The pair at logical index i was
+     * appended as number appendedCount() - size() + i, as long as {@link #rearrangeCount()} is unchanged.
+     */
+    long appendedCount() {
+        return appended;
+    }
+
+    /**
+     * Counter bumped by every operation other than appending and popping the oldest pair, after which held
+     * pairs no longer line up with their append sequence. Derived indexes use it to know when to rebuild.
+     */
+    int rearrangeCount() {
+        return rearrangements;
+    }
+
     /**
      * Moves cursor forward one step in buffer. If pre-cursor is at last valid index in buffer, post-cursor
      * will be pointing to head. This can be done infinitely without mutation.
      *
      * @return Instance of this class for method chaining.
      */
+    @Override
     public CircularPointBuffer advanceCursorWrapped() {
-        cursor = ++cursor % capacity;
-        iterCount = (capacity + cursor - head) % capacity;
+        cursor = cursor + 1 < capacity ? cursor + 1 : 0;
+        iterCount = cursor >= head ? cursor - head : capacity + cursor - head;
         return this;
     }
 
@@ -78,6 +417,7 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
      *
      * @return Instance of this class for method chaining.
      */
+    @Override
     public CircularPointBuffer resetCursor() {
         cursor = head;
         iterCount = 0;
@@ -90,6 +430,7 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
      *
      * @return True when next index is valid index. False otherwise.
      */
+    @Override
     public boolean hasNext() {
         return iterCount < size;
     }
@@ -99,6 +440,7 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
      *
      * @return x value cursor is pointing to.
      */
+    @Override
     public double cursorGetX() {
         return x[cursor];
     }
@@ -108,6 +450,7 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
      *
      * @return y value cursor is pointing to.
      */
+    @Override
     public double cursorGetY() {
         return y[cursor];
     }
@@ -118,11 +461,64 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
      * @param index The index to retrieve.
      * @return Point2D.Double representing the 2D data point at index in buffer.
      */
+    @Override
     public Point2D.Double get(int index) {
         setCursor(index);
         return new Point2D.Double(x[cursor], y[cursor]);
     }
 
+    /**
+     * Retrieves the x value at a given index without allocating. Does not modify cursor.
+     *
+     * @param index The index to read.
+     * @return x value at index.
+     * @throws IndexOutOfBoundsException if index is outside [0, size).
+     */
+    @Override
+    public double getX(int index) {
+        Objects.checkIndex(index, size);
+        return x[slot(index)];
+    }
+
+    /**
+     * Retrieves the y value at a given index without allocating. Does not modify cursor.
+     *
+     * @param index The index to read.
+     * @return y value at index.
+     * @throws IndexOutOfBoundsException if index is outside [0, size).
+     */
+    @Override
+    public double getY(int index) {
+        Objects.checkIndex(index, size);
+        return y[slot(index)];
+    }
+
+    /**
+     * Hands the pairs at indices [from, to) to action in order, straight from the coordinate arrays. The range
+     * is split at the physical end of the buffer into at most two contiguous runs, so the inner loops carry no
+     * wrap-around arithmetic. Does not modify cursor.
+     *
+     * @param from First index of the range.
+     * @param to Index one past the end of the range.
+     * @param action Receives the pairs.
+     * @throws IndexOutOfBoundsException if [from, to) is outside [0, size).
+     */
+    @Override
+    public void forEachRange(int from, int to, DoubleBiConsumer action) {
+        Objects.checkFromToIndex(from, to, size);
+        int start = slot(from);
+        int len = to - from;
+        int firstRun = Math.min(len, capacity - start);
+        final double[] xs = x;
+        final double[] ys = y;
+        for (int i = start; i < start + firstRun; ++i) {
+            action.accept(xs[i], ys[i]);
+        }
+        for (int i = 0; i < len - firstRun; ++i) {
+            action.accept(xs[i], ys[i]);
+        }
+    }
+
     /**
      * Sets the logical cursor to the given index in the buffer.
      * The index must be in the range [0, size). Cursor is mutated.
@@ -130,12 +526,13 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
      * @param index logical position relative to head (0 = head, 1 = head+1, etc.).
      * @throws IndexOutOfBoundsException if index is outside valid range.
      */
+    @Override
     public void setCursor(int index) {
         if (index < 0 || index >= size) {
             final String iOOBE = "Index " + index + " out of bounds for size " + size;
             throw new IndexOutOfBoundsException(iOOBE);
         }
-        cursor = (head + index) % capacity;
+        cursor = slot(index);
         iterCount = index;
     }
 
@@ -144,12 +541,15 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
      *
      * @return Point2D.Double containing [x, y] at the head, or null if buffer is empty.
      */
+    @Override
     public Point2D.Double pop() {
         if (size == 0) {
             return null;
         }
         Point2D.Double point = new Point2D.Double(x[head], y[head]);
-        head = (head + 1) % capacity;
+        evictWindowExtrema(head);
+        evictHeadDescent();
+        head = head + 1 < capacity ? head + 1 : 0;
         if (cursor == head) {
             cursor = head;
         }
@@ -170,7 +570,7 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
             final String iOOBE = "Offset " + offset + " out of bounds for size " + size;
             throw new IndexOutOfBoundsException(iOOBE);
         }
-        int peekIndex = (cursor + offset) % capacity;
+        int peekIndex = cursor + offset < capacity ? cursor + offset : cursor + offset - capacity;
         return new Point2D.Double(x[peekIndex], y[peekIndex]);
     }
 
@@ -197,7 +597,7 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
             return false;
         }
         for (int i = 0; i < size; ++i) {
-            int idx = (head + i) % capacity;
+            int idx = slot(i);
             if (Double.compare(x[idx], p.getX()) == 0 && Double.compare(y[idx], p.getY()) == 0) {
                 return true;
             }
@@ -213,6 +613,14 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
         head = 0;
         cursor = 0;
         size = 0;
+        descents = 0;
+        ++rearrangements;
+        if (isTrackingWindowExtrema()) {
+            xMinWindow.clear();
+            xMaxWindow.clear();
+            yMinWindow.clear();
+            yMaxWindow.clear();
+        }
     }
 
     /**
@@ -275,15 +683,155 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
         if (point == null) {
             return false;
         }
-        int index = (head + size) % capacity;
-        x[index] = point.getX();
-        y[index] = point.getY();
+        add(point.getX(), point.getY());
+        return true;
+    }
+
+    /**
+     * Inserts a coordinate pair into the buffer without allocating. When full, a growable buffer grows;
+     * otherwise the oldest pair is overwritten.
+     *
+     * @param xVal x value to store.
+     * @param yVal y value to store.
+     */
+    @Override
+    public void add(double xVal, double yVal) {
+        if (size == capacity && capacity < maxCapacity) {
+            grow(size + 1L);
+        }
+        int index = slot(size);
+        int kept = size;
+        if (size == capacity) {
+            evictWindowExtrema(index);
+            evictHeadDescent();
+            --kept;
+        }
+        if (kept > 0 && descends(x[index == 0 ? capacity - 1 : index - 1], xVal)) {
+            ++descents;
+        }
+        x[index] = xVal;
+        y[index] = yVal;
+        ++appended;
         if (size < capacity) {
             ++size;
         } else {
-            head = (head + 1) % capacity;
+            head = head + 1 < capacity ? head + 1 : 0;
+        }
+        offerWindowExtrema(index);
+        if (pyramid != null) {
+            pyramid.written(index, y);
+        }
+    }
+
+    /**
+     * Bulk insert of len coordinate pairs read from xs and ys starting at off. Equivalent to calling
+     * {@link #add(double, double)} for each pair in order, but the data is moved with at most two
+     * System.arraycopy runs per column, split where the ring wraps. A growable buffer first grows to fit the
+     * pairs as far as its maximum allows. If len still exceeds the capacity only the newest capacity pairs are
+     * copied, since the rest would be overwritten immediately.
+     *
+     * @param xs Source of x values.
+     * @param ys Source of y values.
+     * @param off Index of the first pair in xs and ys.
+     * @param len Number of pairs to insert.
+     * @return This class instance for chain methods.
+     * @throws IndexOutOfBoundsException if [off, off + len) is outside either array.
+     */
+    @Override
+    public CircularPointBuffer addAll(double[] xs, double[] ys, int off, int len) {
+        Objects.checkFromIndexSize(off, len, xs.length);
+        Objects.checkFromIndexSize(off, len, ys.length);
+        if (size + (long) len > capacity && capacity < maxCapacity) {
+            grow(size + (long) len);
+        }
+        appended += len;
+        if (len > capacity) {
+            off += len - capacity;
+            len = capacity;
+        }
+        int start = beginBulkWrite(len);
+        int firstRun = Math.min(len, capacity - start);
+        System.arraycopy(xs, off, x, start, firstRun);
+        System.arraycopy(ys, off, y, start, firstRun);
+        System.arraycopy(xs, off + firstRun, x, 0, len - firstRun);
+        System.arraycopy(ys, off + firstRun, y, 0, len - firstRun);
+        endBulkWrite(start, len);
+        return this;
+    }
+
+    /**
+     * Bulk insert of the remaining pairs of two DoubleBuffer slices, advancing both positions. The number of
+     * pairs inserted is the smaller of the two remaining counts. Heap and direct buffers are both copied in
+     * at most two bulk transfers per column.
+     *
+     * @param xs Source of x values, read from its position.
+     * @param ys Source of y values, read from its position.
+     * @return This class instance for chain methods.
+     */
+    public CircularPointBuffer addAll(DoubleBuffer xs, DoubleBuffer ys) {
+        int len = Math.min(xs.remaining(), ys.remaining());
+        if (size + (long) len > capacity && capacity < maxCapacity) {
+            grow(size + (long) len);
+        }
+        appended += len;
+        if (len > capacity) {
+            int skip = len - capacity;
+            xs.position(xs.position() + skip);
+            ys.position(ys.position() + skip);
+            len = capacity;
+        }
+        int start = beginBulkWrite(len);
+        int firstRun = Math.min(len, capacity - start);
+        xs.get(x, start, firstRun);
+        ys.get(y, start, firstRun);
+        xs.get(x, 0, len - firstRun);
+        ys.get(y, 0, len - firstRun);
+        endBulkWrite(start, len);
+        return this;
+    }
+
+    /**
+     * Evicts the pairs a bulk write of len elements is about to overwrite and returns the slot it starts at.
+     * Evicting before the copy keeps the window extrema from ever comparing against overwritten values.
+     */
+    private int beginBulkWrite(int len) {
+        int start = slot(size);
+        int overflow = Math.max(0, size + len - capacity);
+        for (int i = 0; i < overflow && xMinWindow != null; ++i) {
+            evictWindowExtrema(slot(i));
+        }
+        for (int i = 0; i < overflow && descents > 0; ++i) {
+            if (i + 1 < size && descends(x[slot(i)], x[slot(i + 1)])) {
+                --descents;
+            }
+        }
+        head = slot(overflow);
+        size -= overflow;
+        return start;
+    }
+
+    /**
+     * Publishes the len pairs copied at start to the size, x ordering and window extrema.
+     */
+    private void endBulkWrite(int start, int len) {
+        int first = size > 0 ? 0 : 1; // The oldest point has no predecessor to descend from
+        double previous = x[size > 0 ? (start == 0 ? capacity - 1 : start - 1) : start];
+        int steps = 0;
+        for (int i = first; i < len; ++i) {
+            int slot = start + i;
+            double current = x[slot < capacity ? slot : slot - capacity];
+            steps += descends(previous, current) ? 1 : 0;
+            previous = current;
+        }
+        descents += steps;
+        size += len;
+        if (pyramid != null) {
+            pyramid.written(start, len, y);
+        }
+        for (int i = 0; i < len && xMinWindow != null; ++i) {
+            int slot = start + i;
+            offerWindowExtrema(slot < capacity ? slot : slot - capacity);
         }
-        return true;
     }
 
     /**
@@ -303,7 +851,10 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
     }
 
     /**
-     * Searches buffer for given value after verification. Object o must be Point2D.Double.
+     * Removes the first pair equal to o, which must be a Point2D.Double. The pairs on the shorter side of the
+     * removed one are shifted in place; nothing is allocated. Finding the pair is a linear scan and removing it
+     * from the middle rebuilds the window extrema and pyramid, so each call is O(n); remove many pairs with
+     * {@link #removeIf(DoubleBiPredicate)} or {@link #removeRange(int, int)} instead.
      *
      * @param o element to be removed from this collection, if present.
      * @return True if found. False otherwise.
@@ -313,31 +864,136 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
         if (!(o instanceof Point2D.Double target)) {
             return false;
         }
-        boolean found = false;
-        double[] newX = new double[capacity];
-        double[] newY = new double[capacity];
-        int newSize = 0;
-
         for (int i = 0; i < size; ++i) {
-            int idx = (head + i) % capacity;
-            double currentX = x[idx];
-            double currentY = y[idx];
-            if (!found && GraphTools.matchesPoint(currentX, currentY, target)) {
-                found = true;
-                continue;
+            int idx = slot(i);
+            if (GraphTools.matchesPoint(x[idx], y[idx], target)) {
+                removeRange(i, i + 1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the pairs at indices [from, to), keeping the rest in order. Trimming from the oldest end costs
+     * the same as popping, and trimming the newest end costs O(to - from) plus whatever the window extrema have
+     * to re-admit; nothing moves in either case. Otherwise the pairs on the shorter side of the range are
+     * shifted in place and the window extrema and pyramid are rebuilt in O(n). Nothing is allocated. Cursor is
+     * reset to the oldest pair.
+     *
+     * @param from First index to remove.
+     * @param to Index one past the last to remove.
+     * @return This class instance for chain methods.
+     * @throws IndexOutOfBoundsException if [from, to) is outside [0, size).
+     */
+    public CircularPointBuffer removeRange(int from, int to) {
+        Objects.checkFromToIndex(from, to, size);
+        int count = to - from;
+        if (count == 0) {
+            return this;
+        }
+        if (from == 0) {
+            for (int i = 0; i < count; ++i) {
+                evictWindowExtrema(head);
+                evictHeadDescent();
+                head = head + 1 < capacity ? head + 1 : 0;
+                --size;
             }
-            newX[newSize] = currentX;
-            newY[newSize] = currentY;
-            newSize++;
-        }
-        if (found) {
-            x = newX;
-            y = newY;
-            head = 0;
-            size = newSize;
             cursor = head;
+            iterCount = 0;
+            return this;
+        }
+        descents -= countDescents(from - 1, Math.min(to, size - 1));
+        if (to == size) {
+            trimWindowExtrema(from);
+            size = from;
+            cursor = head;
+            iterCount = 0;
+            ++rearrangements;
+            // The pyramid needs nothing: no kept slot changed, and queries already treat the blocks holding
+            // the new write frontier as stale until appends complete them again
+            return this;
+        }
+        if (descends(x[slot(from - 1)], x[slot(to)])) {
+            ++descents;
+        }
+        if (from < size - to) {
+            for (int i = from - 1; i >= 0; --i) {
+                int src = slot(i);
+                int dst = slot(i + count);
+                x[dst] = x[src];
+                y[dst] = y[src];
+            }
+            head = slot(count);
+        } else {
+            for (int i = to; i < size; ++i) {
+                int src = slot(i);
+                int dst = slot(i - count);
+                x[dst] = x[src];
+                y[dst] = y[src];
+            }
+        }
+        size -= count;
+        afterCompaction();
+        return this;
+    }
+
+    /**
+     * Removes every pair the filter matches in a single in-place compaction pass, keeping the rest in order.
+     * Nothing is allocated. Cursor is reset to the oldest pair.
+     *
+     * @param filter Returns true for pairs to remove.
+     * @return True if any pair was removed.
+     */
+    public boolean removeIf(DoubleBiPredicate filter) {
+        Objects.requireNonNull(filter);
+        int kept = 0;
+        int tested = 0;
+        boolean removed = false;
+        try {
+            for (; tested < size; ++tested) {
+                int src = slot(tested);
+                double currentX = x[src];
+                double currentY = y[src];
+                if (!filter.test(currentX, currentY)) {
+                    int dst = slot(kept++);
+                    x[dst] = currentX;
+                    y[dst] = currentY;
+                }
+            }
+        } finally {
+            // If the filter threw, keep the pair it failed on and every untested pair behind the survivors
+            for (int i = tested; i < size; ++i) {
+                int src = slot(i);
+                int dst = slot(kept++);
+                x[dst] = x[src];
+                y[dst] = y[src];
+            }
+            if (kept < size) {
+                size = kept;
+                countDescents();
+                afterCompaction();
+                removed = true;
+            }
         }
-        return found;
+        return removed;
+    }
+
+    /**
+     * Removes every pair the filter matches, handing it one reused Point2D.Double. Runs
+     * {@link #removeIf(DoubleBiPredicate)}, so the filter must not keep the point.
+     *
+     * @param filter Returns true for pairs to remove.
+     * @return True if any pair was removed.
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Point2D.Double> filter) {
+        Objects.requireNonNull(filter);
+        Point2D.Double reusable = new Point2D.Double();
+        return removeIf((xVal, yVal) -> {
+            reusable.setLocation(xVal, yVal);
+            return filter.test(reusable);
+        });
     }
 
     @Override
@@ -348,14 +1004,237 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
         return true;
     }
 
+    /**
+     * Removes every pair equal to some Point2D.Double in c, in one compaction pass. The elements of c are
+     * sorted once so each pair is looked up by binary search; only that copy of c is allocated.
+     *
+     * @param c Points to remove. Elements other than Point2D.Double are ignored.
+     * @return True if any pair was removed.
+     */
     @Override
     public boolean removeAll(Collection<?> c) {
-        return false;
+        Point2D.Double[] targets = sortedPoints(c);
+        Point2D.Double probe = new Point2D.Double();
+        return removeIf((xVal, yVal) -> {
+            probe.setLocation(xVal, yVal);
+            return Arrays.binarySearch(targets, probe, POINT_ORDER) >= 0;
+        });
     }
 
+    /**
+     * Keeps only the pairs equal to some Point2D.Double in c, in one compaction pass. The elements of c are
+     * sorted once so each pair is looked up by binary search; only that copy of c is allocated.
+     *
+     * @param c Points to keep. Elements other than Point2D.Double are ignored.
+     * @return True if any pair was removed.
+     */
     @Override
     public boolean retainAll(Collection<?> c) {
-        return false;
+        Point2D.Double[] targets = sortedPoints(c);
+        Point2D.Double probe = new Point2D.Double();
+        return removeIf((xVal, yVal) -> {
+            probe.setLocation(xVal, yVal);
+            return Arrays.binarySearch(targets, probe, POINT_ORDER) < 0;
+        });
+    }
+
+    /**
+     * Copies the Point2D.Double elements of c and sorts them in {@link #POINT_ORDER}.
+     */
+    private static Point2D.Double[] sortedPoints(Collection<?> c) {
+        Point2D.Double[] points = new Point2D.Double[c.size()];
+        int count = 0;
+        for (Object o : c) {
+            if (o instanceof Point2D.Double p && count < points.length) {
+                points[count++] = new Point2D.Double(p.getX(), p.getY());
+            }
+        }
+        points = count == points.length ? points : Arrays.copyOf(points, count);
+        Arrays.sort(points, POINT_ORDER);
+        return points;
+    }
+
+    /**
+     * Restores the derived state after pairs were removed from anywhere but the oldest end. The descent count
+     * must already be correct.
+     */
+    private void afterCompaction() {
+        cursor = head;
+        iterCount = 0;
+        ++rearrangements;
+        rebuildWindowExtrema();
+        if (pyramid != null) {
+            pyramid.rebuild(y);
+        }
+    }
+
+    /**
+     * Admits a newly written slot into the window extrema, if tracked.
+     */
+    private void offerWindowExtrema(int slot) {
+        if (xMinWindow != null) {
+            xMinWindow.offer(slot, x);
+            xMaxWindow.offer(slot, x);
+            yMinWindow.offer(slot, y);
+            yMaxWindow.offer(slot, y);
+        }
+    }
+
+    /**
+     * Removes the head slot from the window extrema, if tracked. Must be called before the slot is reused.
+     */
+    private void evictWindowExtrema(int slot) {
+        if (xMinWindow != null) {
+            xMinWindow.evict(slot);
+            xMaxWindow.evict(slot);
+            yMinWindow.evict(slot);
+            yMaxWindow.evict(slot);
+        }
+    }
+
+    /**
+     * Drops the pairs at indices [from, size) from the window extrema. Each deque loses the removed slots at
+     * its back; the kept pairs after its new back were discarded by removed ones, so they are offered again.
+     */
+    private void trimWindowExtrema(int from) {
+        if (xMinWindow == null) {
+            return;
+        }
+        trimWindowExtrema(xMinWindow, x, from);
+        trimWindowExtrema(xMaxWindow, x, from);
+        trimWindowExtrema(yMinWindow, y, from);
+        trimWindowExtrema(yMaxWindow, y, from);
+    }
+
+    private void trimWindowExtrema(MonotonicDeque deque, double[] values, int from) {
+        int back = deque.peekBack();
+        while (back >= 0 && index(back) >= from) {
+            deque.removeBack();
+            back = deque.peekBack();
+        }
+        for (int i = back < 0 ? 0 : index(back) + 1; i < from; ++i) {
+            deque.offer(slot(i), values);
+        }
+    }
+
+    /**
+     * Recomputes window extrema from scratch after an operation that rearranged slots.
+     */
+    private void rebuildWindowExtrema() {
+        if (xMinWindow == null) {
+            return;
+        }
+        xMinWindow.reset(capacity);
+        xMaxWindow.reset(capacity);
+        yMinWindow.reset(capacity);
+        yMaxWindow.reset(capacity);
+        for (int i = 0; i < size; ++i) {
+            offerWindowExtrema(slot(i));
+        }
+    }
+
+    /**
+     * Removes the pair formed by the head and its successor from the descent count. Must be called before the
+     * head is popped or overwritten.
+     */
+    private void evictHeadDescent() {
+        if (size > 1 && descends(x[head], x[slot(1)])) {
+            --descents;
+        }
+    }
+
+    /**
+     * Recounts the descents from scratch after an operation that rearranged slots.
+     */
+    private void countDescents() {
+        descents = countDescents(0, size - 1);
+    }
+
+    /**
+     * Number of descents among the adjacent pairs (i, i + 1) with i in [from, to).
+     */
+    private int countDescents(int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; ++i) {
+            if (descends(x[slot(i)], x[slot(i + 1)])) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether next breaks non-decreasing order after previous. Comparisons involving NaN count as breaks.
+     */
+    private static boolean descends(double previous, double next) {
+        return !(next >= previous);
+    }
+
+    /**
+     * Grows the capacity geometrically so that at least required pairs fit, without exceeding the maximum.
+     */
+    private void grow(long required) {
+        resize((int) Math.min(maxCapacity, Math.max(required, 2L * capacity)));
+    }
+
+    /**
+     * Reallocates both columns at newCapacity, keeping the oldest pairs in order starting at slot 0, and
+     * rebuilds the derived indexes.
+     */
+    private void resize(int newCapacity) {
+        if (newCapacity == capacity) {
+            return;
+        }
+        double[] tmpX = new double[newCapacity];
+        double[] tmpY = new double[newCapacity];
+        int kept = Math.min(size, newCapacity);
+        int firstRun = Math.min(kept, capacity - head);
+        System.arraycopy(x, head, tmpX, 0, firstRun);
+        System.arraycopy(y, head, tmpY, 0, firstRun);
+        System.arraycopy(x, 0, tmpX, firstRun, kept - firstRun);
+        System.arraycopy(y, 0, tmpY, firstRun, kept - firstRun);
+        x = tmpX;
+        y = tmpY;
+        head = 0;
+        cursor = 0;
+        iterCount = 0;
+        size = kept;
+        capacity = newCapacity;
+        ++rearrangements;
+        rebuildWindowExtrema();
+        countDescents();
+        if (pyramid != null) {
+            pyramid = new PointPyramid(capacity);
+            pyramid.rebuild(y);
+        }
+    }
+
+    /**
+     * Logical index of a physical slot holding a pair.
+     */
+    private int index(int slot) {
+        int index = slot - head;
+        return index >= 0 ? index : index + capacity;
+    }
+
+    /**
+     * Physical slot of a logical index in [0, capacity).
+     */
+    private int slot(int index) {
+        int slot = head + index;
+        return slot < capacity ? slot : slot - capacity;
+    }
+
+    private void requireMonotonicX() {
+        if (descents != 0) {
+            throw new IllegalStateException("Buffered x values are not monotonic");
+        }
+    }
+
+    private void requireWindowExtrema() {
+        if (xMinWindow == null) {
+            throw new IllegalStateException("Window extrema tracking is disabled");
+        }
     }
 
     @Override
@@ -376,7 +1255,7 @@ public final class CircularPointBuffer implements Iterable<Point2D.Double>, Coll
                     throw new NoSuchElementException();
                 }
                 reusable.setLocation(x[iteratorCursor], y[iteratorCursor]);
-                iteratorCursor = (iteratorCursor + 1) % capacity;
+                iteratorCursor = iteratorCursor + 1 < capacity ? iteratorCursor + 1 : 0;
                 ++iteratorIndex;
                 return reusable;
             }
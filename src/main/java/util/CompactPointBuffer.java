@@ -0,0 +1,338 @@
+package util;
+
+import lombok.Getter;
+
+import java.awt.geom.Point2D;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A {@link PointBuffer} that trades precision for memory. y is always stored as a float, and x according to
+ * the chosen {@link Encoding}:
+ * <ul>
+ *     <li>{@link Encoding#FLOAT32}: x as a float, 8 bytes per pair.</li>
+ *     <li>{@link Encoding#IMPLICIT_X}: x is not stored; pairs must be evenly spaced by a fixed step, 4 bytes
+ *     per pair.</li>
+ *     <li>{@link Encoding#DELTA_OF_DELTA_X}: x is rounded to a whole number of ticks and stored as the change
+ *     in its delta from the previous pair, 8 bytes per pair plus 16 bytes per {@link #BLOCK} pairs. Unlike
+ *     FLOAT32, timestamps keep their full range and tick resolution.</li>
+ * </ul>
+ * Everything else, including the overwrite order, the reused iterator point and the cursor, behaves like
+ * {@link CircularPointBuffer}. Hand it to {@link graph.LineGraph#LineGraph(PointBuffer)} to chart from it;
+ * the graph then reads it sequentially, so DELTA_OF_DELTA_X never seeks from a checkpoint per point drawn.
+ */
+public final class CompactPointBuffer implements PointBuffer {
+    /**
+     * Pairs between delta-of-delta checkpoints. Random access decodes at most this many deltas.
+     */
+    public static final int BLOCK = 64;
+    private static final int BLOCK_SHIFT = 6;
+
+    /**
+     * Storage encoding of the x column.
+     */
+    public enum Encoding {
+        FLOAT32,
+        IMPLICIT_X,
+        DELTA_OF_DELTA_X
+    }
+
+    @Getter
+    private final Encoding encoding;
+    @Getter
+    private final int capacity;
+    private final double step; // x spacing for IMPLICIT_X, tick for DELTA_OF_DELTA_X
+    private final float[] y;
+    private final float[] xFloat; // FLOAT32 only
+    private final int[] deltaOfDelta; // DELTA_OF_DELTA_X only, per slot
+    private final long[] blockTicks; // DELTA_OF_DELTA_X checkpoints: ticks and delta of each block's first slot
+    private final long[] blockDelta;
+    private int head;
+    private int size;
+    private int cursor;
+    private int iterCount;
+    private long appended; // Pairs ever appended; IMPLICIT_X places the pair with sequence s at originX + s * step
+    private double originX;
+    private long headTicks; // DELTA_OF_DELTA_X decode state of the oldest, newest and cursor pairs
+    private long headDelta;
+    private long tailTicks;
+    private long tailDelta;
+    private long cursorTicks;
+    private long cursorDelta;
+
+    /**
+     * Parameterized constructor for {@link Encoding#FLOAT32}.
+     *
+     * @param capacity Maximum number of pairs held.
+     * @throws IllegalArgumentException if capacity is less than 1.
+     */
+    public CompactPointBuffer(int capacity) {
+        this(capacity, Encoding.FLOAT32, 1.0);
+    }
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param capacity Maximum number of pairs held.
+     * @param encoding Storage encoding of the x column.
+     * @param step Spacing between consecutive x for IMPLICIT_X, or the x resolution for DELTA_OF_DELTA_X.
+     *             Ignored for FLOAT32.
+     * @throws IllegalArgumentException if capacity is less than 1 or step is not positive and finite.
+     */
+    public CompactPointBuffer(int capacity, Encoding encoding, double step) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity " + capacity + " must be at least 1");
+        }
+        if (!(step > 0.0) || Double.isInfinite(step)) {
+            throw new IllegalArgumentException("Step " + step + " must be positive and finite");
+        }
+        this.capacity = capacity;
+        this.encoding = Objects.requireNonNull(encoding);
+        this.step = step;
+        y = new float[capacity];
+        xFloat = encoding == Encoding.FLOAT32 ? new float[capacity] : null;
+        boolean deltas = encoding == Encoding.DELTA_OF_DELTA_X;
+        int blocks = ((capacity - 1) >> BLOCK_SHIFT) + 1;
+        deltaOfDelta = deltas ? new int[capacity] : null;
+        blockTicks = deltas ? new long[blocks] : null;
+        blockDelta = deltas ? new long[blocks] : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        head = 0;
+        size = 0;
+        cursor = 0;
+        iterCount = 0;
+    }
+
+    /**
+     * Inserts a coordinate pair. When full, the oldest pair is overwritten.
+     *
+     * @throws IllegalArgumentException for IMPLICIT_X if xVal is more than half a step away from the position
+     *                                  the spacing predicts, and for DELTA_OF_DELTA_X if xVal is not finite,
+     *                                  is beyond 2^62 ticks or changes the delta by more than an int number
+     *                                  of ticks. The buffer is left unchanged.
+     */
+    @Override
+    public void add(double xVal, double yVal) {
+        long ticks = 0;
+        long delta = 0;
+        if (encoding == Encoding.IMPLICIT_X && size > 0) {
+            double expected = originX + appended * step;
+            if (!(Math.abs(xVal - expected) <= step / 2)) {
+                throw new IllegalArgumentException("x " + xVal + " is off the implicit grid, expected " + expected);
+            }
+        } else if (encoding == Encoding.DELTA_OF_DELTA_X) {
+            if (!(Math.abs(xVal / step) <= 0x1p62)) { // Math.round would silently saturate or turn NaN into 0
+                throw new IllegalArgumentException("x " + xVal + " is not a finite number of ticks");
+            }
+            ticks = Math.round(xVal / step);
+            delta = size > 0 ? ticks - tailTicks : 0;
+            if (size > 0 && (int) (delta - tailDelta) != delta - tailDelta) {
+                throw new IllegalArgumentException("x " + xVal + " changes the spacing by too many ticks");
+            }
+        }
+        if (size == capacity) {
+            evictHead();
+        }
+        int index = slot(size);
+        y[index] = (float) yVal;
+        if (encoding == Encoding.FLOAT32) {
+            xFloat[index] = (float) xVal;
+        } else if (encoding == Encoding.IMPLICIT_X) {
+            if (size == 0) {
+                originX = xVal - appended * step;
+            }
+        } else {
+            deltaOfDelta[index] = (int) (delta - tailDelta);
+            if ((index & (BLOCK - 1)) == 0) {
+                blockTicks[index >> BLOCK_SHIFT] = ticks;
+                blockDelta[index >> BLOCK_SHIFT] = delta;
+            }
+            if (size == 0) {
+                headTicks = ticks;
+                headDelta = delta;
+            }
+            tailTicks = ticks;
+            tailDelta = delta;
+        }
+        ++size;
+        ++appended;
+    }
+
+    @Override
+    public CompactPointBuffer addAll(double[] xs, double[] ys, int off, int len) {
+        Objects.checkFromIndexSize(off, len, xs.length);
+        Objects.checkFromIndexSize(off, len, ys.length);
+        for (int i = off; i < off + len; ++i) {
+            add(xs[i], ys[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public Point2D.Double get(int index) {
+        setCursor(index);
+        return new Point2D.Double(cursorGetX(), cursorGetY());
+    }
+
+    @Override
+    public Point2D.Double pop() {
+        if (size == 0) {
+            return null;
+        }
+        Point2D.Double point = new Point2D.Double(decodeX(head, 0, headTicks), y[head]);
+        evictHead();
+        return point;
+    }
+
+    @Override
+    public void setCursor(int index) {
+        if (index < 0 || index >= size) {
+            final String iOOBE = "Index " + index + " out of bounds for size " + size;
+            throw new IndexOutOfBoundsException(iOOBE);
+        }
+        cursor = slot(index);
+        iterCount = index;
+        if (encoding == Encoding.DELTA_OF_DELTA_X) {
+            seekCursorDeltas();
+        }
+    }
+
+    @Override
+    public CompactPointBuffer resetCursor() {
+        cursor = head;
+        iterCount = 0;
+        cursorTicks = headTicks;
+        cursorDelta = headDelta;
+        return this;
+    }
+
+    @Override
+    public CompactPointBuffer advanceCursorWrapped() {
+        cursor = cursor + 1 < capacity ? cursor + 1 : 0;
+        iterCount = cursor >= head ? cursor - head : capacity + cursor - head;
+        if (encoding == Encoding.DELTA_OF_DELTA_X) {
+            if (cursor == head) {
+                cursorTicks = headTicks;
+                cursorDelta = headDelta;
+            } else {
+                cursorDelta += deltaOfDelta[cursor];
+                cursorTicks += cursorDelta;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return iterCount < size;
+    }
+
+    @Override
+    public double cursorGetX() {
+        return decodeX(cursor, iterCount, cursorTicks);
+    }
+
+    @Override
+    public double cursorGetY() {
+        return y[cursor];
+    }
+
+    @Override
+    public Iterator<Point2D.Double> iterator() {
+        return new Iterator<>() {
+            private int iteratorIndex = 0;
+            private int iteratorCursor = head;
+            private long ticks = headTicks;
+            private long delta = headDelta;
+            private final Point2D.Double reusable = new Point2D.Double();
+
+            @Override
+            public boolean hasNext() {
+                return iteratorIndex < size;
+            }
+
+            @Override
+            public Point2D.Double next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (iteratorIndex > 0 && encoding == Encoding.DELTA_OF_DELTA_X) {
+                    delta += deltaOfDelta[iteratorCursor];
+                    ticks += delta;
+                }
+                reusable.setLocation(decodeX(iteratorCursor, iteratorIndex, ticks), y[iteratorCursor]);
+                iteratorCursor = iteratorCursor + 1 < capacity ? iteratorCursor + 1 : 0;
+                ++iteratorIndex;
+                return reusable;
+            }
+        };
+    }
+
+    /**
+     * x of a held pair, given its slot, its logical index and, for DELTA_OF_DELTA_X, its decoded ticks.
+     */
+    private double decodeX(int slot, int index, long ticks) {
+        if (encoding == Encoding.FLOAT32) {
+            return xFloat[slot];
+        } else if (encoding == Encoding.IMPLICIT_X) {
+            return originX + (appended - size + index) * step;
+        }
+        return ticks * step;
+    }
+
+    /**
+     * Drops the oldest pair, carrying the delta-of-delta decode state over to its successor.
+     */
+    private void evictHead() {
+        head = head + 1 < capacity ? head + 1 : 0;
+        --size;
+        if (encoding == Encoding.DELTA_OF_DELTA_X && size > 0) {
+            headDelta += deltaOfDelta[head];
+            headTicks += headDelta;
+        }
+    }
+
+    /**
+     * Decodes the cursor pair from the nearest preceding state that belongs to the same lap: the oldest pair
+     * when the cursor shares its block, otherwise the checkpoint at the start of the cursor's block.
+     */
+    private void seekCursorDeltas() {
+        int blockStart = cursor & -BLOCK;
+        int from;
+        if (head >> BLOCK_SHIFT == cursor >> BLOCK_SHIFT && cursor >= head) {
+            from = head;
+            cursorTicks = headTicks;
+            cursorDelta = headDelta;
+        } else {
+            from = blockStart;
+            cursorTicks = blockTicks[cursor >> BLOCK_SHIFT];
+            cursorDelta = blockDelta[cursor >> BLOCK_SHIFT];
+        }
+        for (int slot = from + 1; slot <= cursor; ++slot) {
+            cursorDelta += deltaOfDelta[slot];
+            cursorTicks += cursorDelta;
+        }
+    }
+
+    /**
+     * Physical slot of a logical index in [0, capacity).
+     */
+    private int slot(int index) {
+        int slot = head + index;
+        return slot < capacity ? slot : slot - capacity;
+    }
+}
@@ -0,0 +1,17 @@
+package util;
+
+/**
+ * Receives (x, y) coordinate pairs as primitives, so buffers can hand out their contents without allocating
+ * a Point2D per element.
+ */
+@FunctionalInterface
+public interface DoubleBiConsumer {
+
+    /**
+     * Performs this operation on one coordinate pair.
+     *
+     * @param x x value of the pair.
+     * @param y y value of the pair.
+     */
+    void accept(double x, double y);
+}
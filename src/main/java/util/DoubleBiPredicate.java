@@ -0,0 +1,18 @@
+package util;
+
+/**
+ * Tests (x, y) coordinate pairs given as primitives, so buffers can filter their contents without allocating
+ * a Point2D per element.
+ */
+@FunctionalInterface
+public interface DoubleBiPredicate {
+
+    /**
+     * Evaluates this predicate on one coordinate pair.
+     *
+     * @param x x value of the pair.
+     * @param y y value of the pair.
+     * @return True if the pair matches the predicate.
+     */
+    boolean test(double x, double y);
+}
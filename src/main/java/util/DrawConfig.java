@@ -2,9 +2,9 @@ package util;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.Setter;
 
 import java.awt.Color;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Configuration object for controlling the appearance and behavior of axis tick marks in a LineGraph.
@@ -29,8 +29,8 @@ public final class DrawConfig {
     @Getter private int tickLength;
     @Getter private int marginSize; // TODO build margin x and margin y
 
-    @Getter @Setter private double xPixelsDelta;
-    @Getter @Setter private double yPixelsDelta;
+    @Getter private double xPixelsDelta;
+    @Getter private double yPixelsDelta;
 
     @Getter private float edgeThickness;
 
@@ -39,6 +39,10 @@ public final class DrawConfig {
     private int[] xTicksInt;
     private int[] yTicksInt;
 
+    // Bumped by every mutator so renderers can cache what they derive from this config. Final and
+    // initialized so it stays out of the all-args constructor.
+    private final AtomicInteger revision = new AtomicInteger();
+
     /**
      * Default configuration with all settings enabled and standard styling.
      */
@@ -71,6 +75,42 @@ public final class DrawConfig {
         yTicksDouble = null;
     }
 
+    /**
+     * Counter incremented by every mutation of this config. Two equal readings guarantee the config was not
+     * changed in between, which lets renderers cache anything derived from it.
+     *
+     * @return Current revision.
+     */
+    public int getRevision() {
+        return revision.get();
+    }
+
+    /**
+     * Sets the horizontal scale of the graph area.
+     * Graphs compute their own scale, see {@link graph.Graph#getXPixelsDelta()}, and never write it here.
+     *
+     * @param xPixelsDelta Pixels per unit along the x-axis.
+     */
+    public void setXPixelsDelta(double xPixelsDelta) {
+        if (Double.compare(this.xPixelsDelta, xPixelsDelta) != 0) {
+            this.xPixelsDelta = xPixelsDelta;
+            revision.incrementAndGet();
+        }
+    }
+
+    /**
+     * Sets the vertical scale of the graph area.
+     * Graphs compute their own scale, see {@link graph.Graph#getYPixelsDelta()}, and never write it here.
+     *
+     * @param yPixelsDelta Pixels per unit along the y-axis.
+     */
+    public void setYPixelsDelta(double yPixelsDelta) {
+        if (Double.compare(this.yPixelsDelta, yPixelsDelta) != 0) {
+            this.yPixelsDelta = yPixelsDelta;
+            revision.incrementAndGet();
+        }
+    }
+
     /**
      * Sets whether the margin border around the graph area is shown.
      *
@@ -79,6 +119,7 @@ public final class DrawConfig {
      */
     public DrawConfig setShowingMarginBorder(boolean showingMarginBorder) {
         this.showingMarginBorder = showingMarginBorder;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -90,6 +131,7 @@ public final class DrawConfig {
      */
     public DrawConfig setShowTickMarks(boolean showingGraphTickMarks) {
         this.showingGraphTickMarks = showingGraphTickMarks;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -101,6 +143,7 @@ public final class DrawConfig {
      */
     public DrawConfig setShowGrid(boolean showGrid) {
         this.showingGrid = showGrid;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -112,6 +155,7 @@ public final class DrawConfig {
      */
     public DrawConfig setShowMarginBorder(boolean showMarginBorder) {
         this.showingMarginBorder = showMarginBorder;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -123,6 +167,7 @@ public final class DrawConfig {
      */
     public DrawConfig setShowTickLabels(boolean showTickLabels) {
         this.showingTickLabels = showTickLabels;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -134,6 +179,7 @@ public final class DrawConfig {
      */
     public DrawConfig setMarginSize(int marginSize) {
         this.marginSize = marginSize;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -145,6 +191,7 @@ public final class DrawConfig {
      */
     public DrawConfig setEdgeThickness(float edgeThickness) {
         this.edgeThickness = edgeThickness;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -156,6 +203,7 @@ public final class DrawConfig {
      */
     public DrawConfig setBackgroundColor(Color backgroundColor) {
         this.backgroundColor = backgroundColor;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -167,6 +215,7 @@ public final class DrawConfig {
      */
     public DrawConfig setEdgeColor(Color argEdgeColor) {
         this.edgeColor = argEdgeColor;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -178,6 +227,7 @@ public final class DrawConfig {
      */
     public DrawConfig setShowingTickLabels(boolean showingTickLabels) {
         this.showingTickLabels = showingTickLabels;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -202,6 +252,7 @@ public final class DrawConfig {
                 this.yTicksDouble = null;
             }
         }
+        revision.incrementAndGet();
         return this;
     }
 
@@ -213,6 +264,7 @@ public final class DrawConfig {
      */
     public DrawConfig setShowGridLines(boolean showGrid) {
         this.showingGrid = showGrid;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -249,6 +301,7 @@ public final class DrawConfig {
      */
     public DrawConfig tickLength(int tickLength) {
         this.tickLength = tickLength;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -263,6 +316,7 @@ public final class DrawConfig {
      */
     public DrawConfig setTickColor(Color tickColor) {
         this.tickColor = tickColor;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -277,6 +331,7 @@ public final class DrawConfig {
      */
     public DrawConfig setGridColor(Color gridColorArg) {
         this.gridColor = gridColorArg;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -291,6 +346,7 @@ public final class DrawConfig {
      */
     public DrawConfig setBorderColor(Color borderColorArg) {
         this.borderColor = borderColorArg;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -307,6 +363,7 @@ public final class DrawConfig {
         } else {
             this.xTicksInt = GraphTools.arrayDoubleToArrayInt(xTicks);
         }
+        revision.incrementAndGet();
         return this;
     }
 
@@ -323,6 +380,7 @@ public final class DrawConfig {
         } else {
             this.yTicksInt = GraphTools.arrayDoubleToArrayInt(yTicks);
         }
+        revision.incrementAndGet();
         return this;
     }
 
@@ -339,6 +397,7 @@ public final class DrawConfig {
         } else {
             this.xTicksInt = xTicks;
         }
+        revision.incrementAndGet();
         return this;
     }
 
@@ -355,6 +414,7 @@ public final class DrawConfig {
         } else {
             this.yTicksInt = yTicks;
         }
+        revision.incrementAndGet();
         return this;
     }
 
@@ -501,6 +561,7 @@ public final class DrawConfig {
      */
     public DrawConfig tickColor(Color tickColor) {
         this.tickColor = tickColor;
+        revision.incrementAndGet();
         return this;
     }
 
@@ -3,7 +3,6 @@ package util;
 import graph.Graph;
 
 import java.awt.BasicStroke;
-import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.geom.Point2D.Double;
 import java.text.DecimalFormat;
@@ -13,7 +12,9 @@ import java.text.DecimalFormat;
  */
 public final class GraphTools {
 
-    private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("0.00");
+    // DecimalFormat is not thread-safe, and graphs may be rendered off the event dispatch thread
+    private static final ThreadLocal<DecimalFormat> DECIMAL_FORMAT =
+            ThreadLocal.withInitial(() -> new DecimalFormat("0.00"));
 
     // Prevent instantiation
     private GraphTools() {}
@@ -66,7 +67,7 @@ public final class GraphTools {
      * @return String representation of d rounded to two decimal places.
      */
     public static String doubleToString(double d) {
-        return DECIMAL_FORMAT.format(d);
+        return DECIMAL_FORMAT.get().format(d);
     }
 
     /**
@@ -89,7 +90,7 @@ public final class GraphTools {
      */
     public static void drawMargin(Graphics2D g2, Graph graph) {
         DrawConfig config = graph.getDrawConfig();
-        int margin = config.getMarginSize();
+        int margin = graph.getMarginSize();
 
         g2.setColor(config.getBorderColor());
         g2.setStroke(new BasicStroke(1f));
@@ -118,6 +119,10 @@ public final class GraphTools {
      * @param g2 Graphics pen which is sent from repaint.
      */
     private static void drawGraphFeatures(Graph graph, DrawConfig config, Graphics2D g2) {
+        if (graph.isAutoTicks()) {
+            drawAutoTicks(graph, config, g2);
+            return;
+        }
         int xTicksLength = config.getXArraySize();
         int yTicksLength = config.getYArraySize();
         if (xTicksLength == 0 || yTicksLength == 0) {
@@ -126,11 +131,11 @@ public final class GraphTools {
         boolean isDoublePrecision = config.isDoublePrecision();
         boolean drawTickLabels = config.isShowingTickLabels();
         boolean isShowingGridLines = config.isShowingGrid();
-        int margin = config.getMarginSize();
+        int margin = graph.getMarginSize();
         int halfTickLength = config.getTickLength() / 2;
         int heightDeltaMargin = graph.getHeight() - margin;
-        double deltaX = config.getXPixelsDelta();
-        double deltaY = config.getYPixelsDelta();
+        double deltaX = graph.getXPixelsDelta();
+        double deltaY = graph.getYPixelsDelta();
         int xVertical1 = heightDeltaMargin + halfTickLength;
         int xVertical2 = heightDeltaMargin - halfTickLength;
         int yHorizontal1 = margin - halfTickLength;
@@ -152,6 +157,11 @@ public final class GraphTools {
             yTicksInt = config.getIntYTicks();
         }
 
+        TickLabelCache labels = graph.getTickLabelCache();
+        if (drawTickLabels) {
+            labels.validate(g2.getFontMetrics(), g2.getFontRenderContext());
+        }
+
         int maxLength = Math.max(xTicksLength, yTicksLength);
 
         for (int i = 0; i < maxLength; ++i) {
@@ -171,16 +181,16 @@ public final class GraphTools {
             if (drawTickLabels) {
                 if (xTicksLength > i) {
                     if (isDoublePrecision) {
-                        drawXTickLabel(graph, xTicksDouble[i], g2, xVertical1, magnitudeX);
+                        drawXTickLabel(graph, labels.get(xTicksDouble[i]), labels.getAscent(), g2, xVertical1, magnitudeX);
                     } else {
-                        drawXTickLabel(graph, xTicksInt[i], g2, xVertical1, magnitudeX);
+                        drawXTickLabel(graph, labels.get(xTicksInt[i]), labels.getAscent(), g2, xVertical1, magnitudeX);
                     }
                 }
                 if (yTicksLength > i) {
                     if (isDoublePrecision) {
-                        drawYTickLabel(graph, yTicksDouble[i], g2, yHorizontal1, magnitudeY);
+                        drawYTickLabel(graph, labels.get(yTicksDouble[i]), labels.getAscent(), g2, yHorizontal1, magnitudeY);
                     } else {
-                        drawYTickLabel(graph, yTicksInt[i], g2, yHorizontal1, magnitudeY);
+                        drawYTickLabel(graph, labels.get(yTicksInt[i]), labels.getAscent(), g2, yHorizontal1, magnitudeY);
                     }
                 }
             }
@@ -188,51 +198,71 @@ public final class GraphTools {
     }
 
     /**
-     * Draws a Y-axis tick label for an integer value.
+     * Draws the ticks chosen by the graph's tick engines at their data positions, with labels showing as many
+     * decimal places as the tick step needs.
+     *
+     * @param graph Graph whose tick engines were fitted to the current range.
+     * @param config Object containing the drawing parameters which will be applied.
+     * @param g2 Graphics pen which is sent from repaint.
      */
-    private static void drawYTickLabel(Graph graph, int tick, Graphics2D g2, int yHorizontal1, int magnitudeY) {
-        FontMetrics fm = g2.getFontMetrics();
-        String yLabel = String.valueOf(tick);
-        int yLabelWidth = fm.stringWidth(yLabel);
-        int yLabelHorizPos = yHorizontal1 - yLabelWidth - 4;
-        int yLabelVerticalPos = magnitudeY + (fm.getAscent() / 2);
-        graph.drawTickLabel(g2, yLabel, yLabelHorizPos, yLabelVerticalPos);
-    }
+    private static void drawAutoTicks(Graph graph, DrawConfig config, Graphics2D g2) {
+        TickEngine xTicks = graph.getXTickEngine();
+        TickEngine yTicks = graph.getYTickEngine();
+        boolean drawTickLabels = config.isShowingTickLabels();
+        boolean isShowingGridLines = config.isShowingGrid();
+        int margin = graph.getMarginSize();
+        int halfTickLength = config.getTickLength() / 2;
+        int heightDeltaMargin = graph.getHeight() - margin;
+        int xVertical1 = heightDeltaMargin + halfTickLength;
+        int xVertical2 = heightDeltaMargin - halfTickLength;
+        int yHorizontal1 = margin - halfTickLength;
+        int yHorizontal2 = margin + halfTickLength;
+        TickLabelCache labels = graph.getTickLabelCache();
+        if (drawTickLabels) {
+            labels.validate(g2.getFontMetrics(), g2.getFontRenderContext());
+        }
 
-    /**
-     * Draws a X-axis tick label for a double value.
-     */
-    private static void drawYTickLabel(Graph graph, double tick, Graphics2D g2, int yHorizontal1, int magnitudeY) {
-        FontMetrics fm = g2.getFontMetrics();
-        String yLabel = String.format("%.2f", tick);
-        int yLabelWidth = fm.stringWidth(yLabel);
-        int yLabelHorizPos = yHorizontal1 - yLabelWidth - 4;
-        int yLabelVerticalPos = magnitudeY + (fm.getAscent() / 2);
-        graph.drawTickLabel(g2, yLabel, yLabelHorizPos, yLabelVerticalPos);
+        for (int i = 0; i < xTicks.getCount(); ++i) {
+            final int magnitudeX = margin + xTicks.getPixelOffset(i);
+            graph.drawTickLine(g2, magnitudeX, xVertical1, magnitudeX, xVertical2);
+            if (isShowingGridLines) {
+                graph.drawGridLine(g2, magnitudeX, margin, magnitudeX, xVertical1);
+            }
+            if (drawTickLabels) {
+                TickLabelCache.Label label = labels.get(xTicks.getTick(i), xTicks.getFractionDigits());
+                drawXTickLabel(graph, label, labels.getAscent(), g2, xVertical1, magnitudeX);
+            }
+        }
+        for (int i = 0; i < yTicks.getCount(); ++i) {
+            final int magnitudeY = heightDeltaMargin - yTicks.getPixelOffset(i);
+            graph.drawTickLine(g2, yHorizontal1, magnitudeY, yHorizontal2, magnitudeY);
+            if (isShowingGridLines) {
+                graph.drawGridLine(g2, yHorizontal2, magnitudeY, graph.getWidth() - margin, magnitudeY);
+            }
+            if (drawTickLabels) {
+                TickLabelCache.Label label = labels.get(yTicks.getTick(i), yTicks.getFractionDigits());
+                drawYTickLabel(graph, label, labels.getAscent(), g2, yHorizontal1, magnitudeY);
+            }
+        }
     }
 
     /**
-     * Draws an X-axis tick label for an integer value.
+     * Draws a Y-axis tick label, right-aligned against the tick.
      */
-    private static void drawXTickLabel(Graph graph, int tick, Graphics2D g2, int xVertical1, int magnitudeX) {
-        FontMetrics fm = g2.getFontMetrics();
-        String xLabel = String.valueOf(tick);
-        int xLabelWidth = fm.stringWidth(xLabel);
-        int xLabelHorizPos = magnitudeX - (xLabelWidth / 2);
-        int xLabelVerticalPos = xVertical1 + fm.getAscent() + 4;
-        graph.drawTickLabel(g2, xLabel, xLabelHorizPos, xLabelVerticalPos);
+    private static void drawYTickLabel(Graph graph, TickLabelCache.Label label, int ascent, Graphics2D g2,
+                                       int yHorizontal1, int magnitudeY) {
+        int yLabelHorizPos = yHorizontal1 - label.getWidth() - 4;
+        int yLabelVerticalPos = magnitudeY + (ascent / 2);
+        graph.drawTickLabel(g2, label.getGlyphs(), yLabelHorizPos, yLabelVerticalPos);
     }
 
     /**
-     * Draws an X-axis tick label for a double value.
+     * Draws an X-axis tick label, centered below the tick.
      */
-    private static void drawXTickLabel(Graph graph, double tick, Graphics2D g2, int xVertical1, int magnitudeX) {
-        FontMetrics fm = g2.getFontMetrics();
-        String xLabel = String.format("%.2f", tick);
-        int xLabelWidth = fm.stringWidth(xLabel);
-        int xLabelHorizPos = magnitudeX - (xLabelWidth / 2);
-        int xLabelVerticalPos = xVertical1 + fm.getAscent() + 4;
-        graph.drawTickLabel(g2, xLabel, xLabelHorizPos, xLabelVerticalPos);
-
+    private static void drawXTickLabel(Graph graph, TickLabelCache.Label label, int ascent, Graphics2D g2,
+                                       int xVertical1, int magnitudeX) {
+        int xLabelHorizPos = magnitudeX - (label.getWidth() / 2);
+        int xLabelVerticalPos = xVertical1 + ascent + 4;
+        graph.drawTickLabel(g2, label.getGlyphs(), xLabelHorizPos, xLabelVerticalPos);
     }
 }
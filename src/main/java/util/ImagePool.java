@@ -0,0 +1,89 @@
+package util;
+
+import lombok.Getter;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Thread-safe pool of TYPE_INT_ARGB images, keyed by size. Batch renderers acquire a target per render and
+ * release it once the pixels have been consumed, so rendering many graphs of the same size reuses a handful
+ * of images instead of allocating a new one each time.
+ * <p>
+ * Acquired images keep whatever pixels they held when released; renderers are expected to overwrite them.
+ * </p>
+ */
+public final class ImagePool {
+    @Getter private final int maxIdlePerSize;
+    private final Map<Long, ArrayDeque<BufferedImage>> idle = new HashMap<>();
+    @Getter private long createdCount;
+    @Getter private long reusedCount;
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param maxIdlePerSize Released images kept per distinct size; any beyond are left to the garbage collector.
+     * @throws IllegalArgumentException if maxIdlePerSize is negative.
+     */
+    public ImagePool(int maxIdlePerSize) {
+        if (maxIdlePerSize < 0) {
+            throw new IllegalArgumentException("Idle image limit " + maxIdlePerSize + " must not be negative");
+        }
+        this.maxIdlePerSize = maxIdlePerSize;
+    }
+
+    /**
+     * Takes an idle image of the given size, or creates one.
+     *
+     * @param width Image width in pixels.
+     * @param height Image height in pixels.
+     * @return A TYPE_INT_ARGB image the caller owns until it is released.
+     * @throws IllegalArgumentException if width or height is not positive.
+     */
+    public BufferedImage acquire(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size " + width + "x" + height + " must be positive");
+        }
+        synchronized (this) {
+            ArrayDeque<BufferedImage> images = idle.get(key(width, height));
+            BufferedImage image = images == null ? null : images.pollFirst();
+            if (image != null) {
+                ++reusedCount;
+                return image;
+            }
+            ++createdCount;
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Returns an image to the pool. The caller must not use it afterwards. Images of another type are ignored.
+     *
+     * @param image Image previously acquired, or any TYPE_INT_ARGB image of a pooled size.
+     */
+    public void release(BufferedImage image) {
+        if (image == null || image.getType() != BufferedImage.TYPE_INT_ARGB) {
+            return;
+        }
+        synchronized (this) {
+            ArrayDeque<BufferedImage> images = idle.computeIfAbsent(key(image.getWidth(), image.getHeight()),
+                    k -> new ArrayDeque<>());
+            if (images.size() < maxIdlePerSize) {
+                images.addFirst(image); // Most recently used first, while it is still warm in cache
+            }
+        }
+    }
+
+    /**
+     * Drops every idle image.
+     */
+    public synchronized void clear() {
+        idle.clear();
+    }
+
+    private static Long key(int width, int height) {
+        return (long) width << 32 | height;
+    }
+}
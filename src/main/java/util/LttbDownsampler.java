@@ -0,0 +1,281 @@
+package util;
+
+import lombok.Getter;
+
+import java.util.Objects;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling of a {@link CircularPointBuffer}. Reduces any number of points to
+ * at most a fixed threshold while keeping the visual shape of the line: the points are split into equal
+ * buckets and from each bucket the point forming the largest triangle with the previously selected point and
+ * the average of the next bucket is kept. The first and last points are always kept.
+ * <p>
+ * Points are read straight from the buffer's coordinate columns; no Point2D is created. The static
+ * {@link #downsample(PointBuffer, int, int, int, double[], double[])} reduces any index range of any
+ * {@link PointBuffer} in two sequential passes. An instance keeps reducing the whole buffer as it streams: buckets are laid out on the append
+ * sequence rather than on the current index, so a bucket's selection never changes once the bucket after it
+ * is complete. Each call only selects points for buckets completed since the previous call plus the trailing
+ * bucket, so cost follows the number of points appended, not the buffer size.
+ * </p>
+ */
+public final class LttbDownsampler {
+    private final CircularPointBuffer source;
+    @Getter
+    private final int threshold;
+
+    private int capacity; // Source capacity the bucket layout was derived from
+    private int span; // Points per bucket
+    private int rearrangements; // Source rearrange count the cached selections belong to
+    private double[] selectedX; // Selection of bucket b, kept at b % length
+    private double[] selectedY;
+    private long[] selectedSequence;
+    private long finalizedThrough; // Highest bucket whose selection is final, or -1
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param source Buffer to downsample.
+     * @param threshold Maximum number of points produced, at least 3.
+     * @throws IllegalArgumentException if threshold is less than 3.
+     */
+    public LttbDownsampler(CircularPointBuffer source, int threshold) {
+        if (threshold < 3) {
+            throw new IllegalArgumentException("Threshold " + threshold + " must be at least 3");
+        }
+        this.source = source;
+        this.threshold = threshold;
+        reset();
+    }
+
+    /**
+     * Downsamples every point currently held by the source. Buffers holding no more than threshold points are
+     * copied as they are.
+     *
+     * @param xs Destination for x values, at least threshold long.
+     * @param ys Destination for y values, at least threshold long.
+     * @return Number of points written to the front of xs and ys.
+     * @throws IllegalArgumentException if a destination is shorter than threshold.
+     */
+    public int downsample(double[] xs, double[] ys) {
+        requireLength(xs, ys, threshold);
+        if (source.getCapacity() != capacity || source.rearrangeCount() != rearrangements) {
+            reset();
+        }
+        int size = source.size();
+        if (size <= threshold) {
+            return copy(source, 0, size, xs, ys);
+        }
+        long end = source.appendedCount();
+        long start = end - size;
+        long firstFull = (start + span - 1) / span; // First bucket entirely held by the source
+        long lastComplete = end / span - 1; // Last bucket entirely appended
+
+        for (long b = Math.max(finalizedThrough + 1, firstFull); b < lastComplete; ++b) {
+            int from = (int) (b * span - start);
+            int next = from + span;
+            finalizeBucket(b, from, next, average(source, next, next + span, true),
+                    average(source, next, next + span, false), start);
+        }
+
+        int count = 0;
+        xs[count] = source.xAt(0);
+        ys[count] = source.yAt(0);
+        ++count;
+        for (long b = firstFull; b < lastComplete; ++b) {
+            int at = (int) (b % selectedX.length);
+            if (selectedSequence[at] != start) {
+                xs[count] = selectedX[at];
+                ys[count] = selectedY[at];
+                ++count;
+            }
+        }
+        if (lastComplete >= firstFull) { // Provisional until the bucket after it completes
+            int from = (int) (lastComplete * span - start);
+            int next = from + span;
+            double nextX = next < size ? average(source, next, size, true) : source.xAt(size - 1);
+            double nextY = next < size ? average(source, next, size, false) : source.yAt(size - 1);
+            int at = anchorOf(lastComplete);
+            double anchorX = at < 0 ? source.xAt(0) : selectedX[at];
+            double anchorY = at < 0 ? source.yAt(0) : selectedY[at];
+            int selected = selectLargestTriangle(source, from, next, anchorX, anchorY, nextX, nextY);
+            if (selected != 0 && selected != size - 1) {
+                xs[count] = source.xAt(selected);
+                ys[count] = source.yAt(selected);
+                ++count;
+            }
+        }
+        xs[count] = source.xAt(size - 1);
+        ys[count] = source.yAt(size - 1);
+        return count + 1;
+    }
+
+    /**
+     * Downsamples the points held at logical indices [from, to) of any buffer. Ranges of no more than
+     * threshold points are copied as they are. The range is walked with the buffer's cursor twice, once to
+     * average the buckets and once to select from them, so buffers that decode sequentially cost no more than
+     * random-access ones. Moves the cursor.
+     *
+     * @param source Buffer to read from.
+     * @param from First index of the range.
+     * @param to Index one past the end of the range.
+     * @param threshold Maximum number of points produced, at least 3.
+     * @param xs Destination for x values, at least threshold long.
+     * @param ys Destination for y values, at least threshold long.
+     * @return Number of points written to the front of xs and ys.
+     * @throws IndexOutOfBoundsException if [from, to) is outside [0, source.size()).
+     * @throws IllegalArgumentException if threshold is less than 3 or a destination is shorter than it.
+     */
+    public static int downsample(PointBuffer source, int from, int to, int threshold, double[] xs, double[] ys) {
+        Objects.checkFromToIndex(from, to, source.size());
+        if (threshold < 3) {
+            throw new IllegalArgumentException("Threshold " + threshold + " must be at least 3");
+        }
+        requireLength(xs, ys, threshold);
+        int length = to - from;
+        if (length <= threshold) {
+            if (length > 0) {
+                source.setCursor(from);
+            }
+            for (int i = 0; i < length; ++i) {
+                xs[i] = source.cursorGetX();
+                ys[i] = source.cursorGetY();
+                source.advanceCursorWrapped();
+            }
+            return length;
+        }
+        double every = (double) (length - 2) / (threshold - 2);
+
+        // Average of bucket b, which only bucket b - 1 needs, is parked where b - 1's selection will go
+        source.setCursor(from + (int) every + 1);
+        for (int b = 1; b <= threshold - 2; ++b) {
+            int bucketStart = from + (int) (b * every) + 1;
+            int bucketEnd = Math.min(from + (int) ((b + 1) * every) + 1, to);
+            double sumX = 0.0;
+            double sumY = 0.0;
+            for (int i = bucketStart; i < bucketEnd; ++i) {
+                sumX += source.cursorGetX();
+                sumY += source.cursorGetY();
+                source.advanceCursorWrapped();
+            }
+            xs[b] = sumX / (bucketEnd - bucketStart);
+            ys[b] = sumY / (bucketEnd - bucketStart);
+        }
+
+        source.setCursor(from);
+        double anchorX = source.cursorGetX();
+        double anchorY = source.cursorGetY();
+        xs[0] = anchorX;
+        ys[0] = anchorY;
+        source.advanceCursorWrapped();
+        for (int b = 0; b < threshold - 2; ++b) {
+            int bucketStart = from + (int) (b * every) + 1;
+            int bucketEnd = from + (int) ((b + 1) * every) + 1;
+            double nextX = xs[b + 1];
+            double nextY = ys[b + 1];
+            double maxArea = -1.0;
+            for (int i = bucketStart; i < bucketEnd; ++i) {
+                double xVal = source.cursorGetX();
+                double yVal = source.cursorGetY();
+                double area = Math.abs((anchorX - nextX) * (yVal - anchorY) - (anchorX - xVal) * (nextY - anchorY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    xs[b + 1] = xVal;
+                    ys[b + 1] = yVal;
+                } else if (i == bucketStart) { // Kept unless a later point wins, as when every area is NaN
+                    xs[b + 1] = xVal;
+                    ys[b + 1] = yVal;
+                }
+                source.advanceCursorWrapped();
+            }
+            anchorX = xs[b + 1];
+            anchorY = ys[b + 1];
+        }
+        source.setCursor(to - 1);
+        xs[threshold - 1] = source.cursorGetX();
+        ys[threshold - 1] = source.cursorGetY();
+        return threshold;
+    }
+
+    /**
+     * Selects and caches the final point of bucket b, whose points sit at [from, to).
+     */
+    private void finalizeBucket(long b, int from, int to, double nextX, double nextY, long start) {
+        int anchor = anchorOf(b);
+        double anchorX = anchor < 0 ? source.xAt(0) : selectedX[anchor];
+        double anchorY = anchor < 0 ? source.yAt(0) : selectedY[anchor];
+        int selected = selectLargestTriangle(source, from, to, anchorX, anchorY, nextX, nextY);
+        int at = (int) (b % selectedX.length);
+        selectedX[at] = source.xAt(selected);
+        selectedY[at] = source.yAt(selected);
+        selectedSequence[at] = start + selected;
+        finalizedThrough = b;
+    }
+
+    /**
+     * Cache slot of the selection preceding bucket b, or -1 when the chain restarts at the oldest held point
+     * because that selection was never made.
+     */
+    private int anchorOf(long b) {
+        if (finalizedThrough >= 0 && b - 1 == finalizedThrough) {
+            return (int) ((b - 1) % selectedX.length);
+        }
+        return -1;
+    }
+
+    /**
+     * Derives the bucket layout from the source capacity and forgets every cached selection.
+     */
+    private void reset() {
+        capacity = source.getCapacity();
+        rearrangements = source.rearrangeCount();
+        span = Math.max(1, (capacity + threshold - 3) / (threshold - 2));
+        int buckets = capacity / span + 3;
+        if (selectedX == null || selectedX.length != buckets) {
+            selectedX = new double[buckets];
+            selectedY = new double[buckets];
+            selectedSequence = new long[buckets];
+        }
+        finalizedThrough = -1;
+    }
+
+    /**
+     * Index in [from, to) of the point forming the largest triangle with the anchor and the next average.
+     */
+    private static int selectLargestTriangle(CircularPointBuffer source, int from, int to,
+                                             double anchorX, double anchorY, double nextX, double nextY) {
+        int selected = from;
+        double maxArea = -1.0;
+        for (int i = from; i < to; ++i) {
+            // Twice the triangle area; the factor does not change which point wins
+            double area = Math.abs((anchorX - nextX) * (source.yAt(i) - anchorY)
+                    - (anchorX - source.xAt(i)) * (nextY - anchorY));
+            if (area > maxArea) {
+                maxArea = area;
+                selected = i;
+            }
+        }
+        return selected;
+    }
+
+    private static double average(CircularPointBuffer source, int from, int to, boolean ofX) {
+        double sum = 0.0;
+        for (int i = from; i < to; ++i) {
+            sum += ofX ? source.xAt(i) : source.yAt(i);
+        }
+        return sum / (to - from);
+    }
+
+    private static int copy(CircularPointBuffer source, int from, int to, double[] xs, double[] ys) {
+        for (int i = from; i < to; ++i) {
+            xs[i - from] = source.xAt(i);
+            ys[i - from] = source.yAt(i);
+        }
+        return to - from;
+    }
+
+    private static void requireLength(double[] xs, double[] ys, int threshold) {
+        if (xs.length < threshold || ys.length < threshold) {
+            throw new IllegalArgumentException("Destinations must hold at least " + threshold + " points");
+        }
+    }
+}
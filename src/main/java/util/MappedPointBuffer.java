@@ -0,0 +1,366 @@
+package util;
+
+import lombok.Getter;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A {@link PointBuffer} stored in a memory-mapped file, so chart history survives restarts. Opening an
+ * existing file maps it and reads a fixed-size header only; no data is read, so reopening takes the same time
+ * whatever the number of retained points.
+ * <p>
+ * Every pair is tagged with its append sequence number. The pair with sequence s lives in slot s % capacity,
+ * and the header records the sequence of the oldest held pair and the number of pairs ever appended. Writes
+ * go in a fixed order: a slot's tag is invalidated, the pair is written, the tag is set, and only then is the
+ * header advanced. On reopen, slots tagged past the header's append count are rolled forward and untagged
+ * slots at the old end are dropped, so a process that dies mid-append loses at most the pair it was writing.
+ * Bulk inserts follow the same order in runs of up to {@link #BULK_RUN} pairs and commit the header after
+ * each run, so one that dies mid-insert loses at most the run it was writing, along with the oldest pairs that
+ * run was replacing. Changes reach the file through the page cache and so survive a process crash; call
+ * {@link #force()} to also survive an operating system crash.
+ * </p>
+ * <p>
+ * To chart a history that survives restarts, open the file and hand the buffer to
+ * {@link graph.LineGraph#LineGraph(PointBuffer)}, then insert through the graph. A graph built over a reopened
+ * file draws every pair the file holds, after scanning them once for its bounds. The graph never closes the
+ * buffer; close it once the graph is no longer painted.
+ * </p>
+ * <p>
+ * File layout, in native byte order: a 64-byte header, then the x column, the y column and the sequence
+ * column, capacity entries of 8 bytes each.
+ * </p>
+ */
+public final class MappedPointBuffer implements PointBuffer, AutoCloseable {
+    private static final long MAGIC = 0x4C47524150484D50L; // "LGRAPHMP"
+    private static final int VERSION = 1;
+    private static final long HEADER_BYTES = 64;
+    private static final long MAGIC_OFFSET = 0;
+    private static final long VERSION_OFFSET = 8;
+    private static final long CAPACITY_OFFSET = 12;
+    private static final long FIRST_OFFSET = 16;
+    private static final long APPENDED_OFFSET = 24;
+    private static final long INVALID = -1;
+    /**
+     * Most pairs a bulk insert writes before committing them to the header.
+     */
+    public static final int BULK_RUN = 1024;
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE;
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG;
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT;
+
+    private final Arena arena;
+    private final MemorySegment header;
+    private final MemorySegment x;
+    private final MemorySegment y;
+    private final MemorySegment seq;
+    @Getter
+    private final int capacity;
+    private long first; // Sequence of the oldest held pair
+    private long appended; // Pairs ever appended; the newest held pair has sequence appended - 1
+    private int cursor; // Physical slot the cursor points at
+    private int iterCount; // Logical position of the cursor
+
+    /**
+     * Opens the buffer stored in file, creating and formatting the file if it does not exist, is empty, or was
+     * left unformatted by an owner that stopped while creating it.
+     *
+     * @param file Backing file.
+     * @param capacity Maximum number of pairs held. Must match the capacity of an existing file.
+     * @throws IOException if the file cannot be mapped, is not a point buffer file, or holds a different
+     *                     capacity.
+     * @throws IllegalArgumentException if capacity is less than 1.
+     */
+    public MappedPointBuffer(Path file, int capacity) throws IOException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity " + capacity + " must be at least 1");
+        }
+        this.capacity = capacity;
+        long columnBytes = (long) capacity * Double.BYTES;
+        long length = HEADER_BYTES + 3 * columnBytes;
+        Arena mapping = Arena.ofShared();
+        MemorySegment whole;
+        long existing;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            existing = channel.size();
+            if (existing != 0 && existing < HEADER_BYTES) {
+                throw new IOException(file + " is too short to be a point buffer file");
+            }
+            whole = channel.map(FileChannel.MapMode.READ_WRITE, 0, existing == 0 ? length : existing, mapping);
+        } catch (IOException | RuntimeException e) {
+            mapping.close();
+            throw e;
+        }
+        this.arena = mapping;
+        this.header = whole.asSlice(0, HEADER_BYTES);
+        // The magic is written last, so a file of the right length without it was grown by an owner that
+        // stopped before formatting finished
+        boolean fresh = existing == 0 || existing == length && header.get(LONG, MAGIC_OFFSET) == 0;
+        if (!fresh) {
+            try {
+                validate(file, whole.byteSize(), length);
+            } catch (IOException e) {
+                arena.close();
+                throw e;
+            }
+        }
+        this.x = whole.asSlice(HEADER_BYTES, columnBytes);
+        this.y = whole.asSlice(HEADER_BYTES + columnBytes, columnBytes);
+        this.seq = whole.asSlice(HEADER_BYTES + 2 * columnBytes, columnBytes);
+        if (fresh) {
+            format();
+        } else {
+            recover();
+        }
+        cursor = head();
+    }
+
+    @Override
+    public int size() {
+        return (int) (appended - first);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return appended == first;
+    }
+
+    /**
+     * Forgets every pair. Only the header is written.
+     */
+    @Override
+    public void clear() {
+        first = appended;
+        header.set(LONG, FIRST_OFFSET, first);
+        cursor = head();
+        iterCount = 0;
+    }
+
+    @Override
+    public void add(double xVal, double yVal) {
+        int index = slot(appended);
+        if (appended - first == capacity) {
+            seq.setAtIndex(LONG, index, INVALID); // Slot no longer holds the oldest pair
+            header.set(LONG, FIRST_OFFSET, ++first);
+        }
+        x.setAtIndex(DOUBLE, index, xVal);
+        y.setAtIndex(DOUBLE, index, yVal);
+        seq.setAtIndex(LONG, index, appended);
+        header.set(LONG, APPENDED_OFFSET, ++appended);
+    }
+
+    /**
+     * Bulk insert copying straight from the arrays into the mapping. Pairs are written and committed in runs
+     * of up to {@link #BULK_RUN} that never wrap around the end of the columns: each run's slots are untagged,
+     * both columns are copied, the slots are tagged and the header is advanced. If len exceeds the capacity
+     * only the newest capacity pairs are copied.
+     */
+    @Override
+    public MappedPointBuffer addAll(double[] xs, double[] ys, int off, int len) {
+        Objects.checkFromIndexSize(off, len, xs.length);
+        Objects.checkFromIndexSize(off, len, ys.length);
+        long start = appended; // Sequence of the first pair written
+        long minFirst = first;
+        if (len > capacity) {
+            off += len - capacity;
+            len = capacity;
+            // Start at the oldest pair's slot so pairs are still replaced oldest first, which recovery relies on.
+            // Sequences left out count as appended and immediately overwritten, so they are never held.
+            start = appended + Math.floorMod(slot(first) - slot(appended), capacity);
+            minFirst = start;
+        }
+        for (int done = 0; done < len; ) {
+            long runStart = start + done;
+            int runSlot = slot(runStart);
+            int run = Math.min(Math.min(len - done, BULK_RUN), capacity - runSlot);
+            long runEnd = runStart + run;
+            for (long sequence = runStart; sequence < runEnd; ++sequence) {
+                seq.setAtIndex(LONG, slot(sequence), INVALID); // Slot no longer holds the pair it held
+            }
+            MemorySegment.copy(xs, off + done, x, DOUBLE, (long) runSlot * Double.BYTES, run);
+            MemorySegment.copy(ys, off + done, y, DOUBLE, (long) runSlot * Double.BYTES, run);
+            for (long sequence = runStart; sequence < runEnd; ++sequence) {
+                seq.setAtIndex(LONG, slot(sequence), sequence);
+            }
+            first = Math.max(done == 0 ? minFirst : first, runEnd - capacity);
+            appended = runEnd;
+            header.set(LONG, APPENDED_OFFSET, appended); // Before first, which may pass the committed count
+            header.set(LONG, FIRST_OFFSET, first);
+            done += run;
+        }
+        return this;
+    }
+
+    @Override
+    public Point2D.Double get(int index) {
+        setCursor(index);
+        return new Point2D.Double(x.getAtIndex(DOUBLE, cursor), y.getAtIndex(DOUBLE, cursor));
+    }
+
+    @Override
+    public Point2D.Double pop() {
+        if (isEmpty()) {
+            return null;
+        }
+        int index = head();
+        Point2D.Double point = new Point2D.Double(x.getAtIndex(DOUBLE, index), y.getAtIndex(DOUBLE, index));
+        header.set(LONG, FIRST_OFFSET, ++first);
+        return point;
+    }
+
+    @Override
+    public void setCursor(int index) {
+        if (index < 0 || index >= size()) {
+            final String iOOBE = "Index " + index + " out of bounds for size " + size();
+            throw new IndexOutOfBoundsException(iOOBE);
+        }
+        cursor = slot(first + index);
+        iterCount = index;
+    }
+
+    @Override
+    public MappedPointBuffer resetCursor() {
+        cursor = head();
+        iterCount = 0;
+        return this;
+    }
+
+    @Override
+    public MappedPointBuffer advanceCursorWrapped() {
+        int head = head();
+        cursor = cursor + 1 < capacity ? cursor + 1 : 0;
+        iterCount = cursor >= head ? cursor - head : capacity + cursor - head;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return iterCount < size();
+    }
+
+    @Override
+    public double cursorGetX() {
+        return x.getAtIndex(DOUBLE, cursor);
+    }
+
+    @Override
+    public double cursorGetY() {
+        return y.getAtIndex(DOUBLE, cursor);
+    }
+
+    /**
+     * Blocks until every change has been written to the storage device, so it survives an operating system
+     * crash or power loss as well as a process crash.
+     */
+    public void force() {
+        x.force();
+        y.force();
+        seq.force();
+        header.force();
+    }
+
+    /**
+     * Unmaps the file. The buffer is unusable afterwards; its contents stay in the file for the next open.
+     *
+     * @throws IllegalStateException if the buffer was already closed.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    @Override
+    public Iterator<Point2D.Double> iterator() {
+        return new Iterator<>() {
+            private int iteratorIndex = 0;
+            private int iteratorCursor = head();
+            private final Point2D.Double reusable = new Point2D.Double();
+
+            @Override
+            public boolean hasNext() {
+                return iteratorIndex < size();
+            }
+
+            @Override
+            public Point2D.Double next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                reusable.setLocation(x.getAtIndex(DOUBLE, iteratorCursor), y.getAtIndex(DOUBLE, iteratorCursor));
+                iteratorCursor = iteratorCursor + 1 < capacity ? iteratorCursor + 1 : 0;
+                ++iteratorIndex;
+                return reusable;
+            }
+        };
+    }
+
+    /**
+     * Tags every slot as empty, so no slot passes for the pair the first append will write, then writes the
+     * header.
+     */
+    private void format() {
+        for (int i = 0; i < capacity; ++i) {
+            seq.setAtIndex(LONG, i, INVALID);
+        }
+        header.set(LONG, FIRST_OFFSET, 0L);
+        header.set(LONG, APPENDED_OFFSET, 0L);
+        header.set(INT, CAPACITY_OFFSET, capacity);
+        header.set(INT, VERSION_OFFSET, VERSION);
+        header.set(LONG, MAGIC_OFFSET, MAGIC); // Last, so a half-formatted file is rejected rather than trusted
+    }
+
+    private void validate(Path file, long mappedBytes, long expectedBytes) throws IOException {
+        if (header.get(LONG, MAGIC_OFFSET) != MAGIC || header.get(INT, VERSION_OFFSET) != VERSION) {
+            throw new IOException(file + " is not a point buffer file");
+        }
+        int stored = header.get(INT, CAPACITY_OFFSET);
+        if (stored != capacity || mappedBytes < expectedBytes) {
+            throw new IOException(file + " holds capacity " + stored + ", not " + capacity);
+        }
+        first = header.get(LONG, FIRST_OFFSET);
+        appended = header.get(LONG, APPENDED_OFFSET);
+        if (first < 0 || first > appended) {
+            throw new IOException(file + " has a corrupt header");
+        }
+        first = Math.max(first, appended - capacity); // Stopped between the two header writes of a bulk insert
+    }
+
+    /**
+     * Rolls the header forward over pairs that were fully written but not yet committed when the previous
+     * owner stopped, then drops the oldest pairs whose slots were untagged for a write that never finished.
+     * Touches only those pairs, at most one bulk run's worth.
+     */
+    private void recover() {
+        long committed = appended;
+        while (appended - committed < capacity && seq.getAtIndex(LONG, slot(appended)) == appended) {
+            ++appended;
+        }
+        first = Math.max(first, appended - capacity);
+        while (first < appended && seq.getAtIndex(LONG, slot(first)) != first) {
+            ++first;
+        }
+        header.set(LONG, APPENDED_OFFSET, appended);
+        header.set(LONG, FIRST_OFFSET, first);
+    }
+
+    private int head() {
+        return slot(first);
+    }
+
+    /**
+     * Physical slot of the pair with the given sequence number.
+     */
+    private int slot(long sequence) {
+        return (int) (sequence % capacity);
+    }
+}
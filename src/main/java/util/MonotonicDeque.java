@@ -0,0 +1,121 @@
+package util;
+
+/**
+ * Monotonic deque of buffer slots used to answer "minimum (or maximum) of everything currently in a FIFO
+ * window" in amortized O(1). Slots are appended in insertion order; any slot whose value can never again be
+ * the extreme of the window is discarded on arrival, so the front of the deque always holds the extreme.
+ * <p>
+ * The deque stores physical slot indices of the owning buffer rather than values. Each live element of the
+ * buffer occupies a distinct slot, so a slot uniquely identifies an element for as long as it is in the
+ * window. NaN values are never admitted, mirroring how NaN never widens graph bounds.
+ * </p>
+ */
+final class MonotonicDeque {
+    private final boolean tracksMaximum;
+    private int[] slots;
+    private int first;
+    private int count;
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param capacity Maximum number of slots the owning buffer can hold.
+     * @param tracksMaximum True to track the window maximum, false to track the window minimum.
+     */
+    MonotonicDeque(int capacity, boolean tracksMaximum) {
+        this.tracksMaximum = tracksMaximum;
+        this.slots = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Admits a freshly written slot at the back of the window.
+     *
+     * @param slot Physical slot that was written.
+     * @param values Column the slot indexes into.
+     */
+    void offer(int slot, double[] values) {
+        double value = values[slot];
+        if (Double.isNaN(value)) {
+            return;
+        }
+        while (count > 0 && dominates(value, values[back()])) {
+            --count;
+        }
+        int tail = first + count;
+        slots[tail < slots.length ? tail : tail - slots.length] = slot;
+        ++count;
+    }
+
+    /**
+     * Notifies the deque that the slot at the front of the window is leaving it.
+     *
+     * @param slot Physical slot being evicted.
+     */
+    void evict(int slot) {
+        if (count > 0 && slots[first] == slot) {
+            first = first + 1 < slots.length ? first + 1 : 0;
+            --count;
+        }
+    }
+
+    /**
+     * Newest slot still held, which is the only one a trim of the window's back end may have to drop.
+     *
+     * @return Physical slot at the back, or -1 when the deque is empty.
+     */
+    int peekBack() {
+        return count == 0 ? -1 : back();
+    }
+
+    /**
+     * Drops the slot at the back, after it left the window through a trim of the newest end.
+     */
+    void removeBack() {
+        if (count > 0) {
+            --count;
+        }
+    }
+
+    /**
+     * Extreme value of the window.
+     *
+     * @param values Column the slots index into.
+     * @return Window extreme, or the identity of the comparison (negative infinity for a maximum, positive
+     *         infinity for a minimum) when the window holds no comparable value.
+     */
+    double peek(double[] values) {
+        if (count == 0) {
+            return tracksMaximum ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        return values[slots[first]];
+    }
+
+    /**
+     * Forgets every slot.
+     */
+    void clear() {
+        first = 0;
+        count = 0;
+    }
+
+    /**
+     * Forgets every slot and resizes to a new buffer capacity.
+     *
+     * @param capacity New capacity of the owning buffer.
+     */
+    void reset(int capacity) {
+        if (slots.length != capacity) {
+            slots = new int[Math.max(1, capacity)];
+        }
+        clear();
+    }
+
+    private int back() {
+        int tail = first + count - 1;
+        return slots[tail < slots.length ? tail : tail - slots.length];
+    }
+
+    private boolean dominates(double incoming, double existing) {
+        return tracksMaximum ? incoming >= existing : incoming <= existing;
+    }
+}
@@ -0,0 +1,191 @@
+package util;
+
+import lombok.Getter;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+/**
+ * Lock-free multi-producer/single-consumer hand-off of (x, y) pairs. Each producer thread is given its own
+ * {@link SpscPointBuffer} lane the first time it calls {@link #add(double, double)}, so producers never
+ * contend with each other or with the consumer: an add is a thread-local lookup and an uncontended
+ * single-producer append. Registering a new thread takes a lock once.
+ * <p>
+ * {@link #poll(double[], double[])} merges the lanes by x, so when every producer appends in x order the
+ * polled batches are in x order as well. Samples from the same thread always keep their relative order.
+ * Lanes of threads that have terminated are dropped once they are drained.
+ * </p>
+ */
+public final class MpscPointBuffer implements PointHandoff {
+    private static final int MAX_LANE_SCRATCH = 4096;
+
+    @Getter
+    private final int laneCapacity;
+    private final ThreadLocal<Lane> ownLane = ThreadLocal.withInitial(this::register);
+    private volatile Lane[] lanes = new Lane[0]; // Copy-on-write; replaced under the instance lock
+    private long retiredLost; // Lost count of dropped lanes; consumer-confined
+    private long pollCount; // Consumer-confined
+
+    /**
+     * Parameterized constructor. Like {@link SpscPointBuffer}, the lane capacity is rounded up to the next
+     * power of two.
+     *
+     * @param laneCapacity Minimum number of samples each producer thread can get ahead of the consumer before
+     *                     its oldest samples are overwritten.
+     * @throws IllegalArgumentException if laneCapacity is less than 2.
+     */
+    public MpscPointBuffer(int laneCapacity) {
+        if (laneCapacity < 2 || laneCapacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity " + laneCapacity + " must be in [2, 2^30]");
+        }
+        this.laneCapacity = Integer.highestOneBit(laneCapacity - 1) << 1;
+    }
+
+    /**
+     * Appends a sample to the calling thread's lane. Any thread may call this. Never blocks and, after the
+     * thread's first call, never allocates.
+     *
+     * @param xVal x value of the sample.
+     * @param yVal y value of the sample.
+     */
+    @Override
+    public void add(double xVal, double yVal) {
+        ownLane.get().ring.add(xVal, yVal);
+    }
+
+    /**
+     * Copies samples from every lane, merged by x, up to the length of the destination arrays. Consumer
+     * thread only.
+     *
+     * @param xs Destination for x values.
+     * @param ys Destination for y values, at least as long as xs.
+     * @return Number of samples written to the front of xs and ys.
+     */
+    @Override
+    public int poll(double[] xs, double[] ys) {
+        Lane[] current = lanes;
+        long epoch = ++pollCount;
+        int n = 0;
+        while (n < xs.length) {
+            Lane next = null;
+            for (Lane lane : current) {
+                if (lane.pos == lane.count && lane.emptyAt != epoch && !lane.refill()) {
+                    // Checked once per poll, so an idle lane does not cost a ring read per merged sample
+                    lane.emptyAt = epoch;
+                }
+                if (lane.pos < lane.count && (next == null || lane.xs[lane.pos] < next.xs[next.pos])) {
+                    next = lane;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            xs[n] = next.xs[next.pos];
+            ys[n] = next.ys[next.pos];
+            ++next.pos;
+            ++n;
+        }
+        retireFinishedLanes(current);
+        return n;
+    }
+
+    /**
+     * Number of samples lost because a producer lapped its lane. Consumer thread only.
+     *
+     * @return Lost sample count over every lane, including dropped ones.
+     */
+    @Override
+    public long getLostCount() {
+        long lost = retiredLost;
+        for (Lane lane : lanes) {
+            lost += lane.ring.getLostCount();
+        }
+        return lost;
+    }
+
+    /**
+     * Combined capacity of the lanes currently registered, or of one lane before any producer has added.
+     *
+     * @return Capacity in samples.
+     */
+    @Override
+    public int getCapacity() {
+        return (int) Math.min((long) laneCapacity * Math.max(1, lanes.length), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Number of producer threads that currently own a lane.
+     *
+     * @return Lane count.
+     */
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    private synchronized Lane register() {
+        Lane lane = new Lane(new SpscPointBuffer(laneCapacity), Thread.currentThread());
+        Lane[] grown = Arrays.copyOf(lanes, lanes.length + 1);
+        grown[lanes.length] = lane;
+        lanes = grown;
+        return lane;
+    }
+
+    /**
+     * Drops the lanes whose owner has terminated and whose samples have all been polled. Liveness is checked
+     * before the final refill, so nothing the owner published can be left behind.
+     */
+    private void retireFinishedLanes(Lane[] current) {
+        for (Lane lane : current) {
+            if (lane.pos == lane.count && !lane.isOwnerAlive() && !lane.refill()) {
+                synchronized (this) {
+                    Lane[] remaining = new Lane[lanes.length - 1];
+                    int i = 0;
+                    for (Lane other : lanes) {
+                        if (other != lane) {
+                            remaining[i++] = other;
+                        }
+                    }
+                    lanes = remaining;
+                }
+                retiredLost += lane.ring.getLostCount();
+            }
+        }
+    }
+
+    /**
+     * One producer's ring, plus the consumer's batch of samples already taken from it but not yet merged.
+     */
+    private static final class Lane {
+        private final SpscPointBuffer ring;
+        private final WeakReference<Thread> owner;
+        private final double[] xs;
+        private final double[] ys;
+        private int pos;
+        private int count;
+        private long emptyAt;
+
+        private Lane(SpscPointBuffer ring, Thread owner) {
+            this.ring = ring;
+            this.owner = new WeakReference<>(owner);
+            int scratchLength = Math.min(ring.getCapacity(), MAX_LANE_SCRATCH);
+            this.xs = new double[scratchLength];
+            this.ys = new double[scratchLength];
+        }
+
+        /**
+         * Replaces the exhausted batch with the next one from the ring.
+         *
+         * @return True if the ring had samples.
+         */
+        private boolean refill() {
+            count = ring.poll(xs, ys);
+            pos = 0;
+            return count > 0;
+        }
+
+        private boolean isOwnerAlive() {
+            Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package util;
+
+import lombok.Getter;
+
+import java.awt.geom.Point2D;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A {@link PointBuffer} whose coordinates live outside the Java heap, in two native memory segments. Very
+ * large chart histories therefore add nothing for the garbage collector to trace or copy, so collection
+ * pauses stay independent of how many points are retained.
+ * <p>
+ * The native memory is held until {@link #close()} is called; any access after that throws
+ * IllegalStateException. The buffer may be used from any thread, but like {@link CircularPointBuffer} it is
+ * not safe for concurrent use.
+ * </p>
+ */
+public final class OffHeapPointBuffer implements PointBuffer, AutoCloseable {
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE;
+
+    private final Arena arena;
+    private final MemorySegment x;
+    private final MemorySegment y;
+    @Getter
+    private final int capacity;
+    private int head; // Slot of the oldest pair
+    private int size;
+    private int cursor; // Physical slot the cursor points at
+    private int iterCount; // Logical position of the cursor
+
+    /**
+     * Parameterized constructor. Allocates 16 bytes of native memory per pair.
+     *
+     * @param capacity Maximum number of pairs held.
+     * @throws IllegalArgumentException if capacity is less than 1.
+     */
+    public OffHeapPointBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity " + capacity + " must be at least 1");
+        }
+        this.capacity = capacity;
+        this.arena = Arena.ofShared(); // Shared so the painting thread may read what another thread created
+        this.x = arena.allocate((long) capacity * Double.BYTES, Double.BYTES);
+        this.y = arena.allocate((long) capacity * Double.BYTES, Double.BYTES);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        head = 0;
+        size = 0;
+        cursor = 0;
+        iterCount = 0;
+    }
+
+    @Override
+    public void add(double xVal, double yVal) {
+        int index = slot(size == capacity ? 0 : size);
+        x.setAtIndex(DOUBLE, index, xVal);
+        y.setAtIndex(DOUBLE, index, yVal);
+        if (size < capacity) {
+            ++size;
+        } else {
+            head = head + 1 < capacity ? head + 1 : 0;
+        }
+    }
+
+    /**
+     * Bulk insert copying straight from the arrays into native memory, in at most two runs per column. If len
+     * exceeds the capacity only the newest capacity pairs are copied.
+     */
+    @Override
+    public OffHeapPointBuffer addAll(double[] xs, double[] ys, int off, int len) {
+        Objects.checkFromIndexSize(off, len, xs.length);
+        Objects.checkFromIndexSize(off, len, ys.length);
+        if (len > capacity) {
+            off += len - capacity;
+            len = capacity;
+        }
+        int start = slot(size == capacity ? 0 : size);
+        int firstRun = Math.min(len, capacity - start);
+        MemorySegment.copy(xs, off, x, DOUBLE, (long) start * Double.BYTES, firstRun);
+        MemorySegment.copy(ys, off, y, DOUBLE, (long) start * Double.BYTES, firstRun);
+        MemorySegment.copy(xs, off + firstRun, x, DOUBLE, 0L, len - firstRun);
+        MemorySegment.copy(ys, off + firstRun, y, DOUBLE, 0L, len - firstRun);
+        int overflow = Math.max(0, size + len - capacity);
+        head = slot(overflow % capacity);
+        size += len - overflow;
+        return this;
+    }
+
+    @Override
+    public Point2D.Double get(int index) {
+        setCursor(index);
+        return new Point2D.Double(x.getAtIndex(DOUBLE, cursor), y.getAtIndex(DOUBLE, cursor));
+    }
+
+    @Override
+    public Point2D.Double pop() {
+        if (size == 0) {
+            return null;
+        }
+        Point2D.Double point = new Point2D.Double(x.getAtIndex(DOUBLE, head), y.getAtIndex(DOUBLE, head));
+        head = head + 1 < capacity ? head + 1 : 0;
+        --size;
+        return point;
+    }
+
+    @Override
+    public void setCursor(int index) {
+        if (index < 0 || index >= size) {
+            final String iOOBE = "Index " + index + " out of bounds for size " + size;
+            throw new IndexOutOfBoundsException(iOOBE);
+        }
+        cursor = slot(index);
+        iterCount = index;
+    }
+
+    @Override
+    public OffHeapPointBuffer resetCursor() {
+        cursor = head;
+        iterCount = 0;
+        return this;
+    }
+
+    @Override
+    public OffHeapPointBuffer advanceCursorWrapped() {
+        cursor = cursor + 1 < capacity ? cursor + 1 : 0;
+        iterCount = cursor >= head ? cursor - head : capacity + cursor - head;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return iterCount < size;
+    }
+
+    @Override
+    public double cursorGetX() {
+        return x.getAtIndex(DOUBLE, cursor);
+    }
+
+    @Override
+    public double cursorGetY() {
+        return y.getAtIndex(DOUBLE, cursor);
+    }
+
+    /**
+     * Releases the native memory. The buffer is unusable afterwards.
+     *
+     * @throws IllegalStateException if the buffer was already closed.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    @Override
+    public Iterator<Point2D.Double> iterator() {
+        return new Iterator<>() {
+            private int iteratorIndex = 0;
+            private int iteratorCursor = head;
+            private final Point2D.Double reusable = new Point2D.Double();
+
+            @Override
+            public boolean hasNext() {
+                return iteratorIndex < size;
+            }
+
+            @Override
+            public Point2D.Double next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                reusable.setLocation(x.getAtIndex(DOUBLE, iteratorCursor), y.getAtIndex(DOUBLE, iteratorCursor));
+                iteratorCursor = iteratorCursor + 1 < capacity ? iteratorCursor + 1 : 0;
+                ++iteratorIndex;
+                return reusable;
+            }
+        };
+    }
+
+    /**
+     * Physical slot of a logical index in [0, capacity).
+     */
+    private int slot(int index) {
+        int slot = head + index;
+        return slot < capacity ? slot : slot - capacity;
+    }
+}
@@ -0,0 +1,86 @@
+package util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A long sequence counter padded on both sides so that it owns its cache line. Producer and consumer
+ * counters of the concurrent buffers live in separate instances and never false-share with each other
+ * or with the read-mostly fields of the buffer that holds them.
+ * <p>
+ * Padding is done through the class hierarchy because the JVM keeps superclass fields ahead of subclass
+ * fields, while it is free to reorder the fields of a single class.
+ * </p>
+ */
+final class PaddedSequence extends PaddedSequenceValue {
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(PaddedSequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    /**
+     * Constructs a sequence starting at the given value.
+     *
+     * @param initialValue Starting value of the sequence.
+     */
+    PaddedSequence(long initialValue) {
+        value = initialValue;
+    }
+
+    /**
+     * Plain read. Only valid from the thread that owns the writes to this sequence.
+     *
+     * @return Current value.
+     */
+    long getPlain() {
+        return value;
+    }
+
+    /**
+     * Plain write. Only valid for sequences that are confined to a single thread.
+     *
+     * @param newValue Value to store.
+     */
+    void setPlain(long newValue) {
+        value = newValue;
+    }
+
+    /**
+     * Acquire read, pairs with {@link #setRelease(long)} on the owning thread.
+     *
+     * @return Current value with acquire semantics.
+     */
+    long getAcquire() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    /**
+     * Release write publishing every store made before it to threads that {@link #getAcquire()} the new value.
+     *
+     * @param newValue Value to publish.
+     */
+    void setRelease(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+}
+
+/**
+ * Leading cache line of padding for {@link PaddedSequence}.
+ */
+abstract class PaddedSequenceLeftPadding {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+/**
+ * The padded value itself, sandwiched between {@link PaddedSequenceLeftPadding} and {@link PaddedSequence}.
+ */
+abstract class PaddedSequenceValue extends PaddedSequenceLeftPadding {
+    long value;
+}
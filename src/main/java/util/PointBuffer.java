@@ -0,0 +1,175 @@
+package util;
+
+import java.awt.geom.Point2D;
+import java.util.Objects;
+
+/**
+ * Fixed-capacity FIFO store of (x, y) coordinate pairs that overwrites its oldest pair when full. Implemented
+ * by {@link CircularPointBuffer} on the Java heap and by alternative storage backends, which all share the
+ * same add, get, pop, iteration and cursor semantics.
+ * <p>
+ * As with {@link CircularPointBuffer}, the iterator reuses a single Point2D.Double and the cursor is a
+ * single mutable position; neither is safe for concurrent use.
+ * </p>
+ */
+public interface PointBuffer extends Iterable<Point2D.Double> {
+
+    /**
+     * Maximum number of pairs held before the oldest is overwritten.
+     *
+     * @return Capacity of the buffer.
+     */
+    int getCapacity();
+
+    /**
+     * Number of pairs currently held.
+     *
+     * @return Number of valid entries.
+     */
+    int size();
+
+    /**
+     * Empty checker.
+     *
+     * @return True if no pairs are held.
+     */
+    boolean isEmpty();
+
+    /**
+     * Forgets every pair.
+     */
+    void clear();
+
+    /**
+     * Inserts a coordinate pair. When full, the oldest pair is overwritten.
+     *
+     * @param xVal x value to store.
+     * @param yVal y value to store.
+     */
+    void add(double xVal, double yVal);
+
+    /**
+     * Bulk insert of len coordinate pairs, equivalent to calling {@link #add(double, double)} for each in order.
+     *
+     * @param xs Source of x values.
+     * @param ys Source of y values.
+     * @param off Index of the first pair in xs and ys.
+     * @param len Number of pairs to insert.
+     * @return This instance for chain methods.
+     * @throws IndexOutOfBoundsException if [off, off + len) is outside either array.
+     */
+    PointBuffer addAll(double[] xs, double[] ys, int off, int len);
+
+    /**
+     * Retrieves the pair at a given index, 0 being the oldest. Mutates the cursor.
+     *
+     * @param index The index to retrieve.
+     * @return Point2D.Double holding the pair.
+     * @throws IndexOutOfBoundsException if index is outside [0, size).
+     */
+    Point2D.Double get(int index);
+
+    /**
+     * x value of the pair at a given index, 0 being the oldest, without allocating.
+     *
+     * @param index The index to read.
+     * @return x value at index.
+     * @throws IndexOutOfBoundsException if index is outside [0, size).
+     */
+    default double getX(int index) {
+        setCursor(index);
+        return cursorGetX();
+    }
+
+    /**
+     * y value of the pair at a given index, 0 being the oldest, without allocating.
+     *
+     * @param index The index to read.
+     * @return y value at index.
+     * @throws IndexOutOfBoundsException if index is outside [0, size).
+     */
+    default double getY(int index) {
+        setCursor(index);
+        return cursorGetY();
+    }
+
+    /**
+     * Hands every pair to action as primitives, oldest first. Nothing is allocated per pair.
+     *
+     * @param action Receives the pairs.
+     */
+    default void forEach(DoubleBiConsumer action) {
+        forEachRange(0, size(), action);
+    }
+
+    /**
+     * Hands the pairs at indices [from, to) to action as primitives, in order. Nothing is allocated per pair.
+     * The default implementation walks the cursor, so it moves it.
+     *
+     * @param from First index of the range.
+     * @param to Index one past the end of the range.
+     * @param action Receives the pairs.
+     * @throws IndexOutOfBoundsException if [from, to) is outside [0, size).
+     */
+    default void forEachRange(int from, int to, DoubleBiConsumer action) {
+        Objects.checkFromToIndex(from, to, size());
+        if (from == to) {
+            return;
+        }
+        setCursor(from);
+        for (int i = from; i < to; ++i) {
+            action.accept(cursorGetX(), cursorGetY());
+            advanceCursorWrapped();
+        }
+    }
+
+    /**
+     * Removes the oldest pair.
+     *
+     * @return Point2D.Double holding the removed pair, or null if empty.
+     */
+    Point2D.Double pop();
+
+    /**
+     * Sets the cursor to the given index, 0 being the oldest pair.
+     *
+     * @param index Logical position in [0, size).
+     * @throws IndexOutOfBoundsException if index is outside valid range.
+     */
+    void setCursor(int index);
+
+    /**
+     * Sets the cursor to the oldest pair.
+     *
+     * @return This instance for chain methods.
+     */
+    PointBuffer resetCursor();
+
+    /**
+     * Moves the cursor one pair forward, wrapping from the newest back to the oldest.
+     *
+     * @return This instance for chain methods.
+     */
+    PointBuffer advanceCursorWrapped();
+
+    /**
+     * Checks whether the cursor's logical position is still inside the held pairs.
+     *
+     * @return True when the cursor points at a valid pair.
+     */
+    boolean hasNext();
+
+    /**
+     * x value of the pair the cursor points at.
+     *
+     * @return x value at the cursor.
+     */
+    double cursorGetX();
+
+    /**
+     * y value of the pair the cursor points at.
+     *
+     * @return y value at the cursor.
+     */
+    double cursorGetY();
+}
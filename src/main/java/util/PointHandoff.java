@@ -0,0 +1,40 @@
+package util;
+
+/**
+ * A queue of (x, y) samples that moves data from producer threads to one consumer thread without locking.
+ * Producers never wait: when the queue is full the oldest samples are overwritten and counted as lost by
+ * the consumer.
+ */
+public interface PointHandoff {
+
+    /**
+     * Appends a sample. Never blocks.
+     *
+     * @param xVal x value of the sample.
+     * @param yVal y value of the sample.
+     */
+    void add(double xVal, double yVal);
+
+    /**
+     * Moves waiting samples into the destination arrays, up to their length. Consumer thread only.
+     *
+     * @param xs Destination for x values.
+     * @param ys Destination for y values, at least as long as xs.
+     * @return Number of samples written to the front of xs and ys.
+     */
+    int poll(double[] xs, double[] ys);
+
+    /**
+     * Number of samples overwritten before the consumer reached them. Consumer thread only.
+     *
+     * @return Lost sample count.
+     */
+    long getLostCount();
+
+    /**
+     * Number of samples the queue holds before producers start overwriting.
+     *
+     * @return Capacity in samples.
+     */
+    int getCapacity();
+}
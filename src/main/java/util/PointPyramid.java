@@ -0,0 +1,266 @@
+package util;
+
+/**
+ * Mipmap-style summary of a {@link CircularPointBuffer}'s y column. Level 0 splits the ring's physical slots
+ * into blocks of {@link #BASE_BLOCK} samples, and every level above halves the number of blocks. Each block
+ * records the slots of its minimum and maximum y; its first and last samples are simply its first and last
+ * slots, so they need no storage.
+ * <p>
+ * Appends write slots in order, so a block is summarized exactly once per lap, when its last slot is
+ * written, and completing the last child of a block completes the parent. This keeps maintenance at O(1)
+ * amortized per sample. The only blocks whose summaries may be out of date are the ones the write frontier
+ * is currently inside; queries descend into those instead of trusting them.
+ * </p>
+ */
+final class PointPyramid {
+    static final int BASE_SHIFT = 4;
+    static final int BASE_BLOCK = 1 << BASE_SHIFT;
+
+    private final int capacity;
+    private final int[][] minSlot; // [level][block]
+    private final int[][] maxSlot;
+
+    /**
+     * Parameterized constructor. Summaries start out undefined; call {@link #rebuild(double[])} or only
+     * query slots written after construction.
+     *
+     * @param capacity Capacity of the owning buffer.
+     */
+    PointPyramid(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        int levels = 1;
+        while (blockCount(levels - 1) > 1) {
+            ++levels;
+        }
+        minSlot = new int[levels][];
+        maxSlot = new int[levels][];
+        for (int level = 0; level < levels; ++level) {
+            minSlot[level] = new int[blockCount(level)];
+            maxSlot[level] = new int[blockCount(level)];
+        }
+    }
+
+    /**
+     * Notifies the pyramid that a single slot was written.
+     *
+     * @param slot Physical slot written.
+     * @param y y column of the owning buffer.
+     */
+    void written(int slot, double[] y) {
+        if ((slot & (BASE_BLOCK - 1)) == BASE_BLOCK - 1 || slot == capacity - 1) {
+            complete(slot >> BASE_SHIFT, y);
+        }
+    }
+
+    /**
+     * Notifies the pyramid that len consecutive slots starting at start were written, wrapping at capacity.
+     *
+     * @param start First physical slot written.
+     * @param len Number of slots written.
+     * @param y y column of the owning buffer.
+     */
+    void written(int start, int len, double[] y) {
+        int firstRun = Math.min(len, capacity - start);
+        writtenRun(start, start + firstRun, y);
+        writtenRun(0, len - firstRun, y);
+    }
+
+    /**
+     * Summarizes every block from the current column contents.
+     *
+     * @param y y column of the owning buffer.
+     */
+    void rebuild(double[] y) {
+        for (int block = 0; block < minSlot[0].length; ++block) {
+            summarizeBase(block, y);
+        }
+        for (int level = 1; level < minSlot.length; ++level) {
+            for (int block = 0; block < minSlot[level].length; ++block) {
+                summarizeFromChildren(level, block, y);
+            }
+        }
+    }
+
+    /**
+     * Visits the samples of physical slots [from, to) in order, replacing each block of at most
+     * BASE_BLOCK &lt;&lt; maxLevel samples that lies entirely inside the range by its first, minimum,
+     * maximum and last sample. Samples the summaries cannot vouch for are visited one by one.
+     *
+     * @param from First physical slot.
+     * @param to Physical slot one past the end, no smaller than from.
+     * @param frontier Physical slot the next append will write.
+     * @param maxLevel Coarsest level whose blocks may be summarized.
+     * @param x x column of the owning buffer.
+     * @param y y column of the owning buffer.
+     * @param action Receives the visited samples.
+     */
+    void forEach(int from, int to, int frontier, int maxLevel, double[] x, double[] y, DoubleBiConsumer action) {
+        int top = minSlot.length - 1;
+        for (int block = 0; block < minSlot[top].length; ++block) {
+            visit(top, block, from, to, frontier, maxLevel, x, y, action);
+        }
+    }
+
+    /**
+     * Smallest or largest y over physical slots [from, to) in O(log capacity): whole blocks answer from
+     * their summaries, and only the range edges and the block being overwritten are scanned, at most a base
+     * block each. NaN values are ignored.
+     *
+     * @param from First physical slot.
+     * @param to Physical slot one past the end, no smaller than from.
+     * @param frontier Physical slot the next append will write.
+     * @param maximum True for the maximum, false for the minimum.
+     * @param y y column of the owning buffer.
+     * @param identity Value returned when the range holds no comparable y.
+     * @return Extreme y of the range, or identity.
+     */
+    double extreme(int from, int to, int frontier, boolean maximum, double[] y, double identity) {
+        int top = minSlot.length - 1;
+        double best = identity;
+        for (int block = 0; block < minSlot[top].length; ++block) {
+            best = extreme(top, block, from, to, frontier, maximum, y, best);
+        }
+        return best;
+    }
+
+    private double extreme(int level, int block, int from, int to, int frontier, boolean maximum,
+                           double[] y, double best) {
+        int start = blockStart(level, block);
+        int end = blockEnd(level, block);
+        if (end <= from || start >= to) {
+            return best;
+        }
+        if (start >= from && end <= to && !(start < frontier && frontier < end)) {
+            return pick(best, y[maximum ? maxSlot[level][block] : minSlot[level][block]], maximum);
+        }
+        if (level == 0) {
+            for (int slot = Math.max(start, from); slot < Math.min(end, to); ++slot) {
+                best = pick(best, y[slot], maximum);
+            }
+            return best;
+        }
+        best = extreme(level - 1, 2 * block, from, to, frontier, maximum, y, best);
+        if (2 * block + 1 < minSlot[level - 1].length) {
+            best = extreme(level - 1, 2 * block + 1, from, to, frontier, maximum, y, best);
+        }
+        return best;
+    }
+
+    private static double pick(double best, double candidate, boolean maximum) {
+        return (maximum ? candidate > best : candidate < best) ? candidate : best;
+    }
+
+    private void visit(int level, int block, int from, int to, int frontier, int maxLevel,
+                       double[] x, double[] y, DoubleBiConsumer action) {
+        int start = blockStart(level, block);
+        int end = blockEnd(level, block);
+        if (end <= from || start >= to) {
+            return;
+        }
+        boolean inside = start >= from && end <= to;
+        boolean stale = start < frontier && frontier < end; // Partially rewritten since it was summarized
+        if (inside && !stale && level <= maxLevel) {
+            int low = Math.min(minSlot[level][block], maxSlot[level][block]);
+            int high = Math.max(minSlot[level][block], maxSlot[level][block]);
+            action.accept(x[start], y[start]);
+            if (low > start) {
+                action.accept(x[low], y[low]);
+            }
+            if (high > low) {
+                action.accept(x[high], y[high]);
+            }
+            if (end - 1 > high) {
+                action.accept(x[end - 1], y[end - 1]);
+            }
+            return;
+        }
+        if (level == 0) {
+            for (int slot = Math.max(start, from); slot < Math.min(end, to); ++slot) {
+                action.accept(x[slot], y[slot]);
+            }
+            return;
+        }
+        visit(level - 1, 2 * block, from, to, frontier, maxLevel, x, y, action);
+        if (2 * block + 1 < minSlot[level - 1].length) {
+            visit(level - 1, 2 * block + 1, from, to, frontier, maxLevel, x, y, action);
+        }
+    }
+
+    private void writtenRun(int from, int to, double[] y) {
+        for (int block = from >> BASE_SHIFT; block << BASE_SHIFT < to; ++block) {
+            if (blockEnd(0, block) <= to) {
+                complete(block, y);
+            }
+        }
+    }
+
+    /**
+     * Summarizes a base block whose last slot was just written, then every ancestor it was the last child of.
+     */
+    private void complete(int block, double[] y) {
+        summarizeBase(block, y);
+        int level = 0;
+        while (level + 1 < minSlot.length && ((block & 1) == 1 || block == minSlot[level].length - 1)) {
+            block >>= 1;
+            ++level;
+            summarizeFromChildren(level, block, y);
+        }
+    }
+
+    private void summarizeBase(int block, double[] y) {
+        int start = blockStart(0, block);
+        int end = blockEnd(0, block);
+        int min = start;
+        int max = start;
+        for (int slot = start + 1; slot < end; ++slot) {
+            if (isBelow(y[slot], y[min])) {
+                min = slot;
+            }
+            if (isAbove(y[slot], y[max])) {
+                max = slot;
+            }
+        }
+        minSlot[0][block] = min;
+        maxSlot[0][block] = max;
+    }
+
+    private void summarizeFromChildren(int level, int block, double[] y) {
+        int left = 2 * block;
+        int right = left + 1;
+        int min = minSlot[level - 1][left];
+        int max = maxSlot[level - 1][left];
+        if (right < minSlot[level - 1].length) {
+            if (isBelow(y[minSlot[level - 1][right]], y[min])) {
+                min = minSlot[level - 1][right];
+            }
+            if (isAbove(y[maxSlot[level - 1][right]], y[max])) {
+                max = maxSlot[level - 1][right];
+            }
+        }
+        minSlot[level][block] = min;
+        maxSlot[level][block] = max;
+    }
+
+    /**
+     * Whether candidate should replace current as the minimum. NaN only survives when nothing else is present.
+     */
+    private static boolean isBelow(double candidate, double current) {
+        return candidate < current || Double.isNaN(current);
+    }
+
+    private static boolean isAbove(double candidate, double current) {
+        return candidate > current || Double.isNaN(current);
+    }
+
+    private int blockCount(int level) {
+        return ((capacity - 1) >> (BASE_SHIFT + level)) + 1;
+    }
+
+    private static int blockStart(int level, int block) {
+        return block << (BASE_SHIFT + level);
+    }
+
+    private int blockEnd(int level, int block) {
+        return (int) Math.min(capacity, (long) (block + 1) << (BASE_SHIFT + level));
+    }
+}
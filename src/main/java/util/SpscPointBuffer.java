@@ -0,0 +1,151 @@
+package util;
+
+import lombok.Getter;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Lock-free single-producer/single-consumer ring of (x, y) pairs. Like {@link CircularPointBuffer}, the
+ * producer never waits: once the ring is full the oldest entries are overwritten. Readers detect entries
+ * that were overwritten while they were being copied and discard them, so every batch a reader sees is an
+ * ordered, untorn run of consecutive samples.
+ * <p>
+ * Exactly one thread may call {@link #add(double, double)}, and exactly one thread may call
+ * {@link #poll(double[], double[])}. {@link #snapshot(double[], double[])} does not move the consumer cursor
+ * and may be called from any thread.
+ * </p>
+ */
+public final class SpscPointBuffer implements PointHandoff {
+    private final double[] x;
+    private final double[] y;
+    private final int mask;
+    @Getter
+    private final int capacity;
+
+    private final PaddedSequence published; // Number of samples the producer has made visible
+    private final PaddedSequence consumed; // Next sequence the consumer will read; consumer-confined
+    private long lost; // Samples overwritten before the consumer reached them; consumer-confined
+
+    /**
+     * Parameterized constructor. Capacity is rounded up to the next power of two so that sequence to slot
+     * mapping is a single mask.
+     *
+     * @param capacity Minimum number of samples retained before the producer overwrites old ones.
+     * @throws IllegalArgumentException if capacity is less than 2.
+     */
+    public SpscPointBuffer(int capacity) {
+        if (capacity < 2 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity " + capacity + " must be in [2, 2^30]");
+        }
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.x = new double[this.capacity];
+        this.y = new double[this.capacity];
+        this.published = new PaddedSequence(0L);
+        this.consumed = new PaddedSequence(0L);
+    }
+
+    /**
+     * Appends a sample. Producer thread only. Never blocks and never allocates.
+     *
+     * @param xVal x value of the sample.
+     * @param yVal y value of the sample.
+     */
+    @Override
+    public void add(double xVal, double yVal) {
+        long seq = published.getPlain();
+        int slot = (int) seq & mask;
+        // Keep the stores below from becoming visible before the previous publication, otherwise a reader
+        // could observe a half overwritten slot while still seeing the old sequence.
+        VarHandle.storeStoreFence();
+        x[slot] = xVal;
+        y[slot] = yVal;
+        published.setRelease(seq + 1);
+    }
+
+    /**
+     * Total number of samples ever published by the producer.
+     *
+     * @return Published sequence.
+     */
+    public long getPublishedSequence() {
+        return published.getAcquire();
+    }
+
+    /**
+     * Number of samples the consumer has lost because the producer lapped it. Consumer thread only.
+     *
+     * @return Lost sample count.
+     */
+    @Override
+    public long getLostCount() {
+        return lost;
+    }
+
+    /**
+     * Copies every sample published since the previous poll, up to the length of the destination arrays,
+     * and advances the consumer cursor past them. Consumer thread only.
+     *
+     * @param xs Destination for x values.
+     * @param ys Destination for y values, at least as long as xs.
+     * @return Number of samples written to the front of xs and ys.
+     */
+    @Override
+    public int poll(double[] xs, double[] ys) {
+        long from = consumed.getPlain();
+        long to = published.getAcquire();
+        long oldest = to - capacity + 1;
+        if (from < oldest) {
+            lost += oldest - from;
+            from = oldest;
+        }
+        int count = (int) Math.min(to - from, xs.length);
+        int read = copyValidated(from, count, xs, ys);
+        long skipped = count - read;
+        lost += skipped;
+        consumed.setPlain(from + count);
+        return read;
+    }
+
+    /**
+     * Copies the most recent samples without moving the consumer cursor. The copy is ordered and consistent:
+     * samples the producer overwrote during the copy are dropped from the front of the result.
+     *
+     * @param xs Destination for x values.
+     * @param ys Destination for y values, at least as long as xs.
+     * @return Number of samples written to the front of xs and ys.
+     */
+    public int snapshot(double[] xs, double[] ys) {
+        long to = published.getAcquire();
+        int count = (int) Math.min(Math.min(to, capacity - 1), xs.length);
+        return copyValidated(to - count, count, xs, ys);
+    }
+
+    /**
+     * Copies count samples starting at sequence from, then re-reads the published sequence and discards any
+     * leading samples the producer may have overwritten while they were being read.
+     *
+     * @return Number of valid samples left at the front of xs and ys.
+     */
+    private int copyValidated(long from, int count, double[] xs, double[] ys) {
+        if (count <= 0) {
+            return 0;
+        }
+        int start = (int) from & mask;
+        int firstRun = Math.min(count, capacity - start);
+        System.arraycopy(x, start, xs, 0, firstRun);
+        System.arraycopy(y, start, ys, 0, firstRun);
+        System.arraycopy(x, 0, xs, firstRun, count - firstRun);
+        System.arraycopy(y, 0, ys, firstRun, count - firstRun);
+
+        VarHandle.loadLoadFence();
+        // The producer may already be writing the slot of the sequence it has not yet published.
+        long oldestIntact = published.getAcquire() - capacity + 1;
+        int torn = (int) Math.max(0L, Math.min(count, oldestIntact - from));
+        if (torn > 0) {
+            System.arraycopy(xs, torn, xs, 0, count - torn);
+            System.arraycopy(ys, torn, ys, 0, count - torn);
+        }
+        return count - torn;
+    }
+}
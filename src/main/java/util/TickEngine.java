@@ -0,0 +1,120 @@
+package util;
+
+import lombok.Getter;
+
+import java.util.Objects;
+
+/**
+ * Chooses "nice" tick values, 1, 2 or 5 times a power of ten apart, for one axis from its visible range and
+ * pixel length. The step is the smallest nice number that keeps neighboring ticks at least the requested
+ * number of pixels apart.
+ * <p>
+ * Output is written into an array that is reused across updates. An update whose range still yields the same
+ * step and the same first and last tick returns without recomputing, so an axis that scrolls or rescales
+ * slightly every frame only pays for a few comparisons until a tick enters or leaves the range.
+ * </p>
+ */
+public final class TickEngine {
+    /**
+     * Default minimum distance between neighboring ticks, in pixels.
+     */
+    public static final int DEFAULT_MIN_SPACING = 60;
+
+    private double[] ticks = new double[16];
+    @Getter private int count;
+    @Getter private double step;
+    @Getter private int fractionDigits;
+    @Getter private long recomputeCount;
+
+    private double min;
+    private double scale; // Pixels per unit of the latest update
+    private int pixels;
+    private int minSpacing;
+    private double rawLow; // The chosen step stays nice for raw steps in (rawLow, step]
+    private long firstIndex; // First and last tick as multiples of step
+    private long lastIndex;
+
+    /**
+     * Fits the ticks to a new visible range.
+     *
+     * @param min Value at the start of the axis.
+     * @param max Value at the end of the axis.
+     * @param pixels Length of the axis in pixels.
+     * @param minSpacing Minimum distance between neighboring ticks, in pixels.
+     * @return True if the tick values changed.
+     */
+    public boolean update(double min, double max, int pixels, int minSpacing) {
+        if (!(min < max) || Double.isInfinite(max - min) || pixels <= 0 || minSpacing <= 0) {
+            boolean changed = count != 0;
+            count = 0;
+            this.pixels = 0;
+            return changed;
+        }
+        this.min = min;
+        this.scale = pixels / (max - min);
+        double raw = (max - min) * minSpacing / pixels; // Step that puts ticks exactly minSpacing apart
+        if (pixels == this.pixels && minSpacing == this.minSpacing && raw > rawLow && raw <= step
+                && (long) Math.ceil(min / step) == firstIndex && (long) Math.floor(max / step) == lastIndex) {
+            return false;
+        }
+        this.pixels = pixels;
+        this.minSpacing = minSpacing;
+        chooseStep(raw);
+        firstIndex = (long) Math.ceil(min / step);
+        lastIndex = (long) Math.floor(max / step);
+        count = (int) (lastIndex - firstIndex + 1);
+        if (count > ticks.length) {
+            ticks = new double[Math.max(count, ticks.length * 2)];
+        }
+        for (int i = 0; i < count; ++i) {
+            ticks[i] = (firstIndex + i) * step; // Multiplied rather than summed, so no error accumulates
+        }
+        ++recomputeCount;
+        return true;
+    }
+
+    /**
+     * Value of a tick.
+     *
+     * @param index Tick index in [0, count).
+     * @return Tick value.
+     */
+    public double getTick(int index) {
+        Objects.checkIndex(index, count);
+        return ticks[index];
+    }
+
+    /**
+     * Distance of a tick from the start of the axis, for the range of the latest update.
+     *
+     * @param index Tick index in [0, count).
+     * @return Offset in pixels.
+     */
+    public int getPixelOffset(int index) {
+        return (int) ((getTick(index) - min) * scale);
+    }
+
+    /**
+     * Rounds a raw step up to 1, 2 or 5 times a power of ten, and records the fraction digits its labels need.
+     */
+    private void chooseStep(double raw) {
+        int exponent = (int) Math.floor(Math.log10(raw));
+        double magnitude = Math.pow(10, exponent);
+        double fraction = raw / magnitude;
+        if (fraction <= 1.0) {
+            step = magnitude;
+            rawLow = magnitude * 0.5;
+        } else if (fraction <= 2.0) {
+            step = 2 * magnitude;
+            rawLow = magnitude;
+        } else if (fraction <= 5.0) {
+            step = 5 * magnitude;
+            rawLow = 2 * magnitude;
+        } else {
+            step = 10 * magnitude;
+            rawLow = 5 * magnitude;
+            ++exponent;
+        }
+        fractionDigits = Math.max(0, -exponent);
+    }
+}
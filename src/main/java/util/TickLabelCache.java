@@ -0,0 +1,172 @@
+package util;
+
+import lombok.Getter;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.util.Arrays;
+
+/**
+ * Per-graph cache of formatted tick labels. Each label is formatted, measured and laid out into a
+ * {@link GlyphVector} once, keyed by tick value and precision, so repainting labels that are already known
+ * allocates nothing. Everything is dropped when the font or render context changes, and the cache is cleared
+ * once it fills up, which bounds its memory when the ticks keep moving.
+ * <p>
+ * Painting thread only.
+ * </p>
+ */
+public final class TickLabelCache {
+    /**
+     * Labels held per precision before the cache is cleared.
+     */
+    public static final int MAX_LABELS = 192;
+    private static final int SLOTS = 256; // Power of two, at most 3/4 full
+
+    private final Table intLabels = new Table();
+    private final Table doubleLabels = new Table();
+    private Font font;
+    private FontRenderContext renderContext;
+    private FontMetrics metrics;
+    @Getter private int ascent;
+    @Getter private long missCount;
+
+    /**
+     * Binds the cache to the font and render context labels are about to be drawn with, dropping every label
+     * laid out for a different one. Must be called before the labels of a frame are looked up.
+     *
+     * @param fm Metrics of the font labels are drawn in.
+     * @param frc Render context of the destination.
+     */
+    public void validate(FontMetrics fm, FontRenderContext frc) {
+        if (!fm.getFont().equals(font) || !frc.equals(renderContext)) {
+            clear();
+            font = fm.getFont();
+            renderContext = frc;
+            ascent = fm.getAscent();
+        }
+        metrics = fm;
+    }
+
+    /**
+     * Drops every cached label.
+     */
+    public void clear() {
+        intLabels.clear();
+        doubleLabels.clear();
+    }
+
+    /**
+     * Label of an integer tick, formatted like {@link String#valueOf(int)}.
+     *
+     * @param tick Tick value.
+     * @return Cached label, laid out for the font of the last {@link #validate(FontMetrics, FontRenderContext)}.
+     */
+    public Label get(int tick) {
+        Label label = intLabels.find(tick, 0);
+        return label != null ? label : intLabels.put(tick, 0, layout(String.valueOf(tick)));
+    }
+
+    /**
+     * Label of a double tick, formatted with two decimal places.
+     *
+     * @param tick Tick value.
+     * @return Cached label, laid out for the font of the last {@link #validate(FontMetrics, FontRenderContext)}.
+     */
+    public Label get(double tick) {
+        return get(tick, 2);
+    }
+
+    /**
+     * Label of a double tick, formatted with the given number of decimal places.
+     *
+     * @param tick Tick value.
+     * @param fractionDigits Decimal places shown.
+     * @return Cached label, laid out for the font of the last {@link #validate(FontMetrics, FontRenderContext)}.
+     */
+    public Label get(double tick, int fractionDigits) {
+        long key = Double.doubleToLongBits(tick);
+        Label label = doubleLabels.find(key, fractionDigits);
+        if (label == null) {
+            label = doubleLabels.put(key, fractionDigits, layout(String.format("%." + fractionDigits + "f", tick)));
+        }
+        return label;
+    }
+
+    /**
+     * Number of labels currently cached across both precisions.
+     *
+     * @return Cached label count.
+     */
+    public int size() {
+        return intLabels.size + doubleLabels.size;
+    }
+
+    private Label layout(String text) {
+        ++missCount;
+        return new Label(text, metrics.stringWidth(text), font.createGlyphVector(renderContext, text));
+    }
+
+    /**
+     * A formatted tick label with its advance width and pre-laid-out glyphs.
+     */
+    @Getter
+    public static final class Label {
+        private final String text;
+        private final int width;
+        private final GlyphVector glyphs;
+
+        private Label(String text, int width, GlyphVector glyphs) {
+            this.text = text;
+            this.width = width;
+            this.glyphs = glyphs;
+        }
+    }
+
+    /**
+     * Open addressing map from long keys and decimal places to labels, so lookups neither box nor allocate.
+     */
+    private static final class Table {
+        private final long[] keys = new long[SLOTS];
+        private final int[] digits = new int[SLOTS];
+        private final Label[] labels = new Label[SLOTS];
+        private int size;
+
+        private Label find(long key, int fractionDigits) {
+            for (int slot = hash(key); labels[slot] != null; slot = (slot + 1) & (SLOTS - 1)) {
+                if (keys[slot] == key && digits[slot] == fractionDigits) {
+                    return labels[slot];
+                }
+            }
+            return null;
+        }
+
+        private Label put(long key, int fractionDigits, Label label) {
+            if (size == MAX_LABELS) {
+                clear();
+            }
+            int slot = hash(key);
+            while (labels[slot] != null) {
+                slot = (slot + 1) & (SLOTS - 1);
+            }
+            keys[slot] = key;
+            digits[slot] = fractionDigits;
+            labels[slot] = label;
+            ++size;
+            return label;
+        }
+
+        private void clear() {
+            if (size > 0) {
+                Arrays.fill(labels, null);
+                size = 0;
+            }
+        }
+
+        private static int hash(long key) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed >>> 56);
+        }
+    }
+}
@@ -0,0 +1,457 @@
+import org.junit.jupiter.api.Test;
+import util.CircularPointBuffer;
+
+import java.awt.geom.Point2D;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestCircularPointBuffer {
+
+    @Test
+    void testWindowExtremaFollowEvictions() {
+        CircularPointBuffer buffer = new CircularPointBuffer(64).setWindowExtremaTracking(true);
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; ++i) {
+            if (random.nextInt(8) == 0) {
+                buffer.pop();
+            } else {
+                buffer.add(new Point2D.Double(random.nextGaussian(), random.nextGaussian() * 100));
+            }
+            assertWindowExtremaMatchScan(buffer);
+        }
+    }
+
+    @Test
+    void testWindowExtremaSurviveRearrangingOperations() {
+        CircularPointBuffer buffer = new CircularPointBuffer(8).setWindowExtremaTracking(true);
+        for (int i = 0; i < 12; ++i) {
+            buffer.add(new Point2D.Double(i, -i));
+        }
+        assertEquals(4.0, buffer.getWindowMinX());
+        assertEquals(-11.0, buffer.getWindowMinY());
+
+        buffer.remove(new Point2D.Double(11, -11));
+        assertWindowExtremaMatchScan(buffer);
+        buffer.setCapacity(3);
+        assertWindowExtremaMatchScan(buffer);
+        buffer.clear();
+        assertEquals(Double.POSITIVE_INFINITY, buffer.getWindowMinX());
+        assertEquals(Double.NEGATIVE_INFINITY, buffer.getWindowMaxY());
+    }
+
+    @Test
+    void testWindowExtremaIgnoreNaN() {
+        CircularPointBuffer buffer = new CircularPointBuffer(4).setWindowExtremaTracking(true);
+        buffer.add(new Point2D.Double(Double.NaN, 3.0));
+        buffer.add(new Point2D.Double(2.0, Double.NaN));
+        assertEquals(2.0, buffer.getWindowMinX());
+        assertEquals(2.0, buffer.getWindowMaxX());
+        assertEquals(3.0, buffer.getWindowMaxY());
+    }
+
+    @Test
+    void testWindowExtremaRequireTracking() {
+        CircularPointBuffer buffer = new CircularPointBuffer(4);
+        assertThrows(IllegalStateException.class, buffer::getWindowMinX);
+    }
+
+    @Test
+    void testBulkAddMatchesSequentialAdd() {
+        Random random = new Random(11);
+        CircularPointBuffer bulk = new CircularPointBuffer(50).setWindowExtremaTracking(true);
+        CircularPointBuffer sequential = new CircularPointBuffer(50);
+        for (int round = 0; round < 200; ++round) {
+            int len = random.nextInt(120);
+            int off = random.nextInt(5);
+            double[] xs = new double[off + len];
+            double[] ys = new double[off + len];
+            for (int i = 0; i < xs.length; ++i) {
+                xs[i] = random.nextDouble();
+                ys[i] = random.nextGaussian();
+            }
+            if (round % 2 == 0) {
+                bulk.addAll(xs, ys, off, len);
+            } else {
+                bulk.addAll(DoubleBuffer.wrap(xs, off, len), DoubleBuffer.wrap(ys, off, len));
+            }
+            for (int i = off; i < off + len; ++i) {
+                sequential.add(xs[i], ys[i]);
+            }
+            assertArrayEquals(sequential.toArray(), bulk.toArray());
+            assertWindowExtremaMatchScan(bulk);
+        }
+    }
+
+    @Test
+    void testBulkAddRejectsOutOfRangeSlice() {
+        CircularPointBuffer buffer = new CircularPointBuffer(4);
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.addAll(new double[3], new double[2], 0, 3));
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void testMonotonicXFollowsMixedOperations() {
+        Random random = new Random(5);
+        CircularPointBuffer buffer = new CircularPointBuffer(32);
+        double xVal = 0.0;
+        for (int i = 0; i < 20_000; ++i) {
+            int op = random.nextInt(40);
+            if (op == 0) {
+                buffer.pop();
+            } else if (op == 1) {
+                int len = random.nextInt(40);
+                double[] xs = new double[len];
+                for (int j = 0; j < len; ++j) {
+                    xs[j] = random.nextInt(20) == 0 ? xVal - 1.0 : (xVal += random.nextInt(3));
+                }
+                buffer.addAll(xs, new double[len], 0, len);
+            } else if (op == 2 && !buffer.isEmpty()) {
+                buffer.remove(buffer.get(random.nextInt(buffer.size())));
+            } else if (op == 3) {
+                buffer.setCapacity(16 + random.nextInt(32));
+            } else if (op == 4) {
+                buffer.add(Double.NaN, 0.0);
+            } else {
+                buffer.add(random.nextInt(50) == 0 ? xVal - 1.0 : (xVal += random.nextInt(3)), 0.0);
+            }
+            assertEquals(isSortedByX(buffer), buffer.isMonotonicX(), "After operation " + i);
+        }
+    }
+
+    @Test
+    void testBoundsSearchAcrossWrap() {
+        CircularPointBuffer buffer = new CircularPointBuffer(16);
+        for (int i = 0; i < 41; ++i) {
+            buffer.add(i / 2, i);
+        }
+        assertTrue(buffer.isMonotonicX());
+        for (double query = 10.0; query <= 21.0; query += 0.5) {
+            int lower = 0;
+            while (lower < buffer.size() && buffer.get(lower).getX() < query) {
+                ++lower;
+            }
+            int upper = lower;
+            while (upper < buffer.size() && buffer.get(upper).getX() <= query) {
+                ++upper;
+            }
+            assertEquals(lower, buffer.lowerBound(query), "lowerBound of " + query);
+            assertEquals(upper, buffer.upperBound(query), "upperBound of " + query);
+        }
+
+        buffer.add(0.0, 0.0);
+        assertFalse(buffer.isMonotonicX());
+        assertThrows(IllegalStateException.class, () -> buffer.lowerBound(5.0));
+    }
+
+    @Test
+    void testSummarizedWalkKeepsEndpointsAndExtrema() {
+        Random random = new Random(13);
+        CircularPointBuffer buffer = new CircularPointBuffer(1_000).setPyramidIndexing(true);
+        long sequence = 0;
+        for (int round = 0; round < 300; ++round) {
+            int op = random.nextInt(10);
+            if (op == 0) {
+                buffer.pop();
+            } else if (op == 1) {
+                int len = random.nextInt(300);
+                double[] xs = new double[len];
+                double[] ys = new double[len];
+                for (int i = 0; i < len; ++i) {
+                    xs[i] = sequence++;
+                    ys[i] = random.nextGaussian();
+                }
+                buffer.addAll(xs, ys, 0, len);
+            } else if (op == 2 && !buffer.isEmpty()) {
+                buffer.remove(buffer.get(random.nextInt(buffer.size())));
+            } else {
+                for (int i = random.nextInt(100); i > 0; --i) {
+                    buffer.add(sequence++, random.nextGaussian());
+                }
+            }
+            if (buffer.isEmpty()) {
+                continue;
+            }
+            int from = random.nextInt(buffer.size());
+            int to = from + random.nextInt(buffer.size() - from + 1);
+            for (int level = -1; level < 8; ++level) {
+                assertSummaryMatchesScan(buffer, from, to, level);
+            }
+        }
+    }
+
+    @Test
+    void testRangeExtremaMatchScanAcrossWrapAndResize() {
+        Random random = new Random(21);
+        CircularPointBuffer indexed = new CircularPointBuffer(500).setPyramidIndexing(true);
+        CircularPointBuffer scanned = new CircularPointBuffer(500);
+        for (int round = 0; round < 400; ++round) {
+            for (int i = random.nextInt(200); i > 0; --i) {
+                double yVal = random.nextInt(100) == 0 ? Double.NaN : random.nextGaussian();
+                indexed.add(round, yVal);
+                scanned.add(round, yVal);
+            }
+            if (round % 50 == 49) {
+                int newCapacity = 100 + random.nextInt(900);
+                indexed.setCapacity(newCapacity);
+                scanned.setCapacity(newCapacity);
+            }
+            if (indexed.isEmpty()) {
+                continue;
+            }
+            int from = random.nextInt(indexed.size());
+            int to = from + random.nextInt(indexed.size() - from + 1);
+            double minY = Double.POSITIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; ++i) {
+                double yVal = indexed.get(i).getY();
+                minY = yVal < minY ? yVal : minY;
+                maxY = yVal > maxY ? yVal : maxY;
+            }
+            assertEquals(minY, indexed.rangeMinY(from, to));
+            assertEquals(maxY, indexed.rangeMaxY(from, to));
+            assertEquals(minY, scanned.rangeMinY(from, to));
+            assertEquals(maxY, scanned.rangeMaxY(from, to));
+        }
+    }
+
+    private static void assertSummaryMatchesScan(CircularPointBuffer buffer, int from, int to, int level) {
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; ++i) {
+            minY = Math.min(minY, buffer.get(i).getY());
+            maxY = Math.max(maxY, buffer.get(i).getY());
+        }
+        double[] seen = {Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0, 0};
+        buffer.forEachSummarized(from, to, level, (xVal, yVal) -> {
+            assertTrue(xVal > seen[0], "Visited points must keep buffer order");
+            if (seen[4] == 0) {
+                seen[3] = xVal;
+            }
+            seen[0] = xVal;
+            seen[1] = Math.min(seen[1], yVal);
+            seen[2] = Math.max(seen[2], yVal);
+            ++seen[4];
+        });
+        if (from == to) {
+            assertEquals(0, seen[4]);
+            return;
+        }
+        assertEquals(buffer.get(from).getX(), seen[3], "First visited point");
+        assertEquals(buffer.get(to - 1).getX(), seen[0], "Last visited point");
+        assertEquals(minY, seen[1], "Minimum y at level " + level);
+        assertEquals(maxY, seen[2], "Maximum y at level " + level);
+        if (level < 0) {
+            assertEquals(to - from, seen[4]);
+        }
+    }
+
+    @Test
+    void testRangeVisitorMatchesIndexedAccessAcrossWrap() {
+        CircularPointBuffer buffer = new CircularPointBuffer(10);
+        for (int i = 0; i < 27; ++i) {
+            buffer.add(i, -i);
+        }
+        buffer.setCursor(4);
+        for (int from = 0; from <= buffer.size(); ++from) {
+            for (int to = from; to <= buffer.size(); ++to) {
+                List<Point2D.Double> visited = new ArrayList<>();
+                buffer.forEachRange(from, to, (xVal, yVal) -> visited.add(new Point2D.Double(xVal, yVal)));
+                assertEquals(to - from, visited.size());
+                for (int i = from; i < to; ++i) {
+                    assertEquals(buffer.getX(i), visited.get(i - from).getX());
+                    assertEquals(buffer.getY(i), visited.get(i - from).getY());
+                }
+            }
+        }
+        assertEquals(21.0, buffer.cursorGetX(), "Visitors and primitive getters leave the cursor alone");
+        double[] sum = {0.0};
+        buffer.forEach((xVal, yVal) -> sum[0] += xVal);
+        assertEquals(17 + 18 + 19 + 20 + 21 + 22 + 23 + 24 + 25 + 26, sum[0]);
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.forEachRange(3, 11, (xVal, yVal) -> { }));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.getY(10));
+    }
+
+    @Test
+    void testRemovalsMatchListModel() {
+        Random random = new Random(18);
+        CircularPointBuffer buffer = new CircularPointBuffer(40).setWindowExtremaTracking(true)
+                .setPyramidIndexing(true);
+        List<Point2D.Double> model = new ArrayList<>();
+        for (int step = 0; step < 3_000; ++step) {
+            int op = random.nextInt(12);
+            if (op < 6) {
+                // Mostly increasing x with occasional repeats and steps back
+                double xVal = step - random.nextInt(3);
+                double yVal = random.nextInt(10);
+                buffer.add(xVal, yVal);
+                model.add(new Point2D.Double(xVal, yVal));
+                if (model.size() > buffer.getCapacity()) {
+                    model.remove(0);
+                }
+            } else if (op < 8 && !model.isEmpty()) {
+                int from = random.nextInt(model.size() + 1);
+                int to = from + random.nextInt(model.size() - from + 1);
+                buffer.removeRange(from, to);
+                model.subList(from, to).clear();
+            } else if (op == 8 && !model.isEmpty()) {
+                Point2D.Double target = model.get(random.nextInt(model.size()));
+                assertTrue(buffer.remove(new Point2D.Double(target.getX(), target.getY())));
+                model.remove(target);
+            } else if (op == 9) {
+                double threshold = random.nextInt(10);
+                assertEquals(model.removeIf(p -> p.getY() > threshold), buffer.removeIf((xVal, yVal) -> yVal > threshold));
+            } else if (op == 10) {
+                List<Point2D.Double> targets = List.of(new Point2D.Double(step - 5, 3.0), new Point2D.Double(step - 9, 7.0));
+                assertEquals(model.removeAll(targets), buffer.removeAll(targets));
+            } else if (random.nextInt(4) == 0) {
+                List<Point2D.Double> keep = new ArrayList<>(model.subList(0, model.size() / 2));
+                assertEquals(model.retainAll(keep), buffer.retainAll(keep));
+            }
+            assertEquals(model.size(), buffer.size());
+            for (int i = 0; i < model.size(); ++i) {
+                assertEquals(model.get(i), buffer.get(i));
+            }
+            assertEquals(isSortedByX(buffer), buffer.isMonotonicX());
+            if (!buffer.isEmpty()) {
+                assertWindowExtremaMatchScan(buffer);
+                double maxY = model.stream().mapToDouble(Point2D.Double::getY).max().orElseThrow();
+                assertEquals(maxY, buffer.rangeMaxY(0, buffer.size()));
+            }
+        }
+    }
+
+    @Test
+    void testThrowingFilterLeavesBufferConsistent() {
+        CircularPointBuffer buffer = new CircularPointBuffer(16).setWindowExtremaTracking(true)
+                .setPyramidIndexing(true);
+        for (int i = 0; i < 20; ++i) {
+            buffer.add(i, i % 5);
+        }
+        RuntimeException failure = new IllegalStateException("filter failed");
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> buffer.removeIf((xVal, yVal) -> {
+            if (xVal == 12.0) {
+                throw failure;
+            }
+            return yVal == 0.0;
+        }));
+        assertSame(failure, thrown);
+
+        // Pairs before the failure were filtered, the failing pair and everything after it were kept
+        List<Double> expected = new ArrayList<>();
+        for (int i = 4; i < 20; ++i) {
+            if (i >= 12 || i % 5 != 0) {
+                expected.add((double) i);
+            }
+        }
+        assertEquals(expected.size(), buffer.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.get(i), buffer.getX(i));
+        }
+        assertTrue(buffer.isMonotonicX());
+        assertWindowExtremaMatchScan(buffer);
+        assertEquals(4.0, buffer.rangeMaxY(0, buffer.size()));
+    }
+
+    @Test
+    void testTrimmingNewestEndKeepsIndexesExact() {
+        Random random = new Random(1018);
+        CircularPointBuffer buffer = new CircularPointBuffer(300).setWindowExtremaTracking(true)
+                .setPyramidIndexing(true);
+        List<Point2D.Double> model = new ArrayList<>();
+        for (int step = 0; step < 2_000; ++step) {
+            if (random.nextInt(4) == 0 && !model.isEmpty()) {
+                int from = Math.max(0, model.size() - 1 - random.nextInt(20));
+                buffer.removeRange(from, model.size());
+                model.subList(from, model.size()).clear();
+            } else {
+                double yVal = random.nextGaussian() * 50;
+                buffer.add(step, yVal);
+                model.add(new Point2D.Double(step, yVal));
+                if (model.size() > buffer.getCapacity()) {
+                    model.remove(0);
+                }
+            }
+            assertEquals(model.size(), buffer.size());
+            if (!model.isEmpty()) {
+                assertWindowExtremaMatchScan(buffer);
+                int from = random.nextInt(model.size());
+                int to = from + 1 + random.nextInt(model.size() - from);
+                double minY = model.subList(from, to).stream().mapToDouble(Point2D.Double::getY).min().orElseThrow();
+                double maxY = model.subList(from, to).stream().mapToDouble(Point2D.Double::getY).max().orElseThrow();
+                assertEquals(minY, buffer.rangeMinY(from, to));
+                assertEquals(maxY, buffer.rangeMaxY(from, to));
+            }
+        }
+    }
+
+    @Test
+    void testGrowableBufferDoublesUpToMaximumThenOverwrites() {
+        CircularPointBuffer buffer = new CircularPointBuffer(4, 50).setWindowExtremaTracking(true)
+                .setPyramidIndexing(true);
+        buffer.add(-1, 0);
+        buffer.pop(); // Leaves head mid-array so the first growth has to unwrap
+        for (int i = 0; i < 30; ++i) {
+            buffer.add(i, -i);
+        }
+        assertEquals(30, buffer.size());
+        assertEquals(32, buffer.getCapacity());
+        assertTrue(buffer.isGrowable());
+        double[] xs = new double[40];
+        double[] ys = new double[40];
+        for (int i = 0; i < xs.length; ++i) {
+            xs[i] = 30 + i;
+            ys[i] = -30 - i;
+        }
+        buffer.addAll(xs, ys, 0, xs.length);
+        assertEquals(50, buffer.getCapacity());
+        assertFalse(buffer.isGrowable());
+        assertEquals(50, buffer.size());
+        for (int i = 0; i < 50; ++i) {
+            assertEquals(20.0 + i, buffer.getX(i));
+        }
+        assertTrue(buffer.isMonotonicX());
+        assertWindowExtremaMatchScan(buffer);
+        assertEquals(-69.0, buffer.rangeMinY(0, 50));
+
+        buffer.setCapacity(10); // A full-grown buffer is a fixed ring, and stays one when resized
+        assertEquals(10, buffer.getMaxCapacity());
+        buffer.add(100, 0);
+        assertEquals(10, buffer.size());
+        assertThrows(IllegalArgumentException.class, () -> buffer.setMaxCapacity(9));
+        assertThrows(IllegalArgumentException.class, () -> new CircularPointBuffer(8, 4));
+    }
+
+    private static boolean isSortedByX(CircularPointBuffer buffer) {
+        double previous = Double.NaN;
+        boolean first = true;
+        for (Point2D.Double p : buffer) {
+            if (!first && !(p.getX() >= previous)) {
+                return false;
+            }
+            first = false;
+            previous = p.getX();
+        }
+        return true;
+    }
+
+    private static void assertWindowExtremaMatchScan(CircularPointBuffer buffer) {
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (Point2D.Double p : buffer) {
+            minX = Math.min(minX, p.getX());
+            maxX = Math.max(maxX, p.getX());
+            minY = Math.min(minY, p.getY());
+            maxY = Math.max(maxY, p.getY());
+        }
+        assertEquals(minX, buffer.getWindowMinX());
+        assertEquals(maxX, buffer.getWindowMaxX());
+        assertEquals(minY, buffer.getWindowMinY());
+        assertEquals(maxY, buffer.getWindowMaxY());
+    }
+}
@@ -0,0 +1,157 @@
+import graph.LineGraph;
+import org.junit.jupiter.api.Test;
+import util.CircularPointBuffer;
+import util.CompactPointBuffer;
+import util.CompactPointBuffer.Encoding;
+import util.DrawConfig;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestCompactPointBuffer {
+
+    @Test
+    void testFloat32MatchesHeapBufferForFloatData() {
+        Random random = new Random(16);
+        runAgainstHeap(new CompactPointBuffer(45), random, () -> (float) random.nextGaussian());
+    }
+
+    @Test
+    void testImplicitXMatchesHeapBufferForRegularData() {
+        Random random = new Random(17);
+        double[] next = {1000.0};
+        runAgainstHeap(new CompactPointBuffer(45, Encoding.IMPLICIT_X, 0.5), random, () -> {
+            double xVal = next[0];
+            next[0] += 0.5;
+            return xVal;
+        });
+    }
+
+    @Test
+    void testDeltaOfDeltaMatchesHeapBufferForJitteredTimestamps() {
+        Random random = new Random(18);
+        double[] next = {1.7e12}; // Epoch milliseconds, far beyond float precision
+        runAgainstHeap(new CompactPointBuffer(150, Encoding.DELTA_OF_DELTA_X, 1.0), random, () -> {
+            double xVal = next[0];
+            next[0] += random.nextInt(20) == 0 ? random.nextInt(100_000) : 10 + random.nextInt(3);
+            return xVal;
+        });
+    }
+
+    @Test
+    void testRejectsValuesTheEncodingCannotHold() {
+        CompactPointBuffer implicit = new CompactPointBuffer(8, Encoding.IMPLICIT_X, 1.0);
+        implicit.add(5.0, 0.0);
+        implicit.add(6.0, 0.0);
+        assertThrows(IllegalArgumentException.class, () -> implicit.add(8.0, 0.0));
+        assertEquals(2, implicit.size());
+
+        CompactPointBuffer deltas = new CompactPointBuffer(8, Encoding.DELTA_OF_DELTA_X, 1.0);
+        for (double xVal : new double[]{Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 1e300}) {
+            assertThrows(IllegalArgumentException.class, () -> deltas.add(xVal, 0.0), "First x " + xVal);
+        }
+        assertTrue(deltas.isEmpty());
+        deltas.add(0.0, 0.0);
+        assertThrows(IllegalArgumentException.class, () -> deltas.add(Double.NaN, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> deltas.add(1e12, 0.0));
+        assertEquals(1, deltas.size());
+        assertThrows(IllegalArgumentException.class, () -> new CompactPointBuffer(0));
+        assertThrows(IllegalArgumentException.class, () -> new CompactPointBuffer(4, Encoding.FLOAT32, 0.0));
+    }
+
+    @Test
+    void testGraphOverCompactBufferDrawsLikeHeapGraph() {
+        CompactPointBuffer compact = new CompactPointBuffer(500, Encoding.DELTA_OF_DELTA_X, 1.0);
+        LineGraph compactGraph = new LineGraph(new DrawConfig().setShowTickMarks(false), compact);
+        LineGraph heapGraph = new LineGraph(new DrawConfig().setShowTickMarks(false), new CircularPointBuffer(500));
+        Random random = new Random(19);
+        double xVal = 1.7e12;
+        for (int i = 0; i < 800; ++i) {
+            double yVal = (float) Math.sin(i * 0.04); // Exactly what the float column keeps
+            compactGraph.insertData(xVal, yVal);
+            heapGraph.insertData(xVal, yVal);
+            xVal += 10 + random.nextInt(3);
+        }
+        for (LineGraph graph : List.of(compactGraph, heapGraph)) {
+            graph.setSize(360, 200);
+            graph.cropData(true);
+            graph.setRenderMode(LineGraph.RenderMode.MIN_MAX_DECIMATION);
+        }
+        BufferedImage expected = render(heapGraph);
+        BufferedImage actual = render(compactGraph);
+        for (int py = 0; py < expected.getHeight(); ++py) {
+            for (int px = 0; px < expected.getWidth(); ++px) {
+                assertEquals(expected.getRGB(px, py), actual.getRGB(px, py), "Pixel " + px + ", " + py);
+            }
+        }
+    }
+
+    private static BufferedImage render(LineGraph graph) {
+        BufferedImage image = new BufferedImage(graph.getWidth(), graph.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        graph.paint(g2);
+        g2.dispose();
+        return image;
+    }
+
+    /**
+     * Applies random adds, bulk adds, pops and clears to both buffers, with x drawn in order from nextX and
+     * float-representable y, then compares iteration, random access and a wrapped cursor walk.
+     */
+    private static void runAgainstHeap(CompactPointBuffer compact, Random random, XSource nextX) {
+        CircularPointBuffer heap = new CircularPointBuffer(compact.getCapacity());
+        for (int step = 0; step < 4_000; ++step) {
+            int op = random.nextInt(20);
+            if (op < 14) {
+                double xVal = nextX.next();
+                double yVal = (float) random.nextGaussian();
+                heap.add(xVal, yVal);
+                compact.add(xVal, yVal);
+            } else if (op < 17) {
+                int len = random.nextInt(2 * compact.getCapacity());
+                double[] xs = new double[len];
+                double[] ys = new double[len];
+                for (int i = 0; i < len; ++i) {
+                    xs[i] = nextX.next();
+                    ys[i] = (float) random.nextDouble();
+                }
+                heap.addAll(xs, ys, 0, len);
+                compact.addAll(xs, ys, 0, len);
+            } else if (op < 19) {
+                assertEquals(heap.pop(), compact.pop());
+            } else if (random.nextInt(8) == 0) {
+                heap.clear();
+                compact.clear();
+            }
+            assertEquals(heap.size(), compact.size());
+            Iterator<Point2D.Double> heapIt = heap.iterator();
+            for (Point2D.Double point : compact) {
+                assertEquals(heapIt.next(), point);
+            }
+            if (!heap.isEmpty()) {
+                int index = random.nextInt(heap.size());
+                assertEquals(heap.get(index), compact.get(index), "Index " + index);
+                for (int i = 0; i < heap.size() + 2; ++i) {
+                    if (heap.hasNext()) {
+                        assertEquals(heap.cursorGetX(), compact.cursorGetX());
+                        assertEquals(heap.cursorGetY(), compact.cursorGetY());
+                    }
+                    assertEquals(heap.hasNext(), compact.hasNext());
+                    heap.advanceCursorWrapped();
+                    compact.advanceCursorWrapped();
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface XSource {
+        double next();
+    }
+}
@@ -0,0 +1,207 @@
+import graph.BatchRenderer;
+import graph.GraphRenderer;
+import graph.RenderJob;
+import graph.RenderStats;
+import graph.LineGraph;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.DrawConfig;
+import util.ImagePool;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestGraphRenderer {
+    private LineGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new LineGraph(new DrawConfig().setShowGrid(true));
+        graph.setAutoTicks(true);
+        graph.cropData(true);
+        for (int i = 0; i < 500; ++i) {
+            graph.insertData(i, Math.sin(i * 0.05) * 40);
+        }
+    }
+
+    @Test
+    void testHeadlessRenderMatchesPaintingTheSizedComponent() {
+        BufferedImage target = new BufferedImage(320, 200, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage headless = new GraphRenderer().render(graph, target);
+        assertEquals(0, graph.getWidth(), "The component itself must not be resized");
+
+        graph.setSize(320, 200);
+        BufferedImage painted = new BufferedImage(320, 200, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = painted.createGraphics();
+        graph.paint(g2);
+        g2.dispose();
+        assertImagesEqual(painted, headless);
+    }
+
+    @Test
+    void testHeadlessRenderLeavesTheLiveGraphAlone() {
+        LineGraph live = new LineGraph(new DrawConfig().setShowTickMarks(false)).setScrollingRender(true);
+        live.cropData(true);
+        live.setSize(400, 200);
+        int x = 0;
+        for (; x < 300; ++x) {
+            live.insertData(x, x % 2); // Constant y range, so the layer never needs a rescale
+        }
+        paint(live);
+        for (int end = x + 5; x < end; ++x) {
+            live.insertData(x, x % 2);
+        }
+        paint(live);
+        assertEquals(1, live.getLayerRedrawCount(), "Appends must scroll the layer");
+        long frames = live.getRefreshScheduler().getFrameCount();
+        int margin = live.getMarginSize();
+        double xDelta = live.getXPixelsDelta();
+
+        GraphRenderer renderer = new GraphRenderer();
+        renderer.release(renderer.render(live, 160, 120));
+        assertEquals(frames, live.getRefreshScheduler().getFrameCount(), "Thumbnails are not screen frames");
+        assertEquals(margin, live.getMarginSize());
+        assertEquals(xDelta, live.getXPixelsDelta());
+
+        for (int end = x + 5; x < end; ++x) {
+            live.insertData(x, x % 2);
+        }
+        paint(live);
+        assertEquals(1, live.getLayerRedrawCount(), "A headless render must not discard the on-screen layer");
+    }
+
+    @Test
+    void testThumbnailLeavesOnScreenTicksAndLabelsAlone() {
+        graph.setSize(640, 400);
+        BufferedImage before = new BufferedImage(640, 400, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = before.createGraphics();
+        graph.paint(g2);
+        g2.dispose();
+        long xRecomputes = graph.getXTickEngine().getRecomputeCount();
+        double xStep = graph.getXTickEngine().getStep();
+        long labelMisses = graph.getTickLabelCache().getMissCount();
+
+        GraphRenderer renderer = new GraphRenderer();
+        renderer.release(renderer.render(graph, 240, 160));
+        assertEquals(xRecomputes, graph.getXTickEngine().getRecomputeCount(), "Thumbnail ticks are fitted apart");
+        assertEquals(xStep, graph.getXTickEngine().getStep());
+        assertEquals(labelMisses, graph.getTickLabelCache().getMissCount());
+
+        graph.getDrawConfig().setShowGrid(true); // Bump the revision so the static layer is redrawn
+        BufferedImage after = new BufferedImage(640, 400, BufferedImage.TYPE_INT_ARGB);
+        g2 = after.createGraphics();
+        graph.paint(g2);
+        g2.dispose();
+        assertImagesEqual(before, after);
+        assertEquals(labelMisses, graph.getTickLabelCache().getMissCount(), "On-screen labels must stay cached");
+    }
+
+    private static void paint(LineGraph lineGraph) {
+        BufferedImage image = new BufferedImage(lineGraph.getWidth(), lineGraph.getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        lineGraph.paint(g2);
+        g2.dispose();
+    }
+
+    @Test
+    void testRasterTargetHoldsTheSamePixelsAsAnImage() {
+        GraphRenderer renderer = new GraphRenderer();
+        BufferedImage image = renderer.render(graph, 160, 120);
+        int[] argb = new int[160 * 120 + 7];
+        renderer.render(graph, 160, 120, argb);
+        for (int py = 0; py < 120; ++py) {
+            for (int px = 0; px < 160; ++px) {
+                assertEquals(image.getRGB(px, py), argb[py * 160 + px]);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> renderer.render(graph, 160, 121, argb));
+    }
+
+    @Test
+    void testPooledImagesAreReusedPerSize() {
+        GraphRenderer renderer = new GraphRenderer(new ImagePool(2));
+        BufferedImage first = renderer.render(graph, 200, 100);
+        renderer.release(first);
+        BufferedImage second = renderer.render(graph, 200, 100);
+        assertSame(first, second);
+        BufferedImage other = renderer.render(graph, 100, 200);
+        assertNotSame(second, other);
+        assertEquals(2, renderer.getImagePool().getCreatedCount());
+        assertEquals(1, renderer.getImagePool().getReusedCount());
+    }
+
+    @Test
+    void testPngRoundTrips() throws Exception {
+        GraphRenderer renderer = new GraphRenderer();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderer.writePng(graph, 240, 160, out);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        BufferedImage expected = renderer.render(graph, 240, 160);
+        assertImagesEqual(expected, decoded);
+        assertEquals(1, renderer.getImagePool().getCreatedCount(), "The PNG image must have been recycled");
+    }
+
+    @Test
+    void testBatchRenderMatchesSequentialRendersAndReportsFailures() throws Exception {
+        List<RenderJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 40; ++i) {
+            int phase = i;
+            jobs.add(new RenderJob("chart-" + i, 200 + i % 3 * 10, 120, () -> waveGraph(phase)));
+        }
+        jobs.add(new RenderJob("broken", 200, 120, () -> {
+            throw new IllegalStateException("No data");
+        }));
+        Map<String, byte[]> written = new ConcurrentHashMap<>();
+        RenderStats stats;
+        try (BatchRenderer batch = new BatchRenderer(4)) {
+            stats = batch.renderAll(jobs, (job, png, length) -> written.put(job.getName(), Arrays.copyOf(png, length)));
+        }
+
+        assertEquals(40, stats.getChartCount());
+        assertEquals(List.of("broken"), stats.getFailedJobs());
+        assertInstanceOf(IllegalStateException.class, stats.getFirstFailure());
+        assertEquals(4, stats.getThreadCount());
+        assertTrue(stats.getMedianLatencyNanos() <= stats.getP99LatencyNanos());
+        assertTrue(stats.getP99LatencyNanos() <= stats.getMaxLatencyNanos());
+        assertTrue(stats.getChartsPerSecond() > 0.0);
+        assertEquals(written.values().stream().mapToLong(png -> png.length).sum(), stats.getBytesWritten());
+
+        GraphRenderer sequential = new GraphRenderer();
+        for (int i = 0; i < 40; ++i) {
+            BufferedImage expected = sequential.render(waveGraph(i), 200 + i % 3 * 10, 120);
+            assertImagesEqual(expected, ImageIO.read(new ByteArrayInputStream(written.get("chart-" + i))));
+            sequential.release(expected);
+        }
+    }
+
+    private static LineGraph waveGraph(int phase) {
+        LineGraph wave = new LineGraph(new DrawConfig());
+        wave.setAutoTicks(true);
+        wave.cropData(true);
+        for (int i = 0; i < 300; ++i) {
+            wave.insertData(i, Math.sin(i * 0.03 + phase));
+        }
+        return wave;
+    }
+
+    private static void assertImagesEqual(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int py = 0; py < expected.getHeight(); ++py) {
+            for (int px = 0; px < expected.getWidth(); ++px) {
+                assertEquals(expected.getRGB(px, py), actual.getRGB(px, py), "Pixel " + px + ", " + py);
+            }
+        }
+    }
+}
@@ -1,17 +1,25 @@
 import graph.LineGraph;
+import graph.Series;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import util.CircularPointBuffer;
 import util.DrawConfig;
+import util.TickEngine;
+import util.TickLabelCache;
 
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
 import java.awt.geom.Point2D;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -69,6 +77,79 @@ class TestLineGraph {
         assertDoesNotThrow(() -> graph.insertData(Double.NaN, Double.NaN), "Inserting NaN values should not throw");
     }
 
+    @Test
+    void testCroppedBoundsShrinkAsOldPointsAreOverwritten() {
+        graph.cropData(true);
+        assertEquals(6.0, graph.getYMaxVal());
+        for (int i = 0; i < graph.getDataBufferCapacity(); ++i) {
+            graph.insertData(10.0 + i, 3.0);
+        }
+        assertEquals(10.0, graph.getXMinVal(), "Evicted x values must no longer bound the graph");
+        assertEquals(3.0, graph.getYMaxVal(), "Evicted y values must no longer bound the graph");
+        assertEquals(3.0, graph.getYMinVal());
+    }
+
+    @Test
+    void testCapacityPolicyIsChosenUpFront() {
+        LineGraph fixed = new LineGraph(10);
+        LineGraph growing = new LineGraph(10, CircularPointBuffer.UNBOUNDED);
+        for (int i = 0; i < 1_000; ++i) {
+            fixed.insertData(i, i);
+            growing.insertData(i, i);
+        }
+        assertEquals(10, fixed.getDataSize());
+        assertEquals(1_000, growing.getDataSize(), "A growable graph retains every point");
+        growing.setMaxDataBufferCapacity(growing.getDataBufferCapacity());
+        for (int i = 1_000; i <= growing.getDataBufferCapacity(); ++i) {
+            growing.insertData(i, 0);
+        }
+        assertEquals(growing.getDataBufferCapacity(), growing.getDataSize(), "Capped growth overwrites");
+        fixed.setDataBufferCapacity(40);
+        assertEquals(40, fixed.getMaxDataBufferCapacity());
+    }
+
+    @Test
+    void testZoomedCroppedGraphAutoscalesY() {
+        LineGraph zoomed = new LineGraph(new DrawConfig().setShowTickMarks(false)).setPyramidIndexing(true);
+        for (int i = 0; i < 250; ++i) {
+            zoomed.insertData(i, i < 220 ? i : 1000 + i); // Wraps the buffer; the window holds y 200..219
+        }
+        zoomed.setSize(300, 200);
+        zoomed.cropData(true);
+        zoomed.setXWindow(200.0, 219.5);
+        render(zoomed);
+        assertEquals(200.0, zoomed.getYMinVal());
+        assertEquals(219.0, zoomed.getYMaxVal());
+
+        zoomed.clearXWindow();
+        assertEquals(150.0, zoomed.getYMinVal());
+        assertEquals(1249.0, zoomed.getYMaxVal());
+    }
+
+    @Test
+    void testBulkInsertWidensBounds() {
+        graph.insertData(new double[]{0.0, -3.0, 9.0, 7.0}, new double[]{Double.NaN, 4.0, -8.0, 12.0}, 1, 2);
+        assertEquals(listSize + 2, graph.getDataSize());
+        assertEquals(-3.0, graph.getXMinVal());
+        assertEquals(9.0, graph.getXMaxVal());
+        assertEquals(-8.0, graph.getYMinVal());
+        assertEquals(6.0, graph.getYMaxVal(), "Samples outside the slice must not widen bounds");
+    }
+
+    @Test
+    void testRefreshSchedulerCountsInsertsPerFrame() {
+        graph.setSize(200, 100);
+        render(graph);
+        for (int i = 0; i < 40; ++i) {
+            graph.insertData(i, i);
+        }
+        graph.insertData(new double[8], new double[8], 0, 8);
+        render(graph);
+        assertEquals(48, graph.getRefreshScheduler().getLastFrameInsertCount());
+        assertEquals(2, graph.getRefreshScheduler().getFrameCount());
+        assertThrows(IllegalArgumentException.class, () -> graph.setMaxFramesPerSecond(-1));
+    }
+
     @Test
     void testTickMarkConfigTicks() {
         defaultConfig.setXTickValues(new int[]{1, 2, 3});
@@ -84,6 +165,325 @@ class TestLineGraph {
         assertArrayEquals(new double[]{10.0, 20.0, 30.0}, defaultConfig.getDoubleYTicks(), 0.001);
     }
 
+    @Test
+    void testDecimatedRenderMatchesEveryPointRender() {
+        LineGraph dense = new LineGraph(defaultConfig.setShowGrid(false));
+        Random random = new Random(42);
+        double y = 0.0;
+        for (int i = 0; i < dense.getDataBufferCapacity(); ++i) {
+            y += random.nextGaussian();
+            dense.insertData(i, y);
+        }
+        dense.setSize(96, 160);
+        dense.cropData(true);
+
+        BufferedImage everyPoint = render(dense.setRenderMode(LineGraph.RenderMode.EVERY_POINT));
+        BufferedImage decimated = render(dense.setRenderMode(LineGraph.RenderMode.MIN_MAX_DECIMATION));
+
+        // M4 keeps every column's extremes, so the line covers exactly the same pixels; only blending may differ
+        int linePixels = 0;
+        int mismatched = 0;
+        for (int px = 0; px < everyPoint.getWidth(); ++px) {
+            for (int py = 0; py < everyPoint.getHeight(); ++py) {
+                boolean onLine = isLinePixel(everyPoint, px, py);
+                linePixels += onLine ? 1 : 0;
+                if (onLine != isLinePixel(decimated, px, py)) {
+                    ++mismatched;
+                }
+            }
+        }
+        assertTrue(linePixels > 100, "Only " + linePixels + " line pixels drawn");
+        assertEquals(0, mismatched, "Decimated line differs from the full line in " + mismatched + " pixels");
+    }
+
+    @Test
+    void testDownsampledRenderFollowsEveryPointRender() {
+        LineGraph smooth = new LineGraph(new DrawConfig().setShowTickMarks(false));
+        for (int i = 0; i < smooth.getDataBufferCapacity(); ++i) {
+            smooth.insertData(i, Math.sin(i * 0.1));
+        }
+        smooth.setSize(100, 160); // Fewer plot columns than points, so LTTB has to drop some
+        smooth.cropData(true);
+
+        BufferedImage everyPoint = render(smooth.setRenderMode(LineGraph.RenderMode.EVERY_POINT));
+        BufferedImage downsampled = render(smooth.setRenderMode(LineGraph.RenderMode.LARGEST_TRIANGLE_THREE_BUCKETS));
+        int unmatched = countUnmatchedLinePixels(downsampled, everyPoint);
+        assertTrue(unmatched < 20, "Downsampled line strays from the full line in " + unmatched + " pixels");
+    }
+
+    @Test
+    void testPyramidRenderMatchesPointByPointDecimation() {
+        LineGraph indexed = new LineGraph(new DrawConfig().setShowTickMarks(false)).setPyramidIndexing(true);
+        LineGraph plain = new LineGraph(new DrawConfig().setShowTickMarks(false));
+        Random random = new Random(17);
+        for (int i = 0; i < 250; ++i) { // Wraps the 100 point buffer
+            double yVal = Math.sin(i * 0.05) + random.nextGaussian() * 0.2;
+            indexed.insertData(i, yVal);
+            plain.insertData(i, yVal);
+        }
+        for (LineGraph lineGraph : List.of(indexed, plain)) {
+            lineGraph.setRenderMode(LineGraph.RenderMode.MIN_MAX_DECIMATION);
+            lineGraph.setSize(2 * lineGraph.getMarginSize() + 3, 200); // Over 16 points per column
+            lineGraph.cropData(true);
+        }
+        BufferedImage summarized = render(indexed);
+        BufferedImage everyPoint = render(plain);
+        int unmatched = countUnmatchedLinePixels(summarized, everyPoint) + countUnmatchedLinePixels(everyPoint, summarized);
+        assertTrue(unmatched < 10, "Pyramid render differs from point by point decimation in " + unmatched + " pixels");
+    }
+
+    @Test
+    void testStaticLayerRedrawsWhenConfigChanges() {
+        defaultConfig.setXTickValues(new int[]{0, 1, 2, 3, 4, 5})
+                .setYTickValues(new int[]{0, 1, 2, 3, 4, 5})
+                .setShowGrid(false);
+        graph.setSize(300, 200);
+        BufferedImage withoutGrid = render(graph);
+        assertEquals(withoutGrid.getRGB(150, 100), render(graph).getRGB(150, 100),
+                "Repainting unchanged graph must reproduce the same pixels");
+
+        defaultConfig.setShowGrid(true).setGridColor(Color.RED);
+        BufferedImage withGrid = render(graph);
+        int differing = 0;
+        for (int px = 0; px < withGrid.getWidth(); ++px) {
+            if (withGrid.getRGB(px, withGrid.getHeight() / 2) != withoutGrid.getRGB(px, withGrid.getHeight() / 2)) {
+                ++differing;
+            }
+        }
+        assertTrue(differing > 0, "Grid lines must appear once the config enables them");
+    }
+
+    @Test
+    void testTickLabelsAreLaidOutOnceUntilTheFontChanges() {
+        defaultConfig.setDoublePrecision(true)
+                .setXTickValues(new double[]{0.0, 1.5, 3.0, 4.5})
+                .setYTickValues(new double[]{0.0, 2.5, 5.0});
+        graph.setSize(300, 200);
+        TickLabelCache labels = graph.getTickLabelCache();
+        BufferedImage first = render(graph);
+        long misses = labels.getMissCount();
+        assertEquals(6, misses, "0.00 is shared by both axes");
+        assertEquals("1.50", labels.get(1.5).getText());
+
+        graph.invalidateStaticLayer();
+        BufferedImage second = render(graph);
+        assertEquals(misses, labels.getMissCount(), "Repainting the same ticks must reuse every label");
+        for (int px = 0; px < first.getWidth(); ++px) {
+            for (int py = 0; py < first.getHeight(); ++py) {
+                assertEquals(first.getRGB(px, py), second.getRGB(px, py));
+            }
+        }
+
+        graph.setGraphFont(new Font("Arial", Font.BOLD, 14));
+        render(graph);
+        assertEquals(2 * misses, labels.getMissCount(), "A new font must lay every label out again");
+    }
+
+    @Test
+    void testAutoTicksFollowCroppedDataBounds() {
+        LineGraph rolling = new LineGraph(200);
+        rolling.setAutoTicks(true);
+        rolling.cropData(true);
+        rolling.setSize(600, 300);
+        for (int i = 0; i < 1000; ++i) {
+            rolling.insertData(i * 0.5, Math.sin(i * 0.05));
+            if (i % 50 == 49) {
+                render(rolling);
+                TickEngine xTicks = rolling.getXTickEngine();
+                assertTrue(xTicks.getCount() > 1);
+                assertTrue(xTicks.getTick(0) >= rolling.getXMinVal(), "First tick left of the data at " + i);
+                assertTrue(xTicks.getTick(xTicks.getCount() - 1) <= rolling.getXMaxVal());
+                assertEquals(0.0, Math.IEEEremainder(xTicks.getTick(0), xTicks.getStep()), 1e-9);
+                assertTrue(rolling.getYTickEngine().getCount() > 0);
+            }
+        }
+    }
+
+    @Test
+    void testScrollingRenderTracksFullRender() {
+        LineGraph scrolling = new LineGraph(new DrawConfig().setShowTickMarks(false)).setScrollingRender(true);
+        LineGraph full = new LineGraph(new DrawConfig().setShowTickMarks(false));
+        for (LineGraph lineGraph : List.of(scrolling, full)) {
+            lineGraph.setSize(400, 200);
+            lineGraph.cropData(true);
+        }
+        for (int i = 0; i < 400; ++i) {
+            double yVal = Math.sin(i * 0.2);
+            scrolling.insertData(i, yVal);
+            full.insertData(i, yVal);
+            if (i % 7 == 0) {
+                BufferedImage expected = render(full);
+                BufferedImage actual = render(scrolling);
+                int unmatched = countUnmatchedLinePixels(actual, expected) + countUnmatchedLinePixels(expected, actual);
+                assertTrue(unmatched < 100, "Scrolled layer drifted from a full redraw after " + i + " points");
+            }
+        }
+    }
+
+    @Test
+    void testZoomedRenderOnlyDiffersOutsideThePlotArea() {
+        int[] yTicks = {0, 1, 2, 3, 4}; // Fixed y scale, since only cropped graphs autoscale to the window
+        LineGraph sorted = new LineGraph(new DrawConfig().setShowTickMarks(false).setYTickValues(yTicks));
+        LineGraph unsorted = new LineGraph(new DrawConfig().setShowTickMarks(false).setYTickValues(yTicks));
+        unsorted.insertData(1.0, 2.0); // Steps backwards into the data below, so nothing can be culled
+        for (int i = 0; i < 99; ++i) {
+            double yVal = 2.0 + Math.sin(i * 0.3);
+            sorted.insertData(i, yVal);
+            unsorted.insertData(i, yVal);
+        }
+        for (LineGraph lineGraph : List.of(sorted, unsorted)) {
+            lineGraph.setSize(400, 200);
+            lineGraph.setXWindow(40.0, 60.0);
+        }
+
+        BufferedImage culled = render(sorted);
+        BufferedImage complete = render(unsorted);
+        int unmatched = countUnmatchedLinePixels(culled, complete) + countUnmatchedLinePixels(complete, culled);
+        assertTrue(unmatched < 10, "Culled render differs from the complete one in " + unmatched + " pixels");
+
+        int margin = sorted.getMarginSize();
+        boolean reachesLeftEdge = false;
+        for (int py = 0; py < culled.getHeight(); ++py) {
+            assertFalse(isLinePixel(culled, margin - 2, py), "Line must be clipped to the plot area");
+            reachesLeftEdge |= isLinePixel(culled, margin + 1, py);
+        }
+        assertTrue(reachesLeftEdge, "Neighbor outside the window must connect the line to the plot edge");
+    }
+
+    @Test
+    void testGraphsSharingADrawConfigKeepTheirOwnLayout() {
+        DrawConfig shared = new DrawConfig().setXTickValues(new int[]{0, 10, 20}).setYTickValues(new int[]{0, 500});
+        LineGraph small = new LineGraph(shared).cropData(true);
+        LineGraph large = new LineGraph(shared).cropData(true);
+        for (int i = 0; i < 20; ++i) {
+            small.insertData(i, i);
+            large.insertData(i, 1000.0 * i); // Wider labels, so a wider margin
+        }
+        small.setSize(200, 100);
+        large.setSize(600, 300);
+        BufferedImage first = render(small);
+        render(large);
+        int revision = shared.getRevision();
+
+        render(large);
+        BufferedImage again = render(small);
+        render(large);
+        assertEquals(revision, shared.getRevision(), "Painting must not mutate a shared DrawConfig");
+        assertNotEquals(small.getXPixelsDelta(), large.getXPixelsDelta());
+        assertNotEquals(small.getMarginSize(), large.getMarginSize());
+        for (int px = 0; px < first.getWidth(); ++px) {
+            for (int py = 0; py < first.getHeight(); ++py) {
+                assertEquals(first.getRGB(px, py), again.getRGB(px, py), "Another graph changed this one's layout");
+            }
+        }
+    }
+
+    @Test
+    void testSeriesShareCroppedBounds() {
+        LineGraph shared = new LineGraph(8).cropData(true);
+        for (int i = 0; i < 5; ++i) {
+            shared.insertData(i, 1.0);
+        }
+        Series pressure = shared.addSeries("pressure", Color.RED, 4, 4);
+        pressure.insertData(new double[]{2.0, 3.0, 4.0, 9.0}, new double[]{-5.0, 0.0, 7.0, 2.0}, 0, 4);
+        assertEquals(0.0, shared.getXMinVal());
+        assertEquals(9.0, shared.getXMaxVal());
+        assertEquals(-5.0, shared.getYMinVal());
+        assertEquals(7.0, shared.getYMaxVal());
+
+        pressure.insertData(10.0, 2.0).insertData(11.0, 2.0); // Evicts (2, -5) and (3, 0)
+        assertEquals(11.0, shared.getXMaxVal());
+        assertEquals(1.0, shared.getYMinVal(), "Evicted series points must no longer bound the graph");
+
+        assertTrue(shared.removeSeries("pressure"));
+        assertEquals(4.0, shared.getXMaxVal());
+        assertEquals(1.0, shared.getYMaxVal());
+        assertEquals(0, shared.getSeriesCount());
+    }
+
+    @Test
+    void testSeriesAreDrawnInTheirOwnColorsInOnePass() {
+        LineGraph shared = new LineGraph(new DrawConfig().setShowTickMarks(false)).cropData(true);
+        shared.setSize(400, 200);
+        Series red = shared.addSeries("red", Color.RED);
+        Series blue = shared.addSeries("blue", Color.BLUE).setThickness(3.0f);
+        for (int i = 0; i < 50; ++i) {
+            shared.insertData(i, i % 2 == 0 ? 0.0 : 1.0); // Widens the shared y range below the other series
+            red.insertData(i, 2.0);
+            blue.insertData(i, 3.0 + (i % 2));
+        }
+
+        BufferedImage image = render(shared);
+        int column = image.getWidth() / 2;
+        int greenRow = findRow(image, column, Color.GREEN);
+        int redRow = findRow(image, column, Color.RED);
+        int blueRow = findRow(image, column, Color.BLUE);
+        assertTrue(greenRow > redRow && redRow > blueRow,
+                "Series must share the y-axis: green " + greenRow + ", red " + redRow + ", blue " + blueRow);
+    }
+
+    @Test
+    void testSeriesNamesAreUniqueAndRemovedSeriesRejectInserts() {
+        Series series = graph.addSeries("temperature", Color.RED);
+        assertSame(series, graph.getSeries("temperature"));
+        assertThrows(IllegalArgumentException.class, () -> graph.addSeries("temperature", Color.BLUE));
+
+        assertTrue(graph.removeSeries("temperature"));
+        assertFalse(graph.removeSeries("temperature"));
+        assertNull(graph.getSeries("temperature"));
+        assertThrows(IllegalStateException.class, () -> series.insertData(1.0, 1.0));
+    }
+
+    /**
+     * First row of a column whose pixel is dominated by the single channel of a pure color, or -1.
+     * Antialiasing blends the line edges, so the exact color cannot be matched.
+     */
+    private static int findRow(BufferedImage image, int px, Color color) {
+        for (int py = 0; py < image.getHeight(); ++py) {
+            int rgb = image.getRGB(px, py);
+            boolean matches = true;
+            for (int shift = 0; shift < 24; shift += 8) {
+                boolean wanted = ((color.getRGB() >> shift) & 0xFF) != 0;
+                int channel = (rgb >> shift) & 0xFF;
+                matches &= wanted ? channel > 160 : channel < 96;
+            }
+            if (matches) {
+                return py;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Counts strongly green pixels of actual with no strongly green pixel in the same row of expected within
+     * one column. Scrolling happens in whole pixels, so a scrolled layer may lag a full redraw by a column.
+     */
+    private static int countUnmatchedLinePixels(BufferedImage actual, BufferedImage expected) {
+        int unmatched = 0;
+        for (int px = 1; px < actual.getWidth() - 1; ++px) {
+            for (int py = 0; py < actual.getHeight(); ++py) {
+                if (isLinePixel(actual, px, py) && !isLinePixel(expected, px - 1, py)
+                        && !isLinePixel(expected, px, py) && !isLinePixel(expected, px + 1, py)) {
+                    ++unmatched;
+                }
+            }
+        }
+        return unmatched;
+    }
+
+    private static boolean isLinePixel(BufferedImage image, int px, int py) {
+        int rgb = image.getRGB(px, py);
+        return ((rgb >> 8) & 0xFF) > 160 && ((rgb >> 16) & 0xFF) < 96;
+    }
+
+    private static BufferedImage render(LineGraph lineGraph) {
+        BufferedImage image = new BufferedImage(lineGraph.getWidth(), lineGraph.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        lineGraph.paint(g2);
+        g2.dispose();
+        return image;
+    }
+
     @Disabled("Disabled for CI/CD GitHub Actions because it opens GUI window")
     @Test
     void testDataVisualInt() throws InterruptedException {
@@ -0,0 +1,157 @@
+import org.junit.jupiter.api.Test;
+import util.CircularPointBuffer;
+import util.LttbDownsampler;
+import util.OffHeapPointBuffer;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestLttbDownsampler {
+
+    @Test
+    void testRangeDownsampleMatchesReferenceLttb() {
+        Random random = new Random(3);
+        CircularPointBuffer buffer = new CircularPointBuffer(1000);
+        double[] xs = new double[1500];
+        double[] ys = new double[1500];
+        for (int i = 0; i < xs.length; ++i) {
+            xs[i] = i;
+            ys[i] = random.nextGaussian();
+            buffer.add(xs[i], ys[i]);
+        }
+        int offset = xs.length - buffer.size(); // Oldest 500 were overwritten, so the ring has wrapped
+
+        double[] outX = new double[50];
+        double[] outY = new double[50];
+        int count = LttbDownsampler.downsample(buffer, 100, 900, 50, outX, outY);
+        double[][] expected = referenceLttb(xs, ys, offset + 100, offset + 900, 50);
+        assertEquals(expected[0].length, count);
+        for (int i = 0; i < count; ++i) {
+            assertEquals(expected[0][i], outX[i], "x of point " + i);
+            assertEquals(expected[1][i], outY[i], "y of point " + i);
+        }
+    }
+
+    @Test
+    void testRangeDownsampleReadsAnyPointBuffer() {
+        Random random = new Random(4);
+        CircularPointBuffer heap = new CircularPointBuffer(700);
+        try (OffHeapPointBuffer offHeap = new OffHeapPointBuffer(700)) {
+            for (int i = 0; i < 1000; ++i) {
+                double yVal = random.nextGaussian();
+                heap.add(i, yVal);
+                offHeap.add(i, yVal);
+            }
+            double[] expectedX = new double[40];
+            double[] expectedY = new double[40];
+            double[] outX = new double[40];
+            double[] outY = new double[40];
+            for (int[] range : new int[][]{{0, 700}, {13, 520}, {600, 630}}) {
+                int count = LttbDownsampler.downsample(heap, range[0], range[1], 40, expectedX, expectedY);
+                assertEquals(count, LttbDownsampler.downsample(offHeap, range[0], range[1], 40, outX, outY));
+                for (int i = 0; i < count; ++i) {
+                    assertEquals(expectedX[i], outX[i], "x of point " + i);
+                    assertEquals(expectedY[i], outY[i], "y of point " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testShortRangeIsCopied() {
+        CircularPointBuffer buffer = new CircularPointBuffer(8);
+        for (int i = 0; i < 5; ++i) {
+            buffer.add(i, -i);
+        }
+        double[] outX = new double[10];
+        double[] outY = new double[10];
+        assertEquals(5, new LttbDownsampler(buffer, 10).downsample(outX, outY));
+        assertEquals(4.0, outX[4]);
+        assertEquals(-4.0, outY[4]);
+    }
+
+    @Test
+    void testIncrementalMatchesFreshDownsamplerBeforeWrap() {
+        Random random = new Random(9);
+        CircularPointBuffer buffer = new CircularPointBuffer(20_000);
+        LttbDownsampler streaming = new LttbDownsampler(buffer, 200);
+        double[] outX = new double[200];
+        double[] outY = new double[200];
+        double[] freshX = new double[200];
+        double[] freshY = new double[200];
+        for (int i = 0; i < buffer.getCapacity(); ++i) {
+            buffer.add(i, random.nextGaussian());
+            if (i % 997 == 0) {
+                int count = streaming.downsample(outX, outY);
+                int freshCount = new LttbDownsampler(buffer, 200).downsample(freshX, freshY);
+                assertEquals(freshCount, count);
+                for (int j = 0; j < count; ++j) {
+                    assertEquals(freshX[j], outX[j]);
+                    assertEquals(freshY[j], outY[j]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testStreamingOutputStaysWithinThresholdAndOrder() {
+        CircularPointBuffer buffer = new CircularPointBuffer(5_000);
+        LttbDownsampler downsampler = new LttbDownsampler(buffer, 100);
+        double[] outX = new double[100];
+        double[] outY = new double[100];
+        for (int i = 0; i < 40_000; ++i) {
+            buffer.add(i, Math.sin(i * 0.01));
+            if (i % 333 == 0) {
+                int count = downsampler.downsample(outX, outY);
+                assertTrue(count <= 100, "Produced " + count + " points");
+                assertEquals(buffer.get(0).getX(), outX[0]);
+                assertEquals(i, outX[count - 1]);
+                for (int j = 1; j < count; ++j) {
+                    assertTrue(outX[j] > outX[j - 1], "Points must stay in buffer order");
+                }
+            }
+        }
+        buffer.setCapacity(1_000);
+        assertTrue(downsampler.downsample(outX, outY) <= 100);
+    }
+
+    /**
+     * Textbook LTTB over plain arrays.
+     */
+    private static double[][] referenceLttb(double[] xs, double[] ys, int from, int to, int threshold) {
+        int length = to - from;
+        double[][] out = new double[2][threshold];
+        double every = (double) (length - 2) / (threshold - 2);
+        int a = from;
+        out[0][0] = xs[a];
+        out[1][0] = ys[a];
+        for (int i = 0; i < threshold - 2; ++i) {
+            int avgStart = from + (int) ((i + 1) * every) + 1;
+            int avgEnd = Math.min(from + (int) ((i + 2) * every) + 1, to);
+            double avgX = 0.0;
+            double avgY = 0.0;
+            for (int j = avgStart; j < avgEnd; ++j) {
+                avgX += xs[j];
+                avgY += ys[j];
+            }
+            avgX /= avgEnd - avgStart;
+            avgY /= avgEnd - avgStart;
+            double maxArea = -1.0;
+            int next = a;
+            for (int j = from + (int) (i * every) + 1; j < avgStart; ++j) {
+                double area = Math.abs((xs[a] - avgX) * (ys[j] - ys[a]) - (xs[a] - xs[j]) * (avgY - ys[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            a = next;
+            out[0][i + 1] = xs[a];
+            out[1][i + 1] = ys[a];
+        }
+        out[0][threshold - 1] = xs[to - 1];
+        out[1][threshold - 1] = ys[to - 1];
+        return out;
+    }
+}
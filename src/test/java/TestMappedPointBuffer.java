@@ -0,0 +1,287 @@
+import graph.LineGraph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import util.CircularPointBuffer;
+import util.DrawConfig;
+import util.MappedPointBuffer;
+import util.PointBuffer;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestMappedPointBuffer {
+    private static final long HEADER_BYTES = 64;
+    private static final long FIRST_OFFSET = 16; // Header field holding the sequence of the oldest pair
+    private static final long APPENDED_OFFSET = 24; // Header field holding the committed append count
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testContentsSurviveReopen() throws IOException {
+        Path file = dir.resolve("history.points");
+        try (MappedPointBuffer buffer = new MappedPointBuffer(file, 100)) {
+            for (int i = 0; i < 250; ++i) {
+                buffer.add(i, -i);
+            }
+            buffer.pop();
+        }
+        try (MappedPointBuffer reopened = new MappedPointBuffer(file, 100)) {
+            assertEquals(99, reopened.size());
+            assertEquals(new Point2D.Double(151, -151), reopened.get(0));
+            assertEquals(new Point2D.Double(249, -249), reopened.get(98));
+            reopened.add(250, -250);
+            assertEquals(new Point2D.Double(250, -250), reopened.get(99));
+        }
+    }
+
+    @Test
+    void testMatchesHeapBufferAcrossReopens() throws IOException {
+        Random random = new Random(15);
+        Path file = dir.resolve("random.points");
+        PointBuffer heap = new CircularPointBuffer(29);
+        MappedPointBuffer mapped = new MappedPointBuffer(file, 29);
+        for (int step = 0; step < 5_000; ++step) {
+            int op = random.nextInt(20);
+            if (op < 12) {
+                double xVal = random.nextDouble();
+                double yVal = random.nextGaussian();
+                heap.add(xVal, yVal);
+                mapped.add(xVal, yVal);
+            } else if (op < 16) {
+                int len = random.nextInt(70);
+                double[] xs = new double[len];
+                double[] ys = new double[len];
+                for (int i = 0; i < len; ++i) {
+                    xs[i] = random.nextDouble();
+                    ys[i] = random.nextDouble();
+                }
+                heap.addAll(xs, ys, 0, len);
+                mapped.addAll(xs, ys, 0, len);
+            } else if (op < 18) {
+                assertEquals(heap.pop(), mapped.pop());
+            } else if (op == 18) {
+                mapped.close();
+                mapped = new MappedPointBuffer(file, 29);
+            } else if (random.nextInt(10) == 0) {
+                heap.clear();
+                mapped.clear();
+            }
+            assertSameContents(heap, mapped);
+        }
+        mapped.close();
+    }
+
+    @Test
+    void testUncommittedAppendsRollForward() throws IOException {
+        Path file = dir.resolve("crash.points");
+        try (MappedPointBuffer buffer = new MappedPointBuffer(file, 10)) {
+            for (int i = 0; i < 14; ++i) {
+                buffer.add(i, i);
+            }
+            buffer.force();
+        }
+        writeLong(file, APPENDED_OFFSET, 11); // As if the writer died before committing the last 3 pairs
+        try (MappedPointBuffer reopened = new MappedPointBuffer(file, 10)) {
+            assertEquals(10, reopened.size());
+            assertEquals(4.0, reopened.get(0).getX());
+            assertEquals(13.0, reopened.get(9).getX());
+        }
+    }
+
+    @Test
+    void testGraphRedrawsTheSameChartAfterRestart() throws IOException {
+        Path file = dir.resolve("chart.points");
+        BufferedImage before;
+        double yMax;
+        try (MappedPointBuffer buffer = new MappedPointBuffer(file, 400)) {
+            LineGraph graph = chart(buffer);
+            for (int i = 0; i < 700; ++i) {
+                graph.insertData(i, i < 300 ? 50.0 : Math.cos(i * 0.05));
+            }
+            before = render(graph);
+            yMax = graph.getYMaxVal();
+            assertTrue(yMax <= 1.0, "Overwritten pairs must leave the cropped bounds");
+        }
+        try (MappedPointBuffer reopened = new MappedPointBuffer(file, 400)) {
+            LineGraph restarted = chart(reopened);
+            assertEquals(400, restarted.getDataSize());
+            BufferedImage after = render(restarted);
+            assertEquals(yMax, restarted.getYMaxVal());
+            for (int py = 0; py < before.getHeight(); ++py) {
+                for (int px = 0; px < before.getWidth(); ++px) {
+                    assertEquals(before.getRGB(px, py), after.getRGB(px, py), "Pixel " + px + ", " + py);
+                }
+            }
+        }
+    }
+
+    private static LineGraph chart(PointBuffer buffer) {
+        LineGraph graph = new LineGraph(new DrawConfig().setShowTickMarks(false), buffer);
+        graph.setSize(320, 200);
+        graph.cropData(true);
+        return graph;
+    }
+
+    private static BufferedImage render(LineGraph graph) {
+        BufferedImage image = new BufferedImage(graph.getWidth(), graph.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        graph.paint(g2);
+        g2.dispose();
+        return image;
+    }
+
+    @Test
+    void testBulkInsertCrashLosesAtMostTheRunBeingWritten() throws IOException {
+        int capacity = 3_000;
+        Path file = dir.resolve("bulk.points");
+        double[] xs = new double[2_500];
+        double[] ys = new double[2_500];
+        for (int i = 0; i < xs.length; ++i) {
+            xs[i] = 100 + i;
+            ys[i] = -(100 + i);
+        }
+        try (MappedPointBuffer buffer = new MappedPointBuffer(file, capacity)) {
+            for (int i = 0; i < 100; ++i) {
+                buffer.add(i, -i);
+            }
+            buffer.addAll(xs, ys, 0, xs.length);
+            buffer.force();
+        }
+        // As if the writer died while tagging the second run: only the first run was committed, the second
+        // is tagged up to torn, and the third was never started
+        long committed = 100 + MappedPointBuffer.BULK_RUN;
+        long torn = committed + 300;
+        writeLong(file, APPENDED_OFFSET, committed);
+        writeTags(file, capacity, torn, 2_600 - torn, -1);
+        try (MappedPointBuffer reopened = new MappedPointBuffer(file, capacity)) {
+            assertEquals(torn, reopened.size());
+            assertEquals(new Point2D.Double(0, 0), reopened.get(0));
+            assertEquals(new Point2D.Double(torn - 1, -(torn - 1)), reopened.get((int) torn - 1));
+        }
+    }
+
+    @Test
+    void testOversizedBulkInsertCrashKeepsUnreachedHistory() throws IOException {
+        int capacity = 3_000;
+        Path file = dir.resolve("oversized.points");
+        double[] xs = new double[5_000];
+        double[] ys = new double[5_000];
+        Arrays.fill(xs, 1e6);
+        try (MappedPointBuffer buffer = new MappedPointBuffer(file, capacity)) {
+            for (int i = 0; i < 2_000; ++i) {
+                buffer.add(i, -i);
+            }
+            buffer.addAll(xs, ys, 0, xs.length);
+            assertEquals(capacity, buffer.size());
+            assertEquals(1e6, buffer.get(0).getX());
+            buffer.force();
+        }
+        // As if the writer died while copying the first run, which replaces the oldest pairs
+        writeLong(file, FIRST_OFFSET, 0);
+        writeLong(file, APPENDED_OFFSET, 2_000);
+        writeTags(file, capacity, 0, MappedPointBuffer.BULK_RUN, -1);
+        for (int i = MappedPointBuffer.BULK_RUN; i < 2_000; ++i) {
+            writePair(file, capacity, i, i, -i); // Not yet reached by the interrupted run
+        }
+        try (MappedPointBuffer reopened = new MappedPointBuffer(file, capacity)) {
+            assertEquals(2_000 - MappedPointBuffer.BULK_RUN, reopened.size(), "Pairs the run had not reached survive");
+            assertEquals(new Point2D.Double(1024, -1024), reopened.get(0));
+        }
+    }
+
+    @Test
+    void testReopenedEmptyFileStaysEmpty() throws IOException {
+        Path file = dir.resolve("empty.points");
+        new MappedPointBuffer(file, 8).close();
+        try (MappedPointBuffer reopened = new MappedPointBuffer(file, 8)) {
+            assertTrue(reopened.isEmpty(), "No slot may pass for the first pair before it is appended");
+            reopened.add(1, 2);
+        }
+        try (MappedPointBuffer reopened = new MappedPointBuffer(file, 8)) {
+            assertEquals(1, reopened.size());
+            assertEquals(new Point2D.Double(1, 2), reopened.get(0));
+        }
+    }
+
+    @Test
+    void testFileGrownButNeverFormattedIsFormatted() throws IOException {
+        int capacity = 8;
+        Path file = dir.resolve("unformatted.points");
+        Files.write(file, new byte[(int) (HEADER_BYTES + 3L * capacity * Double.BYTES)]); // Stopped after growing
+        try (MappedPointBuffer buffer = new MappedPointBuffer(file, capacity)) {
+            assertTrue(buffer.isEmpty());
+            buffer.add(3, 4);
+        }
+        try (MappedPointBuffer reopened = new MappedPointBuffer(file, capacity)) {
+            assertEquals(1, reopened.size());
+            assertEquals(new Point2D.Double(3, 4), reopened.get(0));
+        }
+    }
+
+    @Test
+    void testRejectsForeignOrMismatchedFiles() throws IOException {
+        Path file = dir.resolve("sized.points");
+        new MappedPointBuffer(file, 16).close();
+        assertThrows(IOException.class, () -> new MappedPointBuffer(file, 32));
+
+        Path foreign = dir.resolve("foreign.txt");
+        Files.write(foreign, new byte[128]);
+        assertThrows(IOException.class, () -> new MappedPointBuffer(foreign, 4));
+    }
+
+    /**
+     * Overwrites the sequence tags of count slots starting at the slot of sequence from.
+     */
+    private static void writeTags(Path file, int capacity, long from, long count, long value) throws IOException {
+        for (long sequence = from; sequence < from + count; ++sequence) {
+            writeLong(file, tagOffset(capacity, sequence), value);
+        }
+    }
+
+    /**
+     * Writes a pair into the slot of its sequence and tags it as written.
+     */
+    private static void writePair(Path file, int capacity, long sequence, double xVal, double yVal)
+            throws IOException {
+        long slot = sequence % capacity;
+        writeLong(file, HEADER_BYTES + slot * Double.BYTES, Double.doubleToRawLongBits(xVal));
+        writeLong(file, HEADER_BYTES + (capacity + slot) * Double.BYTES, Double.doubleToRawLongBits(yVal));
+        writeLong(file, tagOffset(capacity, sequence), sequence);
+    }
+
+    private static long tagOffset(int capacity, long sequence) {
+        return HEADER_BYTES + 2L * capacity * Double.BYTES + sequence % capacity * Long.BYTES;
+    }
+
+    private static void writeLong(Path file, long offset, long value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.nativeOrder());
+            bytes.putLong(value).flip();
+            channel.write(bytes, offset);
+        }
+    }
+
+    private static void assertSameContents(PointBuffer expected, PointBuffer actual) {
+        assertEquals(expected.size(), actual.size());
+        Iterator<Point2D.Double> expectedIt = expected.iterator();
+        Iterator<Point2D.Double> actualIt = actual.iterator();
+        while (expectedIt.hasNext()) {
+            assertEquals(expectedIt.next(), actualIt.next());
+        }
+        assertFalse(actualIt.hasNext());
+    }
+}
@@ -0,0 +1,147 @@
+import graph.LineGraph;
+import org.junit.jupiter.api.Test;
+import util.MpscPointBuffer;
+
+import javax.swing.SwingUtilities;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestMpscPointBuffer {
+    private static final int PRODUCERS = 4;
+    private static final int SAMPLES = 500_000;
+
+    @Test
+    void testPollMergesLanesByX() throws Exception {
+        MpscPointBuffer buffer = new MpscPointBuffer(1024);
+        Thread[] producers = new Thread[3];
+        for (int t = 0; t < producers.length; ++t) {
+            int offset = t;
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < 300; ++i) {
+                    buffer.add(3 * i + offset, offset);
+                }
+            });
+            producers[t].start();
+            producers[t].join();
+        }
+        assertEquals(3, buffer.getLaneCount());
+        assertEquals(3 * 1024, buffer.getCapacity());
+        double[] xs = new double[7];
+        double[] ys = new double[7];
+        int expected = 0;
+        int count;
+        while ((count = buffer.poll(xs, ys)) > 0) {
+            for (int i = 0; i < count; ++i) {
+                assertEquals(expected, xs[i]);
+                assertEquals(expected % 3, ys[i]);
+                ++expected;
+            }
+        }
+        assertEquals(900, expected);
+        assertEquals(0, buffer.getLaneCount(), "Drained lanes of finished threads are dropped");
+    }
+
+    /**
+     * Several producers race a consumer polling random batch sizes from small lanes, so lanes are lapped and
+     * refilled while being merged. Every sample carries its producer and sequence in y; the consumer checks
+     * that each one is intact, that each producer's samples arrive in order, and that nothing is duplicated.
+     */
+    @Test
+    void testConcurrentProducersAreUntornOrderedAndAccountedFor() throws Exception {
+        MpscPointBuffer buffer = new MpscPointBuffer(256);
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int t = 0; t < PRODUCERS; ++t) {
+            int id = t;
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < SAMPLES; ++i) {
+                    buffer.add(i, (double) id * SAMPLES + i);
+                }
+            });
+        }
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        Random random = new Random(20);
+        double[] xs = new double[64];
+        double[] ys = new double[64];
+        long[] last = new long[PRODUCERS];
+        Arrays.fill(last, -1);
+        long received = 0;
+        boolean running = true;
+        while (running || buffer.getLaneCount() > 0) {
+            running = false;
+            for (Thread producer : producers) {
+                running |= producer.isAlive();
+            }
+            int count;
+            while ((count = buffer.poll(xs, ys)) > 0) {
+                for (int i = 0; i < count; ++i) {
+                    int id = (int) (ys[i] / SAMPLES);
+                    long seq = (long) ys[i] - (long) id * SAMPLES;
+                    assertEquals(seq, xs[i], "Torn sample");
+                    assertTrue(seq > last[id], "Producer " + id + " went back from " + last[id] + " to " + seq);
+                    last[id] = seq;
+                }
+                received += count;
+                if (random.nextInt(4) == 0) {
+                    break;
+                }
+            }
+        }
+        for (int t = 0; t < PRODUCERS; ++t) {
+            assertEquals(SAMPLES - 1, last[t], "Newest sample of producer " + t + " must be observed last");
+        }
+        assertEquals((long) PRODUCERS * SAMPLES, received + buffer.getLostCount());
+        assertEquals(0, buffer.getLaneCount());
+    }
+
+    @Test
+    void testLineGraphTakesInsertsFromManyThreadsWhilePainting() throws Exception {
+        LineGraph graph = new LineGraph(PRODUCERS * 50_000).enableMultiProducerIngest(1 << 16);
+        graph.setSize(400, 300);
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB);
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int t = 0; t < PRODUCERS; ++t) {
+            int id = t;
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; ++i) {
+                    graph.insertData(i * PRODUCERS + id, Math.sin(i * 0.01));
+                }
+            });
+            producers[t].start();
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        boolean running = true;
+        while (running) {
+            SwingUtilities.invokeAndWait(() -> paint(graph, image, failure));
+            running = false;
+            for (Thread producer : producers) {
+                running |= producer.isAlive();
+            }
+        }
+        SwingUtilities.invokeAndWait(() -> paint(graph, image, failure));
+        assertNull(failure.get());
+        assertEquals(0, graph.getLostIngestCount());
+        assertEquals(PRODUCERS * 50_000, graph.getDataSize());
+        assertEquals(PRODUCERS * 50_000 - 1.0, graph.getXMaxVal());
+        SwingUtilities.invokeAndWait(graph::disableConcurrentIngest);
+        graph.insertData(-1.0, 0.0);
+        assertEquals(-1.0, graph.getXMinVal());
+    }
+
+    private static void paint(LineGraph graph, BufferedImage image, AtomicReference<Throwable> failure) {
+        Graphics2D g2 = image.createGraphics();
+        try {
+            graph.paint(g2);
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        } finally {
+            g2.dispose();
+        }
+    }
+}
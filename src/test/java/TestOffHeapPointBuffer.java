@@ -0,0 +1,145 @@
+import graph.LineGraph;
+import org.junit.jupiter.api.Test;
+import util.CircularPointBuffer;
+import util.DrawConfig;
+import util.OffHeapPointBuffer;
+import util.PointBuffer;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestOffHeapPointBuffer {
+
+    @Test
+    void testMatchesHeapBufferUnderRandomOperations() {
+        Random random = new Random(14);
+        try (OffHeapPointBuffer offHeap = new OffHeapPointBuffer(37)) {
+            PointBuffer heap = new CircularPointBuffer(37);
+            for (int step = 0; step < 20_000; ++step) {
+                int op = random.nextInt(10);
+                if (op < 6) {
+                    double xVal = random.nextDouble();
+                    double yVal = random.nextGaussian();
+                    heap.add(xVal, yVal);
+                    offHeap.add(xVal, yVal);
+                } else if (op < 8) {
+                    int len = random.nextInt(90);
+                    double[] xs = new double[len + 3];
+                    double[] ys = new double[len + 3];
+                    for (int i = 0; i < xs.length; ++i) {
+                        xs[i] = random.nextDouble();
+                        ys[i] = random.nextDouble();
+                    }
+                    heap.addAll(xs, ys, 2, len);
+                    offHeap.addAll(xs, ys, 2, len);
+                } else if (op == 8) {
+                    assertEquals(heap.pop(), offHeap.pop());
+                } else if (random.nextInt(50) == 0) {
+                    heap.clear();
+                    offHeap.clear();
+                }
+                assertSameContents(heap, offHeap);
+            }
+        }
+    }
+
+    @Test
+    void testCursorWrapsLikeHeapBuffer() {
+        try (OffHeapPointBuffer offHeap = new OffHeapPointBuffer(5)) {
+            CircularPointBuffer heap = new CircularPointBuffer(5);
+            for (int i = 0; i < 8; ++i) {
+                heap.add(i, i * 2);
+                offHeap.add(i, i * 2);
+            }
+            heap.setCursor(3);
+            offHeap.setCursor(3);
+            for (int i = 0; i < 12; ++i) {
+                assertEquals(heap.hasNext(), offHeap.hasNext());
+                assertEquals(heap.cursorGetX(), offHeap.cursorGetX());
+                assertEquals(heap.cursorGetY(), offHeap.cursorGetY());
+                heap.advanceCursorWrapped();
+                offHeap.advanceCursorWrapped();
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> offHeap.get(5));
+        }
+    }
+
+    @Test
+    void testAccessAfterCloseThrows() {
+        OffHeapPointBuffer buffer = new OffHeapPointBuffer(4);
+        buffer.add(1.0, 2.0);
+        buffer.close();
+        assertThrows(IllegalStateException.class, () -> buffer.get(0));
+        assertThrows(IllegalStateException.class, () -> buffer.add(3.0, 4.0));
+        assertThrows(IllegalStateException.class, buffer::close);
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapPointBuffer(0));
+    }
+
+    @Test
+    void testGraphOverOffHeapBufferDrawsLikeHeapGraph() {
+        try (OffHeapPointBuffer offHeap = new OffHeapPointBuffer(300)) {
+            LineGraph heapGraph = new LineGraph(new DrawConfig().setShowTickMarks(false), new CircularPointBuffer(300));
+            LineGraph offHeapGraph = new LineGraph(new DrawConfig().setShowTickMarks(false), offHeap);
+            for (LineGraph graph : List.of(heapGraph, offHeapGraph)) {
+                graph.setSize(400, 200);
+                graph.cropData(true);
+                for (int i = 0; i < 500; ++i) {
+                    graph.insertData(i, i < 150 ? 9.0 * Math.sin(i * 0.1) : Math.sin(i * 0.1));
+                }
+            }
+            for (LineGraph.RenderMode mode : List.of(LineGraph.RenderMode.EVERY_POINT,
+                    LineGraph.RenderMode.MIN_MAX_DECIMATION)) {
+                heapGraph.setRenderMode(mode);
+                offHeapGraph.setRenderMode(mode);
+                assertImagesEqual(render(heapGraph), render(offHeapGraph));
+            }
+            assertTrue(offHeapGraph.getYMaxVal() <= 1.0, "Overwritten peaks must leave the cropped bounds");
+            assertEquals(heapGraph.getYMaxVal(), offHeapGraph.getYMaxVal());
+            assertEquals(heapGraph.getXMinVal(), offHeapGraph.getXMinVal());
+
+            heapGraph.setXWindow(400.0, 430.0);
+            offHeapGraph.setXWindow(400.0, 430.0);
+            render(heapGraph);
+            render(offHeapGraph);
+            assertEquals(heapGraph.getYMinVal(), offHeapGraph.getYMinVal(), "Zoomed y autoscales by scanning");
+            assertEquals(heapGraph.getYMaxVal(), offHeapGraph.getYMaxVal());
+            assertThrows(UnsupportedOperationException.class, () -> offHeapGraph.setDataBufferCapacity(600));
+        }
+    }
+
+    private static BufferedImage render(LineGraph graph) {
+        BufferedImage image = new BufferedImage(graph.getWidth(), graph.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        graph.paint(g2);
+        g2.dispose();
+        return image;
+    }
+
+    private static void assertImagesEqual(BufferedImage expected, BufferedImage actual) {
+        for (int py = 0; py < expected.getHeight(); ++py) {
+            for (int px = 0; px < expected.getWidth(); ++px) {
+                assertEquals(expected.getRGB(px, py), actual.getRGB(px, py), "Pixel " + px + ", " + py);
+            }
+        }
+    }
+
+    private static void assertSameContents(PointBuffer expected, PointBuffer actual) {
+        assertEquals(expected.size(), actual.size());
+        Iterator<Point2D.Double> expectedIt = expected.iterator();
+        Iterator<Point2D.Double> actualIt = actual.iterator();
+        while (expectedIt.hasNext()) {
+            assertEquals(expectedIt.next(), actualIt.next());
+        }
+        assertFalse(actualIt.hasNext());
+        if (!expected.isEmpty()) {
+            int index = expected.size() - 1;
+            assertEquals(expected.get(index), actual.get(index));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import graph.LineGraph;
+import org.junit.jupiter.api.Test;
+import util.SpscPointBuffer;
+
+import javax.swing.SwingUtilities;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestSpscPointBuffer {
+    private static final int SAMPLES = 5_000_000;
+
+    @Test
+    void testCapacityRoundsUpToPowerOfTwo() {
+        assertEquals(8, new SpscPointBuffer(5).getCapacity());
+        assertEquals(1024, new SpscPointBuffer(1024).getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> new SpscPointBuffer(1));
+    }
+
+    @Test
+    void testPollReturnsSamplesInOrder() {
+        SpscPointBuffer buffer = new SpscPointBuffer(16);
+        for (int i = 0; i < 10; ++i) {
+            buffer.add(i, -i);
+        }
+        double[] xs = new double[4];
+        double[] ys = new double[4];
+        assertEquals(4, buffer.poll(xs, ys));
+        assertArrayEquals(new double[]{0, 1, 2, 3}, xs);
+        assertArrayEquals(new double[]{0, -1, -2, -3}, ys);
+        assertEquals(4, buffer.poll(xs, ys));
+        assertEquals(2, buffer.poll(xs, ys));
+        assertEquals(0, buffer.poll(xs, ys));
+        assertEquals(0, buffer.getLostCount());
+    }
+
+    @Test
+    void testPollCountsOverwrittenSamplesAsLost() {
+        SpscPointBuffer buffer = new SpscPointBuffer(8);
+        for (int i = 0; i < 20; ++i) {
+            buffer.add(i, i);
+        }
+        double[] xs = new double[32];
+        double[] ys = new double[32];
+        int count = buffer.poll(xs, ys);
+        assertEquals(7, count, "One slot is reserved for the sample the producer may be writing");
+        assertEquals(13.0, xs[0]);
+        assertEquals(19.0, xs[count - 1]);
+        assertEquals(13, buffer.getLostCount());
+    }
+
+    @Test
+    void testConcurrentProducerAndConsumerSeeOrderedUntornSamples() throws InterruptedException {
+        SpscPointBuffer buffer = new SpscPointBuffer(1 << 12);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < SAMPLES; ++i) {
+                buffer.add(i, -i);
+            }
+        });
+        double[] xs = new double[1024];
+        double[] ys = new double[1024];
+        double[] snapX = new double[1024];
+        double[] snapY = new double[1024];
+        long received = 0;
+        double previous = -1.0;
+        producer.start();
+        while (producer.isAlive() || buffer.getPublishedSequence() > received + buffer.getLostCount()) {
+            int count = buffer.poll(xs, ys);
+            for (int i = 0; i < count; ++i) {
+                assertTrue(xs[i] > previous, "Samples must arrive in publication order");
+                assertEquals(-xs[i], ys[i], "x and y of one sample must come from the same write");
+                previous = xs[i];
+            }
+            received += count;
+
+            int snapCount = buffer.snapshot(snapX, snapY);
+            for (int i = 0; i < snapCount; ++i) {
+                assertEquals(-snapX[i], snapY[i], "Snapshot samples must not be torn");
+                if (i > 0) {
+                    assertEquals(snapX[i - 1] + 1.0, snapX[i], "Snapshot must be a consecutive run");
+                }
+            }
+        }
+        producer.join();
+        assertEquals(SAMPLES, received + buffer.getLostCount(), "Every sample is either received or counted lost");
+        assertEquals(SAMPLES - 1.0, previous, "The newest sample must be observed last");
+    }
+
+    @Test
+    void testLineGraphDrainsConcurrentIngestOnPaintingThread() throws Exception {
+        LineGraph graph = new LineGraph().enableConcurrentIngest(1 << 14);
+        graph.setSize(400, 300);
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 200_000; ++i) {
+                graph.insertData(i, Math.sin(i * 0.01));
+            }
+        });
+        producer.start();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        while (producer.isAlive()) {
+            SwingUtilities.invokeAndWait(() -> paint(graph, image, failure));
+        }
+        producer.join();
+        SwingUtilities.invokeAndWait(() -> paint(graph, image, failure));
+        assertNull(failure.get());
+        assertEquals(graph.getDataBufferCapacity(), graph.getDataSize());
+        assertEquals(199_999.0, graph.getXMaxVal(), "Newest sample must have reached the graph");
+    }
+
+    private static void paint(LineGraph graph, BufferedImage image, AtomicReference<Throwable> failure) {
+        Graphics2D g2 = image.createGraphics();
+        try {
+            graph.paint(g2);
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        } finally {
+            g2.dispose();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+import org.junit.jupiter.api.Test;
+import util.TickEngine;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestTickEngine {
+
+    @Test
+    void testStepsAreOneTwoOrFiveTimesAPowerOfTen() {
+        TickEngine engine = new TickEngine();
+        assertTrue(engine.update(0.0, 100.0, 600, 60));
+        assertEquals(10.0, engine.getStep());
+        assertEquals(11, engine.getCount());
+        assertEquals(0, engine.getFractionDigits());
+        assertEquals(300, engine.getPixelOffset(5));
+
+        engine.update(0.0, 1.0, 600, 100);
+        assertEquals(0.2, engine.getStep(), 1e-15);
+        assertEquals(1, engine.getFractionDigits());
+        assertEquals(0.6, engine.getTick(3), 1e-15);
+
+        engine.update(-0.013, 0.012, 400, 50);
+        assertEquals(0.005, engine.getStep(), 1e-15);
+        assertEquals(3, engine.getFractionDigits());
+        assertEquals(-0.01, engine.getTick(0), 1e-15);
+        assertEquals(0.01, engine.getTick(engine.getCount() - 1), 1e-15);
+
+        assertTrue(engine.update(5.0, 5.0, 400, 50), "An empty range clears the ticks");
+        assertEquals(0, engine.getCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.getTick(0));
+    }
+
+    @Test
+    void testRandomRangesKeepTicksInsideAndSpacedApart() {
+        Random random = new Random(22);
+        TickEngine engine = new TickEngine();
+        for (int i = 0; i < 10_000; ++i) {
+            double min = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12) - 4);
+            double max = min + random.nextDouble() * Math.pow(10, random.nextInt(12) - 4) + 1e-9;
+            int pixels = 50 + random.nextInt(2000);
+            int spacing = 20 + random.nextInt(100);
+            engine.update(min, max, pixels, spacing);
+            double step = engine.getStep();
+            double mantissa = step / Math.pow(10, Math.floor(Math.log10(step) + 1e-9));
+            assertTrue(Math.abs(mantissa - 1) < 1e-9 || Math.abs(mantissa - 2) < 1e-9
+                    || Math.abs(mantissa - 5) < 1e-9, "Step " + step);
+            assertTrue(step * pixels / (max - min) >= spacing * (1 - 1e-9) || engine.getCount() <= 1);
+            for (int t = 0; t < engine.getCount(); ++t) {
+                assertTrue(engine.getTick(t) >= min - step * 1e-9 && engine.getTick(t) <= max + step * 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void testScrollingOnlyRecomputesWhenATickCrossesTheEdge() {
+        TickEngine engine = new TickEngine();
+        engine.update(0.5, 100.5, 600, 60);
+        long recomputes = engine.getRecomputeCount();
+        for (double shift = 0.0; shift < 9.0; shift += 0.25) {
+            assertFalse(engine.update(0.5 + shift, 100.5 + shift, 600, 60), "Shift " + shift);
+        }
+        assertEquals(recomputes, engine.getRecomputeCount());
+        assertEquals(10.0, engine.getTick(0));
+        assertTrue(engine.update(10.5, 110.5, 600, 60));
+        assertEquals(20.0, engine.getTick(0));
+        assertEquals(recomputes + 1, engine.getRecomputeCount());
+    }
+}
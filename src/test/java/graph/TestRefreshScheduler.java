@@ -0,0 +1,115 @@
+package graph;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.JComponent;
+import javax.swing.Timer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestRefreshScheduler {
+
+    @Test
+    void testInsertsBetweenTicksCostOneRepaint() {
+        CountingComponent component = new CountingComponent(false);
+        RefreshScheduler scheduler = new RefreshScheduler(component);
+        scheduler.tick();
+        assertEquals(0, component.repaints, "Nothing inserted, nothing to repaint");
+
+        for (int i = 0; i < 500; ++i) {
+            scheduler.recordInserts(1);
+        }
+        scheduler.tick();
+        assertEquals(1, component.repaints);
+        scheduler.tick();
+        assertEquals(1, component.repaints, "A tick without new inserts must not queue another repaint");
+        assertEquals(0, scheduler.getDroppedFrameCount(), "Nor count as a dropped frame");
+
+        scheduler.framePainted();
+        assertEquals(500, scheduler.getLastFrameInsertCount());
+        assertEquals(1, scheduler.getFrameCount());
+    }
+
+    @Test
+    void testTickWhileARepaintIsPendingDropsAFrame() {
+        CountingComponent component = new CountingComponent(false);
+        RefreshScheduler scheduler = new RefreshScheduler(component);
+        scheduler.recordInserts(5);
+        scheduler.tick();
+        scheduler.recordInserts(3);
+        scheduler.tick(); // The first repaint has not been painted yet
+        scheduler.recordInserts(2);
+        scheduler.tick();
+        assertEquals(1, component.repaints, "Only one repaint may be queued at a time");
+        assertEquals(2, scheduler.getDroppedFrameCount());
+
+        scheduler.framePainted();
+        assertEquals(10, scheduler.getLastFrameInsertCount(), "The painted frame covers every insert so far");
+        scheduler.recordInserts(1);
+        scheduler.tick();
+        assertEquals(2, component.repaints);
+        assertEquals(2, scheduler.getDroppedFrameCount());
+    }
+
+    @Test
+    void testFrameRateChangesRestartACoalescingTimer() {
+        RefreshScheduler scheduler = new RefreshScheduler(new CountingComponent(true));
+        try {
+            scheduler.setMaxFramesPerSecond(50);
+            Timer first = scheduler.getTimer();
+            assertEquals(20, first.getDelay());
+            assertTrue(first.isCoalesce(), "Late ticks must merge instead of queueing up");
+            assertTrue(first.isRunning());
+
+            scheduler.setMaxFramesPerSecond(2000);
+            assertFalse(first.isRunning(), "The old timer must not keep ticking");
+            assertEquals(1, scheduler.getTimer().getDelay(), "Rates above 1000 fps are capped at 1 ms");
+
+            scheduler.start();
+            assertEquals(1, scheduler.getTimer().getDelay(), "Starting a running scheduler changes nothing");
+            scheduler.setMaxFramesPerSecond(0);
+            assertNull(scheduler.getTimer());
+            scheduler.start();
+            assertNull(scheduler.getTimer(), "0 fps leaves repainting to the caller");
+            assertThrows(IllegalArgumentException.class, () -> scheduler.setMaxFramesPerSecond(-1));
+        } finally {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    void testTimerWaitsUntilTheComponentIsDisplayable() {
+        RefreshScheduler scheduler = new RefreshScheduler(new CountingComponent(false));
+        scheduler.setMaxFramesPerSecond(60);
+        assertNull(scheduler.getTimer());
+        try {
+            scheduler.start();
+            assertEquals(16, scheduler.getTimer().getDelay());
+        } finally {
+            scheduler.stop();
+        }
+        assertNull(scheduler.getTimer());
+    }
+
+    /**
+     * Counts repaint requests instead of posting them, and reports a fixed displayability.
+     */
+    private static final class CountingComponent extends JComponent {
+        private final boolean displayable;
+        private int repaints;
+
+        CountingComponent(boolean displayable) {
+            this.displayable = displayable;
+        }
+
+        @Override
+        public boolean isDisplayable() {
+            return displayable;
+        }
+
+        @Override
+        public void repaint(long tm, int x, int y, int width, int height) {
+            ++repaints;
+        }
+    }
+}